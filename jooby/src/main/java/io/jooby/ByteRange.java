@@ -5,6 +5,7 @@
  */
 package io.jooby;
 
+import io.jooby.internal.MultipleByteRange;
 import io.jooby.internal.NoByteRange;
 import io.jooby.internal.NotSatisfiableByteRange;
 import io.jooby.internal.SingleByteRange;
@@ -13,16 +14,18 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 /**
- * Utility class to compute single byte range requests when response content length is known.
- * Jooby support single byte range requests on file responses, like: assets, input stream, files,
+ * Utility class to compute byte range requests when response content length is known.
+ * Jooby support byte range requests on file responses, like: assets, input stream, files,
  * etc.
  *
  * Single byte range request looks like: <code>bytes=0-100</code>, <code>bytes=100-</code>,
  * <code>bytes=-100</code>.
  *
- * Multiple byte range request are not supported.
+ * Multiple byte range request looks like: <code>bytes=0-100, 200-300</code>. They produce a
+ * <code>multipart/byteranges</code> response. Overlapping or adjacent ranges are merged into one.
  *
  * @since 2.0.0
  * @author edgar
@@ -33,12 +36,19 @@ public interface ByteRange {
    */
   String BYTES_RANGE = "bytes=";
 
+  /**
+   * Max number of ranges in a multiple byte range request. Requests with more ranges are served
+   * as if there were no range (full content).
+   */
+  int MAX_RANGES = 32;
+
   /**
    * Parse a byte range request value. Example of valid values:
    *
    * - bytes=0-100
    * - bytes=-100
    * - bytes=100-
+   * - bytes=0-100, 200-300
    *
    * Any non-matching values produces a not satisfiable response.
    *
@@ -55,61 +65,136 @@ public interface ByteRange {
       return new NoByteRange(contentLength);
     }
 
-    if (!value.startsWith(SingleByteRange.BYTES_RANGE)) {
+    if (!value.startsWith(BYTES_RANGE)) {
       return new NotSatisfiableByteRange(value, contentLength);
     }
 
     try {
-      long[] range = {-1, -1};
-      int r = 0;
       int len = value.length();
-      int i = SingleByteRange.BYTES_RANGE.length();
-      int offset = i;
-      char ch;
-      // Only Single Byte Range Requests:
-      while (i < len && (ch = value.charAt(i)) != ',') {
-        if (ch == '-') {
-          if (offset < i) {
-            range[r] = Long.parseLong(value.substring(offset, i).trim());
-          }
-          offset = i + 1;
-          r += 1;
+      int offset = BYTES_RANGE.length();
+      int comma = value.indexOf(',', offset);
+      if (comma < 0) {
+        // Single Byte Range Request, most common:
+        long[] range = parseRange(value, offset, len, contentLength);
+        if (range == null) {
+          return new NotSatisfiableByteRange(value, contentLength);
         }
-        i += 1;
+        return singleRange(value, range[0], range[1], contentLength);
       }
-      if (offset < i) {
-        if (r == 0) {
-          return new NotSatisfiableByteRange(value, contentLength);
+      long[] starts = new long[4];
+      long[] ends = new long[4];
+      int count = 0;
+      while (offset <= len) {
+        int end = comma < 0 ? len : comma;
+        long[] range = value.substring(offset, end).isBlank()
+            ? null
+            : parseRange(value, offset, end, contentLength);
+        if (range != null) {
+          if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+          }
+          starts[count] = range[0];
+          ends[count] = range[1];
+          count += 1;
         }
-        range[r++] = Long.parseLong(value.substring(offset, i).trim());
+        offset = end + 1;
+        comma = value.indexOf(',', offset);
       }
-      if (r == 0 || (range[0] == -1 && range[1] == -1)) {
+      if (count == 0) {
         return new NotSatisfiableByteRange(value, contentLength);
       }
-
-      long start = range[0];
-      long end = range[1];
-      if (start == -1) {
-        start = contentLength - end;
-        end = contentLength - 1;
+      // sort + merge overlapping/adjacent ranges
+      Integer[] order = new Integer[count];
+      for (int i = 0; i < count; i++) {
+        order[i] = i;
+      }
+      long[] unsortedStarts = starts;
+      Arrays.sort(order, (i, j) -> Long.compare(unsortedStarts[i], unsortedStarts[j]));
+      long[] mergedStarts = new long[count];
+      long[] mergedEnds = new long[count];
+      int merged = 0;
+      for (int i = 0; i < count; i++) {
+        long start = starts[order[i]];
+        long end = ends[order[i]];
+        if (merged > 0 && start <= mergedEnds[merged - 1] + 1) {
+          mergedEnds[merged - 1] = Math.max(mergedEnds[merged - 1], end);
+        } else {
+          mergedStarts[merged] = start;
+          mergedEnds[merged] = end;
+          merged += 1;
+        }
       }
-      if (end == -1 || end > contentLength - 1) {
-        end = contentLength - 1;
+      if (merged == 1) {
+        return singleRange(value, mergedStarts[0], mergedEnds[0], contentLength);
       }
-      if (start > end) {
-        return new NotSatisfiableByteRange(value, contentLength);
+      if (merged > MAX_RANGES) {
+        return new NoByteRange(contentLength);
       }
-      // offset
-      long limit = (end - start + 1);
-      return new SingleByteRange(value, start, limit, limit,
-          "bytes " + start + "-" + end + "/" + contentLength);
+      return new MultipleByteRange(value, Arrays.copyOf(mergedStarts, merged),
+          Arrays.copyOf(mergedEnds, merged), contentLength);
     } catch (NumberFormatException expected) {
       return new NotSatisfiableByteRange(value, contentLength);
     }
   }
 
   /**
-   * Start range or <code>-1</code>.
+   * Parse a single range: <code>start-end</code>, <code>start-</code> or <code>-suffix</code>.
+   *
+   * @param value Byte range request value.
+   * @param from Start of range (inclusive).
+   * @param to End of range (exclusive).
+   * @param contentLength Content length.
+   * @return Start and end (inclusive) or <code>null</code> when range is not satisfiable.
+   * @throws NumberFormatException For invalid ranges.
+   */
+  private static long[] parseRange(String value, int from, int to, long contentLength) {
+    int dash = value.indexOf('-', from);
+    if (dash < 0 || dash >= to) {
+      throw new NumberFormatException(value);
+    }
+    String first = value.substring(from, dash).trim();
+    String second = value.substring(dash + 1, to).trim();
+    long start;
+    long end;
+    if (first.isEmpty()) {
+      if (second.isEmpty()) {
+        throw new NumberFormatException(value);
+      }
+      long suffix = number(second);
+      if (suffix == 0) {
+        return null;
+      }
+      start = Math.max(0, contentLength - suffix);
+      end = contentLength - 1;
+    } else {
+      start = number(first);
+      end = second.isEmpty() ? contentLength - 1 : Math.min(number(second), contentLength - 1);
+    }
+    if (start > end) {
+      return null;
+    }
+    return new long[]{start, end};
+  }
+
+  private static long number(String value) {
+    long number = Long.parseLong(value);
+    if (number < 0) {
+      throw new NumberFormatException(value);
+    }
+    return number;
+  }
+
+  private static ByteRange singleRange(String value, long start, long end, long contentLength) {
+    long limit = (end - start + 1);
+    return new SingleByteRange(value, start, limit, limit,
+        "bytes " + start + "-" + end + "/" + contentLength);
+  }
+
+  /**
+   * Start range or <code>-1</code>. Multiple byte ranges (see <code>multipart/byteranges</code>)
+   * aren't a single slice of the content, so they return <code>-1</code> and must be sent using
+   * {@link #apply(InputStream)}.
    *
    * @return Start range or <code>-1</code>.
    */
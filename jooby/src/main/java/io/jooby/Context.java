@@ -5,6 +5,7 @@
  */
 package io.jooby;
 
+import io.jooby.internal.LocaleCache;
 import io.jooby.internal.LocaleUtils;
 import io.jooby.internal.ParamLookupImpl;
 import io.jooby.internal.ReadOnlyContext;
@@ -31,7 +32,6 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 
@@ -95,6 +95,16 @@ public interface Context extends Registry {
    */
   @NonNull Context attribute(@NonNull String key, Object value);
 
+  /**
+   * Deadline of current request. Available when the route has a {@link DeadlineHandler}.
+   *
+   * @return Deadline or <code>null</code>.
+   */
+  default @Nullable Deadline getDeadline() {
+    Object deadline = getAttributes().get(Deadline.KEY);
+    return deadline instanceof Deadline ? (Deadline) deadline : null;
+  }
+
   /**
    * Get the HTTP router (usually this represent an instance of {@link Jooby}.
    *
@@ -471,7 +481,7 @@ public interface Context extends Registry {
    * @see #locales(BiFunction)
    */
   @NonNull default List<Locale> locales() {
-    return locales(Locale::filter);
+    return LocaleCache.locales(this);
   }
 
   /**
@@ -507,8 +517,7 @@ public interface Context extends Registry {
    * @return A matching locale.
    */
   @NonNull default Locale locale() {
-    return locale((priorityList, locales) -> Optional.ofNullable(Locale.lookup(priorityList, locales))
-        .orElse(locales.get(0)));
+    return LocaleCache.locale(this);
   }
 
   /**
@@ -9,13 +9,17 @@ import com.typesafe.config.Config;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Predicate;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
@@ -48,45 +52,115 @@ import static java.util.Objects.requireNonNull;
  */
 public class Cors {
 
-  private static class Matcher<T> implements Predicate<T> {
+  /**
+   * Compiled list of values. Plain values (no regex) go to a hash set, regex values are combined
+   * into a single pattern. Pattern decisions are cached, so repeated origins don't run the regex
+   * again.
+   *
+   * The cache is not an LRU: it keeps the first {@link #CACHE_SIZE} distinct values and never
+   * evicts them. Values seen after that always run the regex. This keeps lookups lock-free and
+   * bounds memory when clients send random origins.
+   */
+  private static class Matcher {
 
-    private List<String> values;
+    private static final int CACHE_SIZE = 1024;
 
-    private Predicate<T> predicate;
+    private List<String> values;
 
     private boolean wild;
 
-    Matcher(final List<String> values, final Predicate<T> predicate) {
+    private Set<String> exact = new HashSet<>();
+
+    private Pattern pattern;
+
+    private Map<String, Boolean> cache;
+
+    Matcher(final List<String> values) {
       this.values = values;
-      this.predicate = predicate;
       this.wild = values.contains("*");
+      List<String> regex = new ArrayList<>();
+      for (String value : values) {
+        if (isRegex(value)) {
+          regex.add("(?:" + rewrite(value) + ")");
+        } else {
+          exact.add(value.toLowerCase(Locale.ROOT));
+        }
+      }
+      if (!wild && regex.size() > 0) {
+        this.pattern = Pattern.compile(String.join("|", regex), Pattern.CASE_INSENSITIVE);
+        this.cache = new ConcurrentHashMap<>();
+      }
+    }
+
+    public boolean test(final String value) {
+      if (wild) {
+        return true;
+      }
+      if (exact.contains(value.toLowerCase(Locale.ROOT))) {
+        return true;
+      }
+      if (pattern == null) {
+        return false;
+      }
+      Boolean result = cache.get(value);
+      if (result == null) {
+        result = pattern.matcher(value).matches();
+        if (cache.size() < CACHE_SIZE) {
+          cache.put(value, result);
+        }
+      }
+      return result;
     }
 
-    @Override
-    public boolean test(final T value) {
-      return predicate.test(value);
+    public boolean testAll(final List<String> values) {
+      for (String value : values) {
+        if (!test(value)) {
+          return false;
+        }
+      }
+      return true;
     }
 
     @Override public String toString() {
       return values.toString();
     }
+
+    private static boolean isRegex(final String value) {
+      for (int i = 0; i < value.length(); i++) {
+        if ("\\^$|?*+()[]{}".indexOf(value.charAt(i)) >= 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static String rewrite(final String value) {
+      return value.replace(".", "\\.").replace("*", ".*");
+    }
   }
 
   /** Default max-age in minutes. */
   private static final int _30 = 30;
 
-  private Matcher<String> origin;
+  private Matcher origin;
 
   private boolean credentials;
 
-  private Matcher<String> methods;
+  private Matcher methods;
 
-  private Matcher<List<String>> headers;
+  private Matcher headers;
 
   private Duration maxAge;
 
   private List<String> exposedHeaders = Collections.emptyList();
 
+  /** Precomputed header values: */
+  private String methodsHeader;
+
+  private String headersHeader;
+
+  private String exposedHeadersHeader;
+
   /**
    * Creates default {@link Cors}. Default options are:
    *
@@ -173,7 +247,7 @@ public class Cors {
    * @return This cors.
    */
   public Cors setOrigin(final List<String> origin) {
-    this.origin = firstMatch(requireNonNull(origin, "Origins are required."));
+    this.origin = new Matcher(requireNonNull(origin, "Origins are required."));
     return this;
   }
 
@@ -211,7 +285,8 @@ public class Cors {
    * @return This cors.
    */
   public Cors setMethods(final List<String> methods) {
-    this.methods = firstMatch(methods);
+    this.methods = new Matcher(methods);
+    this.methodsHeader = String.join(",", methods);
     return this;
   }
 
@@ -239,7 +314,7 @@ public class Cors {
    * @return True if all the headers are allowed.
    */
   public boolean allowHeaders(final List<String> headers) {
-    return this.headers.test(headers);
+    return this.headers.testAll(headers);
   }
 
   /**
@@ -269,7 +344,8 @@ public class Cors {
    * @return This cors.
    */
   public Cors setHeaders(final List<String> headers) {
-    this.headers = allMatch(headers);
+    this.headers = new Matcher(headers);
+    this.headersHeader = String.join(",", headers);
     return this;
   }
 
@@ -298,9 +374,31 @@ public class Cors {
    */
   public Cors setExposedHeaders(final List<String> exposedHeaders) {
     this.exposedHeaders = requireNonNull(exposedHeaders, "Exposed headers are required.");
+    this.exposedHeadersHeader = exposedHeaders.isEmpty() ? null : String.join(",", exposedHeaders);
     return this;
   }
 
+  /**
+   * @return Value of the <code>Access-Control-Allow-Methods</code> header.
+   */
+  String getMethodsHeader() {
+    return methodsHeader;
+  }
+
+  /**
+   * @return Value of the <code>Access-Control-Allow-Headers</code> header.
+   */
+  String getHeadersHeader() {
+    return headersHeader;
+  }
+
+  /**
+   * @return Value of the <code>Access-Control-Expose-Headers</code> header or <code>null</code>.
+   */
+  String getExposedHeadersHeader() {
+    return exposedHeadersHeader;
+  }
+
   /**
    * @return Preflight max age. How many seconds a client can cache a preflight request.
    */
@@ -364,27 +462,4 @@ public class Cors {
   private static List<String> list(final Object value) {
     return value instanceof List ? (List) value : Collections.singletonList(value.toString());
   }
-
-  private static Matcher<List<String>> allMatch(final List<String> values) {
-    Predicate<String> predicate = firstMatch(values);
-    Predicate<List<String>> allmatch = it -> it.stream().allMatch(predicate);
-    return new Matcher<>(values, allmatch);
-  }
-
-  private static Matcher<String> firstMatch(final List<String> values) {
-    List<Pattern> patterns = values.stream()
-        .map(Cors::rewrite)
-        .collect(Collectors.toList());
-    Predicate<String> predicate = it -> patterns.stream()
-        .filter(pattern -> pattern.matcher(it).matches())
-        .findFirst()
-        .isPresent();
-
-    return new Matcher<>(values, predicate);
-  }
-
-  private static Pattern rewrite(final String origin) {
-    return Pattern.compile(origin.replace(".", "\\.").replace("*", ".*"), Pattern.CASE_INSENSITIVE);
-  }
-
 }
@@ -12,6 +12,7 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -44,6 +45,8 @@ public class CorsHandler implements Route.Decorator {
 
   private static final String AC_ALLOW_METHODS = "Access-Control-Allow-Methods";
 
+  private static final Pattern HEADER_SEPARATOR = Pattern.compile("\\s*,\\s*");
+
   private final Cors options;
 
   private static final Logger log = LoggerFactory.getLogger(CorsHandler.class);
@@ -86,6 +89,7 @@ public class CorsHandler implements Route.Decorator {
           // OPTIONS?
           if (ctx.getMethod().equalsIgnoreCase(Router.OPTIONS)) {
             // handle normal OPTIONS
+            // computed from request path: patterns might overlap (/users/{id} vs /users/me)
             String allow = Router.METHODS.stream()
                 .flatMap(method -> allowMethod(ctx, method))
                 .collect(Collectors.joining(","));
@@ -124,9 +128,9 @@ public class CorsHandler implements Route.Decorator {
       if (options.getUseCredentials()) {
         ctx.setResponseHeader(AC_ALLOW_CREDENTIALS, true);
       }
-      if (!options.getExposedHeaders().isEmpty()) {
-        ctx.setResponseHeader(AC_EXPOSE_HEADERS,
-            options.getExposedHeaders().stream().collect(Collectors.joining()));
+      String exposedHeaders = options.getExposedHeadersHeader();
+      if (exposedHeaders != null) {
+        ctx.setResponseHeader(AC_EXPOSE_HEADERS, exposedHeaders);
       }
     }
   }
@@ -143,19 +147,18 @@ public class CorsHandler implements Route.Decorator {
     /*
       Allowed method
      */
-    boolean allowMethod = ctx.header(AC_REQUEST_METHOD).toOptional()
-        .map(options::allowMethod)
-        .orElse(false);
-    if (!allowMethod) {
+    String method = ctx.header(AC_REQUEST_METHOD).valueOrNull();
+    if (method == null || !options.allowMethod(method)) {
       return false;
     }
 
     /*
       Allowed headers
      */
-    List<String> headers = ctx.header(AC_REQUEST_HEADERS).toOptional().map(header ->
-        Arrays.asList(header.split("\\s*,\\s*"))
-    ).orElse(Collections.emptyList());
+    String requestHeaders = ctx.header(AC_REQUEST_HEADERS).valueOrNull();
+    List<String> headers = requestHeaders == null
+        ? Collections.emptyList()
+        : Arrays.asList(HEADER_SEPARATOR.split(requestHeaders));
     if (!options.allowHeaders(headers)) {
       return false;
     }
@@ -163,12 +166,10 @@ public class CorsHandler implements Route.Decorator {
     /*
       Allowed methods
      */
-    ctx.setResponseHeader(AC_ALLOW_METHODS,
-        options.getMethods().stream().collect(Collectors.joining(",")));
+    ctx.setResponseHeader(AC_ALLOW_METHODS, options.getMethodsHeader());
 
-    List<String> allowedHeaders = options.anyHeader() ? headers : options.getHeaders();
     ctx.setResponseHeader(AC_ALLOW_HEADERS,
-        allowedHeaders.stream().collect(Collectors.joining(",")));
+        options.anyHeader() ? String.join(",", headers) : options.getHeadersHeader());
 
     /*
       Allow credentials
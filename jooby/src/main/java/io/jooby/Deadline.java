@@ -0,0 +1,210 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.jooby.exception.StatusCodeException;
+
+/**
+ * Time budget of a request. A deadline expires once the timeout is reached and it is cancelled
+ * when the client disconnects (or when the timeout is reached). Blocking code should check the
+ * deadline and propagate it to JDBC queries, remote calls, etc.
+ *
+ * <pre>{@code
+ * {
+ *   get("/report", ctx -> {
+ *     Deadline deadline = ctx.getDeadline();
+ *     ...
+ *     deadline.check();
+ *     statement.setQueryTimeout(deadline.getRemainingSeconds());
+ *     ...
+ *   });
+ * }
+ * }</pre>
+ *
+ * Deadlines are created by {@link DeadlineHandler}. While a route handler runs, the deadline is
+ * also available from {@link #current()}, so libraries without access to {@link Context} can
+ * read it.
+ *
+ * @author edgar
+ * @since 3.0.0
+ */
+public class Deadline {
+  /** Context attribute holding the request deadline. */
+  public static final String KEY = Deadline.class.getName();
+
+  private static final int ACTIVE = 0;
+
+  private static final int DONE = 1;
+
+  private static final int CANCELLED = 2;
+
+  private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+  private final long deadline;
+
+  private final AtomicInteger state = new AtomicInteger(ACTIVE);
+
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+  private Deadline(long deadline) {
+    this.deadline = deadline;
+  }
+
+  /**
+   * Creates a deadline that expires after the given timeout.
+   *
+   * @param timeout Timeout.
+   * @return A new deadline.
+   */
+  public static @NonNull Deadline of(@NonNull Duration timeout) {
+    return new Deadline(System.nanoTime() + timeout.toNanos());
+  }
+
+  /**
+   * Deadline of the route handler running in current thread.
+   *
+   * @return Deadline or <code>null</code>.
+   */
+  public static @Nullable Deadline current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Cancel the deadline of the given context (if any). Used by web servers when the client
+   * disconnects.
+   *
+   * @param ctx Web context or <code>null</code>.
+   */
+  public static void cancel(@Nullable Context ctx) {
+    if (ctx != null) {
+      Object deadline = ctx.getAttributes().get(KEY);
+      if (deadline instanceof Deadline) {
+        ((Deadline) deadline).cancel();
+      }
+    }
+  }
+
+  /**
+   * Remaining time, never negative.
+   *
+   * @return Remaining time.
+   */
+  public @NonNull Duration getRemaining() {
+    return Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+  }
+
+  /**
+   * Remaining time in seconds, rounded up. Useful for APIs like
+   * <code>java.sql.Statement.setQueryTimeout(int)</code>. It is at least <code>1</code>, because
+   * <code>0</code> means no timeout to most of them.
+   *
+   * @return Remaining time in seconds.
+   */
+  public int getRemainingSeconds() {
+    long nanos = Math.max(0, deadline - System.nanoTime());
+    long seconds = (nanos + 999_999_999L) / 1_000_000_000L;
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, seconds));
+  }
+
+  /**
+   * True when timeout was reached.
+   *
+   * @return True when timeout was reached.
+   */
+  public boolean isExpired() {
+    return deadline - System.nanoTime() <= 0;
+  }
+
+  /**
+   * True when the deadline was cancelled: client disconnected or timeout was reached.
+   *
+   * @return True when the deadline was cancelled.
+   */
+  public boolean isCancelled() {
+    return state.get() == CANCELLED;
+  }
+
+  /**
+   * Throws a {@link StatusCodeException} with {@link StatusCode#GATEWAY_TIMEOUT} when the
+   * deadline was expired or cancelled. Long running code should call it between steps.
+   *
+   * @throws StatusCodeException When deadline was expired or cancelled.
+   */
+  public void check() throws StatusCodeException {
+    if (isCancelled() || isExpired()) {
+      throw new StatusCodeException(StatusCode.GATEWAY_TIMEOUT, "Deadline exceeded");
+    }
+  }
+
+  /**
+   * Cancel the deadline and run cancellation listeners. It does nothing when the deadline was
+   * already cancelled or the request was completed.
+   */
+  public void cancel() {
+    if (state.compareAndSet(ACTIVE, CANCELLED)) {
+      for (Runnable listener : listeners) {
+        // listener might be running from onCancel already
+        if (listeners.remove(listener)) {
+          listener.run();
+        }
+      }
+    }
+  }
+
+  /**
+   * Add a cancellation listener. Listener runs immediately when the deadline was already
+   * cancelled. Listeners run on the thread that cancels the deadline: a server IO thread or a
+   * timer thread, so they must not block.
+   *
+   * @param listener Listener.
+   * @return This deadline.
+   */
+  public @NonNull Deadline onCancel(@NonNull Runnable listener) {
+    listeners.add(listener);
+    if (state.get() == CANCELLED && listeners.remove(listener)) {
+      listener.run();
+    }
+    return this;
+  }
+
+  /**
+   * Mark the deadline as done. Cancellation listeners are discarded.
+   *
+   * @return True when the deadline was active, false when it was cancelled.
+   */
+  boolean done() {
+    boolean active = state.compareAndSet(ACTIVE, DONE);
+    listeners.clear();
+    return active;
+  }
+
+  /**
+   * Bind deadline to current thread.
+   *
+   * @param deadline Deadline or <code>null</code>.
+   * @return Previous deadline.
+   */
+  static Deadline bind(Deadline deadline) {
+    Deadline previous = CURRENT.get();
+    if (deadline == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(deadline);
+    }
+    return previous;
+  }
+
+  @Override public String toString() {
+    return getRemaining().toString();
+  }
+}
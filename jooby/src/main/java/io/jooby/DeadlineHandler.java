@@ -0,0 +1,257 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValueFactory;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.jooby.exception.StatusCodeException;
+
+/**
+ * Set a {@link Deadline} on requests. Requests that exceed the deadline get a
+ * <code>504</code> response.
+ *
+ * Usage:
+ * <pre>{@code
+ * {
+ *   decorator(new DeadlineHandler(Duration.ofSeconds(10)));
+ *
+ *   get("/report", ctx -> {
+ *     ...
+ *   }).attribute("timeout", "30s");
+ * }
+ * }</pre>
+ *
+ * The timeout of a route is set by the <code>timeout</code> route attribute, a
+ * {@link Duration} or a string like <code>30s</code>, <code>500ms</code> or
+ * <code>PT30S</code>. Otherwise, the default timeout of the handler is used. Routes without
+ * timeout are not affected.
+ *
+ * Cancellation is cooperative: the deadline is cancelled when the timeout is reached or when the
+ * client disconnects. Route handlers should check it ({@link Deadline#check()}) and propagate it
+ * to JDBC queries, remote calls, etc. Optionally, the thread running the route handler is
+ * interrupted on cancellation: {@link #setInterrupt(boolean)}.
+ *
+ * When the deadline of an outer handler was already exceeded before the route handler starts,
+ * the request gets a <code>503</code> response.
+ *
+ * For {@link CompletionStage} routes the response is completed with a <code>504</code> when the
+ * deadline is cancelled.
+ *
+ * @author edgar
+ * @since 3.0.0
+ */
+public class DeadlineHandler implements Route.Decorator {
+
+  /** Route attribute with the route timeout. */
+  public static final String TIMEOUT = "timeout";
+
+  private static class Timer {
+    private static final ScheduledExecutorService INSTANCE = newTimer();
+
+    private static ScheduledExecutorService newTimer() {
+      ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, task -> {
+        Thread thread = new Thread(task, "deadline");
+        thread.setDaemon(true);
+        return thread;
+      });
+      timer.setRemoveOnCancelPolicy(true);
+      return timer;
+    }
+  }
+
+  /**
+   * Interrupts the thread running the route handler until it is released. Interrupt and release
+   * share a lock, so the thread is never interrupted after release and a pending interrupt is
+   * always cleared by release.
+   */
+  private static class Interrupter implements Runnable {
+    private final Thread thread;
+
+    private boolean running = true;
+
+    Interrupter(Thread thread) {
+      this.thread = thread;
+    }
+
+    @Override public synchronized void run() {
+      if (running) {
+        thread.interrupt();
+      }
+    }
+
+    /**
+     * Called from the thread running the route handler, before it gets another task.
+     */
+    synchronized void release() {
+      if (running) {
+        running = false;
+        Thread.interrupted();
+      }
+    }
+  }
+
+  private final Duration timeout;
+
+  private boolean interrupt;
+
+  private ScheduledExecutorService timer;
+
+  /**
+   * Creates a deadline handler with a default timeout.
+   *
+   * @param timeout Default timeout for routes without a <code>timeout</code> attribute.
+   */
+  public DeadlineHandler(@NonNull Duration timeout) {
+    this.timeout = timeout;
+  }
+
+  /**
+   * Creates a deadline handler. Only routes with a <code>timeout</code> attribute have a
+   * deadline.
+   */
+  public DeadlineHandler() {
+    this.timeout = null;
+  }
+
+  /**
+   * True for interrupting the thread running the route handler when the deadline is cancelled.
+   * Default is: <code>false</code>.
+   *
+   * @param interrupt True for interrupting the thread running the route handler.
+   * @return This handler.
+   */
+  public @NonNull DeadlineHandler setInterrupt(boolean interrupt) {
+    this.interrupt = interrupt;
+    return this;
+  }
+
+  /**
+   * Set the executor used to cancel deadlines once timeout is reached. Default is a shared single
+   * daemon thread.
+   *
+   * @param timer Timer executor.
+   * @return This handler.
+   */
+  public @NonNull DeadlineHandler setTimer(@NonNull ScheduledExecutorService timer) {
+    this.timer = timer;
+    return this;
+  }
+
+  @NonNull @Override public Route.Handler apply(@NonNull Route.Handler next) {
+    return ctx -> {
+      Deadline outer = ctx.getDeadline();
+      if (outer != null) {
+        if (outer.isCancelled() || outer.isExpired()) {
+          throw new StatusCodeException(StatusCode.SERVICE_UNAVAILABLE, "Deadline exceeded");
+        }
+        return next.apply(ctx);
+      }
+      Duration timeout = timeout(ctx.getRoute());
+      if (timeout == null) {
+        return next.apply(ctx);
+      }
+      Deadline deadline = Deadline.of(timeout);
+      ctx.attribute(Deadline.KEY, deadline);
+      ScheduledFuture<?> expiration = timer().schedule(() -> deadline.cancel(), timeout.toNanos(),
+          TimeUnit.NANOSECONDS);
+      Interrupter interrupter = null;
+      if (interrupt) {
+        interrupter = new Interrupter(Thread.currentThread());
+        deadline.onCancel(interrupter);
+      }
+      Deadline previous = Deadline.bind(deadline);
+      Object result;
+      try {
+        result = next.apply(ctx);
+      } catch (Throwable x) {
+        throw SneakyThrows.propagate(failure(deadline, expiration, interrupter, x));
+      } finally {
+        Deadline.bind(previous);
+      }
+      if (result instanceof CompletionStage) {
+        return async(deadline, expiration, interrupter, (CompletionStage<?>) result);
+      }
+      if (!done(deadline, expiration, interrupter) && !ctx.isResponseStarted()) {
+        throw exceeded(null);
+      }
+      return result;
+    };
+  }
+
+  private Object async(Deadline deadline, ScheduledFuture<?> expiration,
+      @Nullable Interrupter interrupter, CompletionStage<?> stage) {
+    // handler returned, async computation runs elsewhere
+    release(interrupter);
+    CompletableFuture<Object> response = new CompletableFuture<>();
+    deadline.onCancel(() -> response.completeExceptionally(exceeded(null)));
+    stage.whenComplete((value, cause) -> {
+      done(deadline, expiration, interrupter);
+      if (cause == null) {
+        response.complete(value);
+      } else {
+        response.completeExceptionally(cause);
+      }
+    });
+    return response;
+  }
+
+  private static boolean done(Deadline deadline, ScheduledFuture<?> expiration,
+      @Nullable Interrupter interrupter) {
+    expiration.cancel(false);
+    release(interrupter);
+    return deadline.done();
+  }
+
+  private static void release(@Nullable Interrupter interrupter) {
+    if (interrupter != null) {
+      // clear interrupt flag (if any) before the worker thread gets another task
+      interrupter.release();
+    }
+  }
+
+  private static Throwable failure(Deadline deadline, ScheduledFuture<?> expiration,
+      @Nullable Interrupter interrupter, Throwable cause) {
+    if (done(deadline, expiration, interrupter)) {
+      return cause;
+    }
+    return exceeded(cause);
+  }
+
+  private static StatusCodeException exceeded(@Nullable Throwable cause) {
+    return new StatusCodeException(StatusCode.GATEWAY_TIMEOUT, "Deadline exceeded", cause);
+  }
+
+  private ScheduledExecutorService timer() {
+    return timer == null ? Timer.INSTANCE : timer;
+  }
+
+  private @Nullable Duration timeout(Route route) {
+    Object value = route.attribute(TIMEOUT);
+    if (value == null) {
+      return timeout;
+    }
+    if (value instanceof Duration) {
+      return (Duration) value;
+    }
+    String duration = value.toString();
+    if (duration.startsWith("P") || duration.startsWith("p")) {
+      return Duration.parse(duration);
+    }
+    return ConfigFactory.empty()
+        .withValue(TIMEOUT, ConfigValueFactory.fromAnyRef(duration))
+        .getDuration(TIMEOUT);
+  }
+}
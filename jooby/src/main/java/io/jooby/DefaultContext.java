@@ -34,6 +34,7 @@ import org.slf4j.Logger;
 
 import io.jooby.exception.RegistryException;
 import io.jooby.exception.TypeMismatchException;
+import io.jooby.internal.CookieParser;
 import io.jooby.internal.HashValue;
 import io.jooby.internal.MissingValue;
 import io.jooby.internal.SingleValue;
@@ -149,8 +150,16 @@ public interface DefaultContext extends Context {
     return this;
   }
 
+  /**
+   * Scan the <code>Cookie</code> header(s) for the given cookie, without decoding all of them.
+   * Uses the same rules as {@link #cookieMap()} of web servers: when a name is repeated the first
+   * cookie wins and quoted values are unquoted.
+   *
+   * @param name Cookie's name.
+   * @return Cookie value.
+   */
   @Override default @NonNull Value cookie(@NonNull String name) {
-    String value = cookieMap().get(name);
+    String value = CookieParser.find(header("Cookie").toList().iterator(), name);
     return value == null ? Value.missing(name) : Value.value(this, name, value);
   }
 
@@ -10,8 +10,10 @@ import org.slf4j.Logger;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 import static io.jooby.MediaType.html;
@@ -27,6 +29,50 @@ import static io.jooby.MediaType.text;
  */
 public class DefaultErrorHandler implements ErrorHandler {
 
+  private static final String HTML_HEAD = "<!doctype html>\n"
+      + "<html>\n"
+      + "<head>\n"
+      + "<meta charset=\"utf-8\">\n"
+      + "<style>\n"
+      + "body {font-family: \"open sans\",sans-serif; margin-left: 20px;}\n"
+      + "h1 {font-weight: 300; line-height: 44px; margin: 25px 0 0 0;}\n"
+      + "h2 {font-size: 16px;font-weight: 300; line-height: 44px; margin: 0;}\n"
+      + "footer {font-weight: 300; line-height: 44px; margin-top: 10px;}\n"
+      + "hr {background-color: #f7f7f9;}\n"
+      + "div.trace {border:1px solid #e1e1e8; background-color: #f7f7f9;}\n"
+      + "p {padding-left: 20px;}\n"
+      + "p.tab {padding-left: 40px;}\n"
+      + "</style>\n";
+
+  /** Status code specific parts of error responses, the message is added per request. */
+  private static class Page {
+    private final String htmlHead;
+
+    private final String htmlFoot;
+
+    /** HTML page without message. */
+    private final String html;
+
+    /** JSON body after the message. */
+    private final String jsonTail;
+
+    Page(StatusCode code) {
+      this.htmlHead = HTML_HEAD
+          + "<title>" + code + "</title>\n"
+          + "<body>\n"
+          + "<h1>" + code.reason() + "</h1>\n"
+          + "<hr>\n";
+      this.htmlFoot = "<h2>status code: " + code.value() + "</h2>\n"
+          + "</body>\n"
+          + "</html>";
+      this.html = htmlHead + htmlFoot;
+      this.jsonTail = "\",\"statusCode\":" + code.value() + ",\"reason\":\"" + code.reason()
+          + "\"}";
+    }
+  }
+
+  private final Map<StatusCode, Page> pages = new ConcurrentHashMap<>();
+
   private Set<StatusCode> muteCodes = new HashSet<>();
 
   private Set<Class> muteTypes = new HashSet<>();
@@ -63,12 +109,12 @@ public class DefaultErrorHandler implements ErrorHandler {
     }
 
     MediaType type = ctx.accept(Arrays.asList(html, json, text));
+    Page page = pages.computeIfAbsent(code, Page::new);
     if (json.equals(type)) {
       String message = Optional.ofNullable(cause.getMessage()).orElse(code.reason());
       ctx.setResponseType(json)
           .setResponseCode(code)
-          .send("{\"message\":\"" + XSS.json(message) + "\",\"statusCode\":" + code.value()
-              + ",\"reason\":\"" + code.reason() + "\"}");
+          .send("{\"message\":\"" + XSS.json(message) + page.jsonTail);
     } else if (text.equals(type)) {
       StringBuilder message = new StringBuilder();
       message.append(ctx.getMethod()).append(" ").append(ctx.getRequestPath()).append(" ");
@@ -81,48 +127,34 @@ public class DefaultErrorHandler implements ErrorHandler {
           .send(message.toString());
     } else {
       String message = cause.getMessage();
-      StringBuilder html = new StringBuilder("<!doctype html>\n")
-          .append("<html>\n")
-          .append("<head>\n")
-          .append("<meta charset=\"utf-8\">\n")
-          .append("<style>\n")
-          .append("body {font-family: \"open sans\",sans-serif; margin-left: 20px;}\n")
-          .append("h1 {font-weight: 300; line-height: 44px; margin: 25px 0 0 0;}\n")
-          .append("h2 {font-size: 16px;font-weight: 300; line-height: 44px; margin: 0;}\n")
-          .append("footer {font-weight: 300; line-height: 44px; margin-top: 10px;}\n")
-          .append("hr {background-color: #f7f7f9;}\n")
-          .append("div.trace {border:1px solid #e1e1e8; background-color: #f7f7f9;}\n")
-          .append("p {padding-left: 20px;}\n")
-          .append("p.tab {padding-left: 40px;}\n")
-          .append("</style>\n")
-          .append("<title>")
-          .append(code)
-          .append("</title>\n")
-          .append("<body>\n")
-          .append("<h1>").append(code.reason()).append("</h1>\n")
-          .append("<hr>\n");
-
+      String html;
       if (message != null && !message.equals(code.toString())) {
-        html.append("<h2>message: ").append(XSS.html(message)).append("</h2>\n");
+        html = page.htmlHead
+            + "<h2>message: " + XSS.html(message) + "</h2>\n"
+            + page.htmlFoot;
+      } else {
+        // no message: same page for every request
+        html = page.html;
       }
-      html.append("<h2>status code: ").append(code.value()).append("</h2>\n");
-
-      html.append("</body>\n")
-          .append("</html>");
 
       ctx
           .setResponseType(MediaType.html)
           .setResponseCode(code)
-          .send(html.toString());
+          .send(html);
     }
   }
 
   private boolean isMuted(Throwable cause, StatusCode statusCode) {
-    return muteCodes.contains(statusCode)
-        // same class filter
-        || muteTypes.stream().anyMatch(type -> type == cause.getClass())
-        // sub-class filter
-        || muteTypes.stream().anyMatch(type -> type.isInstance(cause));
+    if (muteCodes.contains(statusCode)) {
+      return true;
+    }
+    // same class and sub-class filter
+    for (Class type : muteTypes) {
+      if (type.isInstance(cause)) {
+        return true;
+      }
+    }
+    return false;
   }
 
 }
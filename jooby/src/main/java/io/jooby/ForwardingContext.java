@@ -22,6 +22,7 @@ import java.security.cert.Certificate;
 import java.time.Instant;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.Executor;
 
@@ -110,6 +111,14 @@ public class ForwardingContext implements Context {
     return ctx.cookieMap();
   }
 
+  @Override @NonNull public Locale locale() {
+    return ctx.locale();
+  }
+
+  @Override @NonNull public List<Locale> locales() {
+    return ctx.locales();
+  }
+
   @Override @NonNull public String getMethod() {
     return ctx.getMethod();
   }
@@ -8,11 +8,16 @@ package io.jooby;
 import io.jooby.internal.GracefulShutdownHandler;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.time.Duration;
 
 /**
  * Install a handler that at application shutdown time:
  *
+ * - Flips the readiness signal (see {@link #isReady()})
+ * - Keeps serving requests for an optional drain delay, asking clients to close keep-alive
+ *   connections (<code>Connection: close</code>)
+ * - Closes web sockets (<code>GOING_AWAY</code>) and server-sent event connections
  * - Waits for existing requests to finished with an optional timeout
  * - Incoming requests are resolved as Service Unavailable(503)
  *
@@ -23,6 +28,10 @@ import java.time.Duration;
 public class GracefulShutdown implements Extension {
   private Duration await;
 
+  private Duration drainDelay;
+
+  private GracefulShutdownHandler handler;
+
   /**
    * Creates a new shutdown handler and waits for existing requests to finish or for specified
    * amount of time.
@@ -39,9 +48,51 @@ public class GracefulShutdown implements Extension {
   public GracefulShutdown() {
   }
 
+  /**
+   * Time to keep serving requests once shutdown starts and readiness is off. Gives load balancers
+   * time to stop sending traffic here. Default is: <code>null</code> (no delay).
+   *
+   * @param drainDelay Time to keep serving requests once shutdown starts.
+   * @return This extension.
+   */
+  public @NonNull GracefulShutdown setDrainDelay(@Nullable Duration drainDelay) {
+    this.drainDelay = drainDelay;
+    return this;
+  }
+
+  /**
+   * Readiness signal. True while the application is running, false as soon as shutdown starts.
+   * Useful for readiness probes:
+   *
+   * <pre>{@code
+   * {
+   *   GracefulShutdown shutdown = new GracefulShutdown(Duration.ofSeconds(30))
+   *       .setDrainDelay(Duration.ofSeconds(5));
+   *   install(shutdown);
+   *
+   *   get("/ready", ctx -> shutdown.isReady() ? "UP" : ctx.send(StatusCode.SERVICE_UNAVAILABLE));
+   * }
+   * }</pre>
+   *
+   * @return True while the application is running.
+   */
+  public boolean isReady() {
+    return handler != null && handler.isReady();
+  }
+
+  /**
+   * Number of requests in progress. Web sockets and server-sent events are not included.
+   *
+   * @return Number of requests in progress.
+   */
+  public long getInFlight() {
+    return handler == null ? 0 : handler.getInFlight();
+  }
+
   @Override public void install(@NonNull Jooby application) throws Exception {
-    GracefulShutdownHandler handler = new GracefulShutdownHandler(await);
+    handler = new GracefulShutdownHandler(await, drainDelay);
     application.decorator(handler);
+    application.getServices().put(GracefulShutdown.class, this);
     application.onStop(handler::shutdown);
   }
 }
@@ -51,6 +51,7 @@ import org.slf4j.LoggerFactory;
 import com.typesafe.config.Config;
 import io.jooby.exception.RegistryException;
 import io.jooby.exception.StartupException;
+import io.jooby.internal.LocaleCache;
 import io.jooby.internal.LocaleUtils;
 import io.jooby.internal.RegistryRef;
 import io.jooby.internal.RouterImpl;
@@ -845,6 +846,7 @@ public class Jooby implements Router, Registry {
     }
 
     ServiceRegistry services = getServices();
+    services.put(LocaleCache.KEY, new LocaleCache(locales));
     services.put(Environment.class, getEnvironment());
     services.put(Config.class, getConfig());
 
@@ -109,6 +109,12 @@ public final class MediaType implements Comparable<MediaType> {
 
   private final String value;
 
+  /** Content type header for default charset, lazily initialized. */
+  private String contentTypeHeader;
+
+  /** Content type header for UTF-8, lazily initialized. */
+  private String utf8ContentTypeHeader;
+
   private MediaType(@NonNull String value, Charset charset) {
     this.raw = value;
     this.subtypeStart = value.indexOf('/');
@@ -183,12 +189,23 @@ public final class MediaType implements Comparable<MediaType> {
    * @return Content type header.
    */
   public @NonNull String toContentTypeHeader(@Nullable Charset charset) {
+    // Headers are immutable strings, so a racy initialization is fine here
     if (charset == null) {
-      Charset paramCharset = getCharset();
-      if (paramCharset == null) {
-        return value;
+      String header = contentTypeHeader;
+      if (header == null) {
+        Charset paramCharset = getCharset();
+        header = paramCharset == null ? value : value + ";charset=" + paramCharset.name();
+        contentTypeHeader = header;
+      }
+      return header;
+    }
+    if (charset == UTF_8) {
+      String header = utf8ContentTypeHeader;
+      if (header == null) {
+        header = value + ";charset=" + charset.name();
+        utf8ContentTypeHeader = header;
       }
-      charset = paramCharset;
+      return header;
     }
     return value + ";charset=" + charset.name();
   }
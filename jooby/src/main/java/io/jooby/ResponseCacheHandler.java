@@ -0,0 +1,368 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.jooby.internal.SharedResponse;
+
+/**
+ * Cache encoded responses of dynamic routes.
+ *
+ * Usage:
+ * <pre>{@code
+ * {
+ *   ResponseCacheHandler cache = new ResponseCacheHandler(Duration.ofMinutes(5))
+ *       .setQueryParameters("page", "size")
+ *       .setVary("Accept-Language");
+ *
+ *   routes(() -> {
+ *     decorator(cache);
+ *
+ *     get("/products", ctx -> {
+ *       ResponseCacheHandler.tag(ctx, "products");
+ *       return repository.findAll();
+ *     });
+ *   });
+ *
+ *   put("/products/{id}", ctx -> {
+ *     ...
+ *     cache.invalidate("products");
+ *     return ...;
+ *   });
+ * }
+ * }</pre>
+ *
+ * Responses are cached by HTTP method, path, query parameters, vary headers and negotiated
+ * content type. Only <code>GET</code> and <code>HEAD</code> requests with <code>200</code>
+ * responses are cached. Cached responses keep body and content type, other response headers are
+ * not cached.
+ *
+ * - Responses have a strong <code>ETag</code>, <code>If-None-Match</code> requests get a
+ *   <code>304</code> response.
+ * - Concurrent requests for a missing entry are coalesced, only one of them runs the route
+ *   handler. Waiting is bounded by {@link #setWaitTimeout(Duration)}, then the request runs the
+ *   handler and gets an uncached response. Requests running on an IO thread never wait and run
+ *   the handler.
+ * - Cache is bounded by size (sum of response bytes). Once the size is reached expired entries
+ *   are removed first, then random entries.
+ *
+ * Don't cache user specific responses, unless vary headers identify the user (like
+ * <code>Authorization</code>).
+ *
+ * @author edgar
+ * @since 3.0.0
+ */
+public class ResponseCacheHandler implements Route.Decorator {
+
+  private static final String TAGS = ResponseCacheHandler.class.getName() + ".tags";
+
+  private static final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+  private static final long DEFAULT_WAIT_TIMEOUT = TimeUnit.SECONDS.toNanos(5);
+
+  private static class Entry {
+    final byte[] bytes;
+
+    final MediaType type;
+
+    final String etag;
+
+    final long expiresAt;
+
+    final Set<String> tags;
+
+    Entry(byte[] bytes, MediaType type, String etag, long expiresAt, Set<String> tags) {
+      this.bytes = bytes;
+      this.type = type;
+      this.etag = etag;
+      this.expiresAt = expiresAt;
+      this.tags = tags;
+    }
+
+    boolean isExpired(long now) {
+      return now - expiresAt >= 0;
+    }
+  }
+
+  private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+  private final Map<String, CompletableFuture<Entry>> inflight = new ConcurrentHashMap<>();
+
+  private final AtomicLong size = new AtomicLong();
+
+  /** Incremented on invalidation, responses generated before it are not cached. */
+  private final AtomicLong generation = new AtomicLong();
+
+  private final long ttl;
+
+  private long maxSize = DEFAULT_MAX_SIZE;
+
+  private long waitTimeout = DEFAULT_WAIT_TIMEOUT;
+
+  private List<String> queryParameters;
+
+  private List<String> vary = Collections.emptyList();
+
+  private String varyHeader;
+
+  /**
+   * Creates a new response cache.
+   *
+   * @param ttl Time to live of cached responses.
+   */
+  public ResponseCacheHandler(@NonNull Duration ttl) {
+    this.ttl = ttl.toNanos();
+  }
+
+  /**
+   * Set max size of cache in bytes. Default is: <code>16mb</code>.
+   *
+   * @param maxSize Max size in bytes.
+   * @return This handler.
+   */
+  public @NonNull ResponseCacheHandler setMaxSize(long maxSize) {
+    this.maxSize = maxSize;
+    return this;
+  }
+
+  /**
+   * Max time a request waits for a concurrent identical request to generate the response. Once
+   * the time is reached the request runs the route handler. Default is: <code>5s</code>.
+   *
+   * @param waitTimeout Max wait time.
+   * @return This handler.
+   */
+  public @NonNull ResponseCacheHandler setWaitTimeout(@NonNull Duration waitTimeout) {
+    this.waitTimeout = waitTimeout.toNanos();
+    return this;
+  }
+
+  /**
+   * Query parameters to use as part of cache key. By default, the entire query string is part of
+   * the cache key.
+   *
+   * @param names Query parameter names.
+   * @return This handler.
+   */
+  public @NonNull ResponseCacheHandler setQueryParameters(@NonNull String... names) {
+    this.queryParameters = Arrays.asList(names);
+    return this;
+  }
+
+  /**
+   * Request headers to use as part of cache key. These headers are also sent in the
+   * <code>Vary</code> response header.
+   *
+   * @param headers Header names.
+   * @return This handler.
+   */
+  public @NonNull ResponseCacheHandler setVary(@NonNull String... headers) {
+    this.vary = Arrays.asList(headers);
+    this.varyHeader = headers.length == 0 ? null : String.join(", ", headers);
+    return this;
+  }
+
+  /**
+   * Tag the response of current request. Tags are used for invalidation:
+   * {@link #invalidate(String)}.
+   *
+   * @param ctx Web context.
+   * @param tags Tags.
+   */
+  public static void tag(@NonNull Context ctx, @NonNull String... tags) {
+    Set<String> set = ctx.attribute(TAGS);
+    if (set == null) {
+      set = new LinkedHashSet<>();
+      ctx.attribute(TAGS, set);
+    }
+    Collections.addAll(set, tags);
+  }
+
+  /**
+   * Remove all the responses with the given tag.
+   *
+   * @param tag Tag.
+   */
+  public void invalidate(@NonNull String tag) {
+    generation.incrementAndGet();
+    for (Map.Entry<String, Entry> e : cache.entrySet()) {
+      if (e.getValue().tags.contains(tag)) {
+        remove(e.getKey(), e.getValue());
+      }
+    }
+  }
+
+  /**
+   * Remove all the responses.
+   */
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    for (Map.Entry<String, Entry> e : cache.entrySet()) {
+      remove(e.getKey(), e.getValue());
+    }
+  }
+
+  /**
+   * Size of cache in bytes.
+   *
+   * @return Size of cache in bytes.
+   */
+  public long getSize() {
+    return size.get();
+  }
+
+  @NonNull @Override public Route.Handler apply(@NonNull Route.Handler next) {
+    return ctx -> {
+      String method = ctx.getMethod();
+      if (!method.equals(Router.GET) && !method.equals(Router.HEAD)) {
+        return next.apply(ctx);
+      }
+      if (varyHeader != null) {
+        ctx.setResponseHeader("Vary", varyHeader);
+      }
+      String key = SharedResponse.key(ctx, queryParameters, vary);
+      Entry entry = get(key);
+      if (entry != null) {
+        return send(ctx, entry);
+      }
+      CompletableFuture<Entry> future = new CompletableFuture<>();
+      CompletableFuture<Entry> leader = inflight.putIfAbsent(key, future);
+      if (leader != null) {
+        // IO threads never wait
+        entry = ctx.isInIoThread() ? null : await(leader);
+        // null when response wasn't cacheable or wait timed out: run the handler like an uncached
+        // route and let the router encode the result
+        return entry == null ? next.apply(ctx) : send(ctx, entry);
+      }
+      long version = generation.get();
+      try {
+        Object result = next.apply(ctx);
+        if (!SharedResponse.isEncodable(ctx, result)) {
+          return result;
+        }
+        byte[] bytes = ctx.getRoute().getEncoder().encode(ctx, result);
+        if (bytes == null) {
+          // response was sent by encoder
+          return ctx;
+        }
+        entry = new Entry(bytes, ctx.getResponseType(), etag(bytes), System.nanoTime() + ttl,
+            tags(ctx));
+        put(key, entry, version);
+        return send(ctx, entry);
+      } finally {
+        inflight.remove(key, future);
+        future.complete(entry);
+      }
+    };
+  }
+
+  private Entry await(CompletableFuture<Entry> leader) throws InterruptedException {
+    try {
+      return leader.get(waitTimeout, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException | ExecutionException x) {
+      return null;
+    }
+  }
+
+  private Object send(Context ctx, Entry entry) {
+    ctx.setResponseHeader("ETag", entry.etag);
+    if (matches(ctx.header("If-None-Match").valueOrNull(), entry.etag)) {
+      return ctx.send(StatusCode.NOT_MODIFIED);
+    }
+    ctx.setResponseType(entry.type);
+    return ctx.send(entry.bytes);
+  }
+
+  private Entry get(String key) {
+    Entry entry = cache.get(key);
+    if (entry != null && entry.isExpired(System.nanoTime())) {
+      remove(key, entry);
+      return null;
+    }
+    return entry;
+  }
+
+  private void put(String key, Entry entry, long version) {
+    if (entry.bytes.length > maxSize || generation.get() != version) {
+      // too big or cache was invalidated while response was generated
+      return;
+    }
+    Entry previous = cache.put(key, entry);
+    size.addAndGet(entry.bytes.length - (previous == null ? 0 : previous.bytes.length));
+    if (size.get() > maxSize) {
+      evict();
+    }
+  }
+
+  private void remove(String key, Entry entry) {
+    if (cache.remove(key, entry)) {
+      size.addAndGet(-entry.bytes.length);
+    }
+  }
+
+  private void evict() {
+    long now = System.nanoTime();
+    for (Map.Entry<String, Entry> e : cache.entrySet()) {
+      if (e.getValue().isExpired(now)) {
+        remove(e.getKey(), e.getValue());
+      }
+    }
+    Iterator<Map.Entry<String, Entry>> it = cache.entrySet().iterator();
+    while (size.get() > maxSize && it.hasNext()) {
+      Map.Entry<String, Entry> e = it.next();
+      remove(e.getKey(), e.getValue());
+    }
+  }
+
+  private static Set<String> tags(Context ctx) {
+    Set<String> tags = ctx.attribute(TAGS);
+    return tags == null ? Collections.emptySet() : tags;
+  }
+
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String value : ifNoneMatch.split(",")) {
+      String tag = value.trim();
+      // weak comparison
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String etag(byte[] bytes) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+      return "\"" + Base64.getUrlEncoder().withoutPadding()
+          .encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+    } catch (Exception x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+}
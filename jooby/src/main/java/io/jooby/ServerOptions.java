@@ -23,6 +23,7 @@ import java.util.stream.Stream;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 
 import com.typesafe.config.Config;
 import io.jooby.internal.SslContextProvider;
@@ -114,6 +115,28 @@ public class ServerOptions {
 
   private Boolean expectContinue;
 
+  /**
+   * Reuse the per-connection request context and its response headers between keep-alive
+   * requests. Off by default. Netty only.
+   */
+  private boolean contextRecycling;
+
+  /**
+   * Network transport to use: <code>io_uring</code>, <code>epoll</code>, <code>kqueue</code> or
+   * <code>nio</code>. Netty only.
+   */
+  private String transport;
+
+  /**
+   * Bind one listening socket per IO thread using <code>SO_REUSEPORT</code>. Netty only.
+   */
+  private boolean reusePort;
+
+  /**
+   * Pin each IO thread to its own CPU core. Netty only.
+   */
+  private boolean cpuAffinity;
+
   /**
    * Creates server options from config object. The configuration options must provided entries
    * like: <code>server.port</code>, <code>server.ioThreads</code>, etc...
@@ -160,6 +183,18 @@ public class ServerOptions {
       if (conf.hasPath("server.expectContinue")) {
         options.setExpectContinue(conf.getBoolean("server.expectContinue"));
       }
+      if (conf.hasPath("server.contextRecycling")) {
+        options.setContextRecycling(conf.getBoolean("server.contextRecycling"));
+      }
+      if (conf.hasPath("server.transport")) {
+        options.setTransport(conf.getString("server.transport"));
+      }
+      if (conf.hasPath("server.reusePort")) {
+        options.setReusePort(conf.getBoolean("server.reusePort"));
+      }
+      if (conf.hasPath("server.cpuAffinity")) {
+        options.setCpuAffinity(conf.getBoolean("server.cpuAffinity"));
+      }
       // ssl
       SslOptions.from(conf, "server.ssl").ifPresent(options::setSsl);
       if (conf.hasPath("server.httpsOnly")) {
@@ -554,6 +589,105 @@ public class ServerOptions {
     return this;
   }
 
+  /**
+   * True when the server reuses the request context (and its response headers) between
+   * keep-alive requests of the same connection. Off by default. Netty only.
+   *
+   * @return True when request context recycling is enabled.
+   */
+  public boolean isContextRecycling() {
+    return contextRecycling;
+  }
+
+  /**
+   * Turn on/off request context recycling. When enabled, a connection reuses the request context
+   * of a previous request once its response has been fully written from the IO thread. Requests
+   * that were dispatched to a worker thread, streamed, upgraded or served over HTTP/2 always get
+   * a fresh context.
+   *
+   * Application code must not keep a reference to the context once the response has been sent.
+   * Off by default. Netty only.
+   *
+   * @param contextRecycling True to enabled.
+   * @return This options.
+   */
+  public @NonNull ServerOptions setContextRecycling(boolean contextRecycling) {
+    this.contextRecycling = contextRecycling;
+    return this;
+  }
+
+  /**
+   * Network transport to use or <code>null</code> to pick the best available one. Netty only.
+   *
+   * @return Network transport to use or <code>null</code>.
+   */
+  public @Nullable String getTransport() {
+    return transport;
+  }
+
+  /**
+   * Set the network transport to use: <code>io_uring</code>, <code>epoll</code>,
+   * <code>kqueue</code> or <code>nio</code>. When the transport isn't available (missing
+   * dependency or unsupported OS), the server fallback to the best available one.
+   *
+   * When not set, the server picks the first available of: <code>io_uring</code> (only when the
+   * Netty incubator dependency is present), <code>epoll</code>, <code>kqueue</code> and
+   * <code>nio</code>. Netty only.
+   *
+   * @param transport Transport name or <code>null</code>.
+   * @return This options.
+   */
+  public @NonNull ServerOptions setTransport(@Nullable String transport) {
+    this.transport = transport;
+    return this;
+  }
+
+  /**
+   * True when each IO thread binds its own listening socket using <code>SO_REUSEPORT</code>.
+   * Netty only.
+   *
+   * @return True when each IO thread binds its own listening socket.
+   */
+  public boolean isReusePort() {
+    return reusePort;
+  }
+
+  /**
+   * Bind one listening socket per IO thread using <code>SO_REUSEPORT</code> and let the kernel
+   * balance new connections between them. There is no dedicated acceptor thread. Off by default.
+   *
+   * Requires the <code>epoll</code> or <code>io_uring</code> transport, other transports keep
+   * the single acceptor. Netty only.
+   *
+   * @param reusePort True to enabled.
+   * @return This options.
+   */
+  public @NonNull ServerOptions setReusePort(boolean reusePort) {
+    this.reusePort = reusePort;
+    return this;
+  }
+
+  /**
+   * True when IO threads are pinned to CPU cores. Netty only.
+   *
+   * @return True when IO threads are pinned to CPU cores.
+   */
+  public boolean isCpuAffinity() {
+    return cpuAffinity;
+  }
+
+  /**
+   * Pin each IO thread to a different CPU core. Off by default. Requires the
+   * <code>net.openhft:affinity</code> dependency, ignored when missing. Netty only.
+   *
+   * @param cpuAffinity True to enabled.
+   * @return This options.
+   */
+  public @NonNull ServerOptions setCpuAffinity(boolean cpuAffinity) {
+    this.cpuAffinity = cpuAffinity;
+    return this;
+  }
+
   /**
    * Creates SSL context using the given resource loader. This method attempts to create a
    * SSLContext when:
@@ -595,6 +729,15 @@ public class ServerOptions {
           .orElse(null);
 
       SSLContext sslContext = sslContextProvider.create(loader, providerName, options);
+      // TLS session resumption
+      SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+      if (options.getSessionCacheSize() > 0) {
+        sessionContext.setSessionCacheSize(options.getSessionCacheSize());
+      }
+      if (options.getSessionTimeout() != null) {
+        sessionContext.setSessionTimeout(
+            (int) Math.min(Integer.MAX_VALUE, options.getSessionTimeout().getSeconds()));
+      }
       // validate TLS protocol, at least one protocol must be supported
       Set<String> supportedProtocols = new LinkedHashSet<>(Arrays
           .asList(sslContext.getDefaultSSLParameters().getProtocols()));
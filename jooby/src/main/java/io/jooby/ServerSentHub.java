@@ -0,0 +1,399 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publish Server-Sent events to named channels. Each message is encoded once and written to all
+ * the subscribers of the channel. Channels keep the last messages in a bounded buffer, so
+ * reconnecting clients get what they missed using the <code>Last-Event-ID</code> header.
+ *
+ * <pre>{@code
+ * {
+ *   ServerSentHub hub = new ServerSentHub();
+ *
+ *   sse("/dashboard", hub.handler("dashboard"));
+ *
+ *   post("/dashboard", ctx -> {
+ *     hub.publish("dashboard", ctx.body(Stats.class));
+ *     return StatusCode.ACCEPTED;
+ *   });
+ * }
+ * }</pre>
+ *
+ * Messages without an ID get one from a per channel sequence, which is required for replay.
+ *
+ * @author edgar
+ * @since 3.0.0
+ */
+public class ServerSentHub {
+
+  /**
+   * A named group of emitters plus the replay buffer.
+   */
+  public static class Channel {
+
+    private final ServerSentHub hub;
+
+    private final String name;
+
+    private final int replaySize;
+
+    private final Map<ServerSentEmitter, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    private final ArrayDeque<Event> buffer;
+
+    private long sequence;
+
+    Channel(ServerSentHub hub, String name, int replaySize) {
+      this.hub = hub;
+      this.name = name;
+      this.replaySize = replaySize;
+      this.buffer = new ArrayDeque<>(Math.max(replaySize, 1));
+    }
+
+    /**
+     * Channel name.
+     *
+     * @return Channel name.
+     */
+    public @NonNull String getName() {
+      return name;
+    }
+
+    /**
+     * Number of open emitters.
+     *
+     * @return Number of open emitters.
+     */
+    public int size() {
+      return subscribers.size();
+    }
+
+    /**
+     * Add an emitter to this channel. When the client sent a <code>Last-Event-ID</code> header,
+     * buffered messages after that ID are sent first. If the ID isn't in the buffer anymore, the
+     * whole buffer is sent.
+     *
+     * The emitter is removed from the channel when it is closed: this method registers an
+     * {@link ServerSentEmitter#onClose(SneakyThrows.Runnable)} callback. Emitters that need their
+     * own close callback should call {@link #unsubscribe(ServerSentEmitter)} from it.
+     *
+     * @param emitter Emitter.
+     * @return This channel.
+     */
+    public @NonNull Channel subscribe(@NonNull ServerSentEmitter emitter) {
+      String lastEventId = emitter.getLastEventId();
+      Executor executor = hub.executor == null
+          ? emitter.getContext().getRouter().getWorker()
+          : hub.executor;
+      Subscriber subscriber = new Subscriber(this, emitter, executor);
+      synchronized (this) {
+        if (lastEventId != null) {
+          for (Event event : replay(lastEventId)) {
+            subscriber.enqueue(event);
+          }
+        }
+        subscribers.put(emitter, subscriber);
+      }
+      emitter.onClose(() -> unsubscribe(emitter));
+      subscriber.drain();
+      return this;
+    }
+
+    /**
+     * Remove an emitter from this channel.
+     *
+     * @param emitter Emitter.
+     * @return This channel.
+     */
+    public @NonNull Channel unsubscribe(@NonNull ServerSentEmitter emitter) {
+      subscribers.remove(emitter);
+      return this;
+    }
+
+    /**
+     * Send a message to all the emitters of this channel.
+     *
+     * Messages are queued per emitter and written by a task of the hub executor (see
+     * {@link ServerSentHub#setExecutor(Executor)}), one task in flight per emitter. So this method
+     * doesn't wait for writes and a slow client doesn't block other clients or publishers.
+     * Emitters with more than {@link #MAX_PENDING} queued messages are closed; they can reconnect
+     * and resume from the replay buffer.
+     *
+     * @param data Message data or {@link ServerSentMessage}.
+     * @return This channel.
+     */
+    public @NonNull Channel publish(@NonNull Object data) {
+      ServerSentMessage message = data instanceof ServerSentMessage
+          ? (ServerSentMessage) data
+          : new ServerSentMessage(data);
+      List<Subscriber> targets;
+      List<Subscriber> overflow = null;
+      synchronized (this) {
+        Object id = message.getId();
+        Event event = new Event(message, id == null ? Long.toString(++sequence) : id.toString());
+        if (replaySize > 0) {
+          if (buffer.size() == replaySize) {
+            buffer.removeFirst();
+          }
+          buffer.addLast(event);
+        }
+        targets = new ArrayList<>(subscribers.values());
+        Iterator<Subscriber> iterator = targets.iterator();
+        while (iterator.hasNext()) {
+          Subscriber subscriber = iterator.next();
+          if (!subscriber.enqueue(event)) {
+            iterator.remove();
+            subscribers.remove(subscriber.emitter);
+            if (overflow == null) {
+              overflow = new ArrayList<>();
+            }
+            overflow.add(subscriber);
+          }
+        }
+      }
+      if (overflow != null) {
+        for (Subscriber subscriber : overflow) {
+          subscriber.emitter.close();
+        }
+      }
+      for (Subscriber subscriber : targets) {
+        subscriber.drain();
+      }
+      return this;
+    }
+
+    private List<Event> replay(String lastEventId) {
+      List<Event> result = new ArrayList<>();
+      for (Event event : buffer) {
+        result.add(event);
+        if (lastEventId.equals(event.getId())) {
+          result.clear();
+        }
+      }
+      return result;
+    }
+
+    @Override public String toString() {
+      return name;
+    }
+  }
+
+  /**
+   * Messages pending for an emitter. Only one task writes to the emitter at a time, publishers
+   * just queue their messages and schedule the task when none is running.
+   */
+  private static class Subscriber {
+    private final Channel channel;
+
+    private final ServerSentEmitter emitter;
+
+    private final Executor executor;
+
+    private final Queue<Event> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    Subscriber(Channel channel, ServerSentEmitter emitter, Executor executor) {
+      this.channel = channel;
+      this.emitter = emitter;
+      this.executor = executor;
+    }
+
+    boolean enqueue(Event event) {
+      if (size.incrementAndGet() > MAX_PENDING) {
+        return false;
+      }
+      pending.offer(event);
+      return true;
+    }
+
+    void drain() {
+      if (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+        try {
+          executor.execute(this::write);
+        } catch (RejectedExecutionException x) {
+          draining.set(false);
+          pending.clear();
+          channel.unsubscribe(emitter);
+          emitter.close();
+        }
+      }
+    }
+
+    private void write() {
+      try {
+        Event event;
+        while ((event = pending.poll()) != null) {
+          size.decrementAndGet();
+          if (!emitter.isOpen()) {
+            pending.clear();
+            channel.unsubscribe(emitter);
+            return;
+          }
+          emitter.send(event);
+        }
+      } finally {
+        draining.set(false);
+      }
+      // re-check after releasing the flag: a message might be queued while writing ends
+      drain();
+    }
+  }
+
+  /**
+   * Message with a fixed ID, encoded once and shared by all the emitters.
+   */
+  private static class Event extends ServerSentMessage {
+
+    private volatile byte[] bytes;
+
+    Event(ServerSentMessage message, String id) {
+      super(message.getData());
+      setId(id);
+      setEvent(message.getEvent());
+      setRetry(message.getRetry());
+    }
+
+    @NonNull @Override public byte[] toByteArray(@NonNull Context ctx) {
+      byte[] bytes = this.bytes;
+      if (bytes == null) {
+        bytes = super.toByteArray(ctx);
+        this.bytes = bytes;
+      }
+      return bytes;
+    }
+  }
+
+  /** Max number of messages queued for an emitter, before closing it. */
+  public static final int MAX_PENDING = 1024;
+
+  /** Default number of messages kept for replay, per channel. */
+  public static final int REPLAY_SIZE = 100;
+
+  private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+  private final int replaySize;
+
+  private Executor executor;
+
+  /**
+   * Creates a new hub.
+   *
+   * @param replaySize Number of messages kept for replay, per channel. Use <code>0</code> to turn
+   *     off replay.
+   */
+  public ServerSentHub(int replaySize) {
+    if (replaySize < 0) {
+      throw new IllegalArgumentException("Replay size must be >= 0: " + replaySize);
+    }
+    this.replaySize = replaySize;
+  }
+
+  /**
+   * Creates a new hub with a replay buffer of {@link #REPLAY_SIZE} messages per channel.
+   */
+  public ServerSentHub() {
+    this(REPLAY_SIZE);
+  }
+
+  /**
+   * Set the executor that writes messages to emitters. Defaults to the worker executor of the
+   * application: {@link Router#getWorker()}.
+   *
+   * @param executor Executor.
+   * @return This hub.
+   */
+  public @NonNull ServerSentHub setExecutor(@NonNull Executor executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  /**
+   * Get or create a channel.
+   *
+   * @param name Channel name.
+   * @return Channel.
+   */
+  public @NonNull Channel channel(@NonNull String name) {
+    return channels.computeIfAbsent(name, key -> new Channel(this, key, replaySize));
+  }
+
+  /**
+   * Get an existing channel.
+   *
+   * @param name Channel name.
+   * @return Channel or <code>null</code>.
+   */
+  public @Nullable Channel getChannel(@NonNull String name) {
+    return channels.get(name);
+  }
+
+  /**
+   * Channel names.
+   *
+   * @return Channel names.
+   */
+  public @NonNull Set<String> getChannels() {
+    return Collections.unmodifiableSet(channels.keySet());
+  }
+
+  /**
+   * Remove a channel. Emitters are not closed.
+   *
+   * @param name Channel name.
+   * @return Removed channel or <code>null</code>.
+   */
+  public @Nullable Channel remove(@NonNull String name) {
+    return channels.remove(name);
+  }
+
+  /**
+   * Send a message to all the emitters of a channel.
+   *
+   * @param channel Channel name.
+   * @param data Message data or {@link ServerSentMessage}.
+   * @return This hub.
+   */
+  public @NonNull ServerSentHub publish(@NonNull String channel, @NonNull Object data) {
+    channel(channel).publish(data);
+    return this;
+  }
+
+  /**
+   * Server-Sent handler that subscribes new connections to the given channel.
+   *
+   * <pre>{@code
+   *   sse("/dashboard", hub.handler("dashboard"));
+   * }</pre>
+   *
+   * @param channel Channel name.
+   * @return Server-Sent handler.
+   */
+  public @NonNull ServerSentEmitter.Handler handler(@NonNull String channel) {
+    Channel target = channel(channel);
+    return target::subscribe;
+  }
+}
@@ -5,11 +5,13 @@
  */
 package io.jooby;
 
+import io.jooby.internal.MappedSessionStore;
 import io.jooby.internal.MemorySessionStore;
 import io.jooby.internal.SignedSessionStore;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
@@ -45,6 +47,33 @@ public interface SessionStore {
         this.hash = hash;
       }
 
+      /**
+       * Session creation time.
+       *
+       * @return Session creation time.
+       */
+      public @NonNull Instant getCreationTime() {
+        return creationTime;
+      }
+
+      /**
+       * Session last accessed time.
+       *
+       * @return Session last accessed time.
+       */
+      public @NonNull Instant getLastAccessedTime() {
+        return lastAccessedTime;
+      }
+
+      /**
+       * Session attributes.
+       *
+       * @return Session attributes.
+       */
+      public @NonNull Map getHash() {
+        return hash;
+      }
+
       public boolean isExpired(Duration timeout) {
         Duration timeElapsed = Duration.between(lastAccessedTime, Instant.now());
         return timeElapsed.compareTo(timeout) > 0;
@@ -303,6 +332,53 @@ public interface SessionStore {
     return new MemorySessionStore(token, timeout);
   }
 
+  /**
+   * Creates a cookie based session and store data in a memory-mapped file. Session data lives
+   * off-heap and is kept after restart.
+   *
+   * It uses the default session cookie: {@link SessionToken#SID}.
+   *
+   * - Session expires after 30 minutes of inactivity.
+   *
+   * @param file Session file. Created if missing.
+   * @return Session store.
+   */
+  static @NonNull SessionStore mapped(@NonNull Path file) {
+    return mapped(SessionToken.cookieId(SessionToken.SID), file, Duration.ofMinutes(DEFAULT_TIMEOUT));
+  }
+
+  /**
+   * Creates a cookie based session and store data in a memory-mapped file. Session data lives
+   * off-heap and is kept after restart.
+   *
+   * It uses the default session cookie: {@link SessionToken#SID}.
+   *
+   * @param file Session file. Created if missing.
+   * @param timeout Expires session after amount of inactivity time.
+   * @return Session store.
+   */
+  static @NonNull SessionStore mapped(@NonNull Path file, @NonNull Duration timeout) {
+    return mapped(SessionToken.cookieId(SessionToken.SID), file, timeout);
+  }
+
+  /**
+   * Creates a session store that save data in a memory-mapped file. Session data lives off-heap
+   * and is kept after restart.
+   *
+   * Data is written to the operating system page cache, so it survives application restarts and
+   * crashes. Pending writes are flushed to disk periodically, a system crash might lose the most
+   * recent changes. A file must be used by one application at a time.
+   *
+   * @param token Session token.
+   * @param file Session file. Created if missing.
+   * @param timeout Expires session after amount of inactivity time.
+   * @return Session store.
+   */
+  static @NonNull SessionStore mapped(@NonNull SessionToken token, @NonNull Path file,
+      @NonNull Duration timeout) {
+    return new MappedSessionStore(token, file, timeout);
+  }
+
   /**
    * Creates a session store that uses (un)signed data. Session data is signed it using
    * <code>HMAC_SHA256</code>.
@@ -6,11 +6,11 @@
 package io.jooby;
 
 import io.jooby.internal.MultipleSessionToken;
+import io.jooby.internal.TokenGenerator;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.security.SecureRandom;
-import java.util.Base64;
 
 /**
  * Find, save and delete a session token (cookie, header, parameter, etc)
@@ -41,16 +41,11 @@ public interface SessionToken {
     }
 
     @Nullable @Override public String findToken(@NonNull Context ctx) {
-      return ctx.cookieMap().get(cookie.getName());
+      return ctx.cookie(cookie.getName()).valueOrNull();
     }
 
     @Override public void saveToken(@NonNull Context ctx, @NonNull String token) {
-      // FIXME: Review, bc we don;t need this
-      //  String existingId = findToken(ctx);
-      // write cookie for new or expiring session
-      //if (existingId == null || cookie.getMaxAge() > 0) {
-      ctx.setResponseCookie(cookie.clone().setValue(token));
-      //}
+      saveCookie(ctx, cookie, token);
     }
 
     @Override public void deleteToken(@NonNull Context ctx, @NonNull String token) {
@@ -95,7 +90,7 @@ public interface SessionToken {
    * Looks for a session token from request cookie. This strategy:
    *
    * - find a token from a request cookie.
-   * - on save, set a response cookie.
+   * - on save, set a response cookie when data changed or when cookie has a max-age value.
    * - on destroy, expire the cookie.
    */
   class SignedCookie implements SessionToken {
@@ -112,11 +107,11 @@ public interface SessionToken {
     }
 
     @Nullable @Override public String findToken(@NonNull Context ctx) {
-      return ctx.cookieMap().get(cookie.getName());
+      return ctx.cookie(cookie.getName()).valueOrNull();
     }
 
     @Override public void saveToken(@NonNull Context ctx, @NonNull String token) {
-      ctx.setResponseCookie(cookie.clone().setValue(token));
+      saveCookie(ctx, cookie, token);
     }
 
     @Override public void deleteToken(@NonNull Context ctx, @NonNull String token) {
@@ -124,6 +119,23 @@ public interface SessionToken {
     }
   }
 
+  /**
+   * Set a response cookie when value changed (new, renewed or modified session), when cookie
+   * expires (max-age value) or when the response has cookies already (value might have changed
+   * back after it was written). Response cookies are keyed by name, so writing it again replaces
+   * the previous value.
+   *
+   * @param ctx Web context.
+   * @param cookie Cookie template.
+   * @param value Cookie value.
+   */
+  private static void saveCookie(Context ctx, Cookie cookie, String value) {
+    if (cookie.getMaxAge() > 0 || !value.equals(ctx.cookie(cookie.getName()).valueOrNull())
+        || ctx.getResponseHeader("Set-Cookie") != null) {
+      ctx.setResponseCookie(cookie.clone().setValue(value));
+    }
+  }
+
   /**
    * Default cookie for cookie based session stores.
    * Uses <code>jooby.sid</code> as name. It never expires, use the root, only for HTTP.
@@ -133,7 +145,12 @@ public interface SessionToken {
       .setHttpOnly(true)
       .setPath("/");
 
-  /** Secure random for default session token generator. */
+  /**
+   * Secure random for default session token generator.
+   *
+   * @deprecated Token generator uses one secure random per thread.
+   */
+  @Deprecated
   SecureRandom RND = new SecureRandom();
 
   /** Size of default token generator. */
@@ -141,14 +158,12 @@ public interface SessionToken {
 
   /**
    * Generate a new token. This implementation produces an url encoder ID using a secure random
-   * of {@link #ID_SIZE}.
+   * of {@link #ID_SIZE}. Each thread uses its own secure random, periodically reseeded.
    *
    * @return A new token.
    */
   default @NonNull String newToken() {
-    byte[] bytes = new byte[ID_SIZE];
-    RND.nextBytes(bytes);
-    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    return TokenGenerator.newToken(ID_SIZE);
   }
 
   /**
@@ -198,7 +213,7 @@ public interface SessionToken {
    * Create a signed-cookie-based Session token. This strategy:
    *
    * - find a token from a request cookie.
-   * - on save, set a response cookie.
+   * - on save, set a response cookie when data changed or when cookie has a max-age value.
    * - on destroy, expire the cookie.
    *
    * @param cookie Cookie to use.
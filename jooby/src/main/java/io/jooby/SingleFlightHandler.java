@@ -0,0 +1,187 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.jooby.internal.SharedResponse;
+
+/**
+ * Collapse concurrent identical requests into one execution of the route handler. While a request
+ * runs the handler, identical requests wait for it and get the same (already encoded) response.
+ * Useful for protecting expensive routes (database queries, remote calls) from traffic spikes.
+ *
+ * Usage:
+ * <pre>{@code
+ * {
+ *   decorator(new SingleFlightHandler().setHeaders("Accept", "Accept-Language"));
+ *
+ *   get("/report", ctx -> reportService.build());
+ * }
+ * }</pre>
+ *
+ * Requests are identical when they have same HTTP method, path, query string, the given headers
+ * and negotiated content type. Only <code>GET</code> and <code>HEAD</code> requests are
+ * collapsed.
+ *
+ * <code>GET</code> and <code>HEAD</code> routes are executed as {@link CompletionStage} routes:
+ * waiting requests are detached, they don't block a thread. The route handler runs on a worker
+ * thread. Routes with a reactive return type (RxJava, Reactor, etc.) keep it and are not
+ * collapsed. Script routes returning reactive values must declare it:
+ *
+ * <pre>{@code
+ *   get("/events", ctx -> Flowable.just(...))
+ *     .setReturnType(Flowable.class);
+ * }</pre>
+ *
+ * Waiting requests get body and content type of response, other response headers are not shared.
+ * Responses other than <code>200</code> and non encoded responses (files, streams, etc.) are not
+ * shared: waiting requests run the route handler.
+ *
+ * Unlike {@link ResponseCacheHandler}, nothing is kept once the response was generated.
+ *
+ * @author edgar
+ * @since 3.0.0
+ */
+public class SingleFlightHandler implements Route.Decorator {
+
+  private static class Response {
+    private final byte[] bytes;
+
+    private final MediaType type;
+
+    Response(byte[] bytes, MediaType type) {
+      this.bytes = bytes;
+      this.type = type;
+    }
+
+    byte[] apply(Context ctx) {
+      ctx.setResponseType(type);
+      return bytes;
+    }
+  }
+
+  private final Map<String, CompletableFuture<Response>> inflight = new ConcurrentHashMap<>();
+
+  private List<String> headers = Collections.emptyList();
+
+  /**
+   * Request headers that are part of request identity. Default is none.
+   *
+   * @param headers Header names.
+   * @return This handler.
+   */
+  public @NonNull SingleFlightHandler setHeaders(@NonNull String... headers) {
+    this.headers = Arrays.asList(headers);
+    return this;
+  }
+
+  @Override public void setRoute(@NonNull Route route) {
+    String method = route.getMethod();
+    Type returnType = route.getReturnType();
+    if ((method.equals(Router.GET) || method.equals(Router.HEAD))
+        && (returnType == null || !SharedResponse.isAsync(Reified.rawType(returnType)))) {
+      // Run as detached/async route, so waiting requests don't block a thread
+      route.setReturnType(CompletionStage.class);
+    }
+  }
+
+  @NonNull @Override public Route.Handler apply(@NonNull Route.Handler next) {
+    return ctx -> {
+      if (!isAsync(ctx.getRoute())) {
+        // declared return type wins: reactive types, MVC routes, etc.
+        return next.apply(ctx);
+      }
+      String method = ctx.getMethod();
+      if (!method.equals(Router.GET) && !method.equals(Router.HEAD)) {
+        // route expects a CompletionStage
+        return toFuture(next.apply(ctx));
+      }
+      String key = SharedResponse.key(ctx, null, headers);
+      CompletableFuture<Response> flight = new CompletableFuture<>();
+      CompletableFuture<Response> leader = inflight.putIfAbsent(key, flight);
+      if (leader != null) {
+        // response == null: response wasn't shared, run handler
+        return leader.thenComposeAsync(response -> response == null
+                ? execute(ctx, next)
+                : CompletableFuture.completedFuture(response.apply(ctx)),
+            ctx.getRouter().getWorker());
+      }
+      try {
+        return execute(ctx, next).handle((value, cause) -> {
+          Response response = null;
+          try {
+            if (cause == null) {
+              response = encode(ctx, value);
+            }
+          } catch (Throwable x) {
+            cause = x;
+          } finally {
+            inflight.remove(key, flight);
+            flight.complete(response);
+          }
+          if (cause != null) {
+            throw cause instanceof CompletionException
+                ? (CompletionException) cause
+                : new CompletionException(cause);
+          }
+          return response == null ? value : response.apply(ctx);
+        });
+      } catch (Throwable x) {
+        inflight.remove(key, flight);
+        flight.complete(null);
+        throw x;
+      }
+    };
+  }
+
+  private static CompletableFuture<Object> execute(Context ctx, Route.Handler next) {
+    if (ctx.isInIoThread()) {
+      return CompletableFuture.supplyAsync(() -> apply(ctx, next), ctx.getRouter().getWorker())
+          .thenCompose(SingleFlightHandler::toFuture);
+    }
+    return toFuture(apply(ctx, next));
+  }
+
+  private static Object apply(Context ctx, Route.Handler next) {
+    try {
+      return next.apply(ctx);
+    } catch (Exception x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+
+  private static CompletableFuture<Object> toFuture(Object value) {
+    if (value instanceof CompletionStage) {
+      return ((CompletionStage<Object>) value).toCompletableFuture();
+    }
+    return CompletableFuture.completedFuture(value);
+  }
+
+  private static Response encode(Context ctx, Object value) throws Exception {
+    if (!SharedResponse.isEncodable(ctx, value)) {
+      return null;
+    }
+    byte[] bytes = ctx.getRoute().getEncoder().encode(ctx, value);
+    return bytes == null ? null : new Response(bytes, ctx.getResponseType());
+  }
+
+  private static boolean isAsync(Route route) {
+    // return type might be set after decorator, like MVC routes do
+    Type returnType = route.getReturnType();
+    return returnType != null
+        && CompletionStage.class.isAssignableFrom(Reified.rawType(returnType));
+  }
+}
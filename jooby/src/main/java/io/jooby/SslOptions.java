@@ -14,8 +14,10 @@ import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -90,6 +92,14 @@ public final class SslOptions {
 
   private List<String> protocol = Arrays.asList(TLS_V1_3, TLS_V1_2);
 
+  private int sessionCacheSize;
+
+  private Duration sessionTimeout;
+
+  private Duration ticketKeyRotation;
+
+  private Duration reloadInterval;
+
   /**
    * Certificate type. Default is {@link #PKCS12}.
    *
@@ -327,6 +337,121 @@ public final class SslOptions {
     return this;
   }
 
+  /**
+   * Max number of TLS sessions kept for resumption. Resumed sessions skip the full handshake.
+   * Default is: <code>0</code>, which means the SSL engine default.
+   *
+   * @return Max number of TLS sessions kept for resumption.
+   */
+  public int getSessionCacheSize() {
+    return sessionCacheSize;
+  }
+
+  /**
+   * Set max number of TLS sessions kept for resumption.
+   *
+   * @param sessionCacheSize Max number of TLS sessions kept for resumption. <code>0</code> for
+   *     SSL engine default.
+   * @return This options.
+   */
+  public @NonNull SslOptions setSessionCacheSize(int sessionCacheSize) {
+    this.sessionCacheSize = sessionCacheSize;
+    return this;
+  }
+
+  /**
+   * How long a TLS session can be resumed. Default is: <code>null</code>, which means the SSL
+   * engine default.
+   *
+   * @return How long a TLS session can be resumed.
+   */
+  public @Nullable Duration getSessionTimeout() {
+    return sessionTimeout;
+  }
+
+  /**
+   * Set how long a TLS session can be resumed.
+   *
+   * @param sessionTimeout How long a TLS session can be resumed.
+   * @return This options.
+   */
+  public @NonNull SslOptions setSessionTimeout(@Nullable Duration sessionTimeout) {
+    this.sessionTimeout = sessionTimeout;
+    return this;
+  }
+
+  /**
+   * How often session ticket keys are rotated. A new key encrypts new tickets, the previous one is
+   * kept for decrypting tickets issued before the rotation. Requires OpenSSL (netty-tcnative) and
+   * Netty server. Default is: <code>null</code>, which means engine managed keys.
+   *
+   * @return How often session ticket keys are rotated.
+   */
+  public @Nullable Duration getTicketKeyRotation() {
+    return ticketKeyRotation;
+  }
+
+  /**
+   * Set how often session ticket keys are rotated. Requires OpenSSL (netty-tcnative) and Netty
+   * server.
+   *
+   * @param ticketKeyRotation How often session ticket keys are rotated.
+   * @return This options.
+   */
+  public @NonNull SslOptions setTicketKeyRotation(@Nullable Duration ticketKeyRotation) {
+    this.ticketKeyRotation = ticketKeyRotation;
+    return this;
+  }
+
+  /**
+   * How often certificate, private key and trust certificate files are checked for changes. When
+   * any of them changes, a new SSL context is created and used for new connections. Open
+   * connections are not affected. Only files on file system are checked. Netty server only.
+   * Default is: <code>null</code>, which means disabled.
+   *
+   * @return How often certificate files are checked for changes.
+   */
+  public @Nullable Duration getReloadInterval() {
+    return reloadInterval;
+  }
+
+  /**
+   * Set how often certificate, private key and trust certificate files are checked for changes.
+   * Netty server only.
+   *
+   * @param reloadInterval How often certificate files are checked for changes.
+   * @return This options.
+   */
+  public @NonNull SslOptions setReloadInterval(@Nullable Duration reloadInterval) {
+    this.reloadInterval = reloadInterval;
+    return this;
+  }
+
+  /**
+   * Latest modification time of certificate, private key and trust certificate files. Classpath
+   * resources are ignored.
+   *
+   * @return Latest modification time of certificate files or <code>0</code>.
+   */
+  public long lastModified() {
+    return Stream.of(cert, privateKey, trustCert)
+        .filter(Objects::nonNull)
+        .map(path -> {
+          try {
+            Path file = Paths.get(path);
+            return Files.exists(file) ? file : Paths.get(System.getProperty("user.dir"), path);
+          } catch (InvalidPathException x) {
+            return null;
+          }
+        })
+        .filter(Objects::nonNull)
+        .filter(Files::exists)
+        .map(throwingFunction(file -> Files.getLastModifiedTime(file).toMillis()))
+        .mapToLong(Long::longValue)
+        .max()
+        .orElse(0L);
+  }
+
   @Override public String toString() {
     return type;
   }
@@ -502,6 +627,18 @@ public final class SslOptions {
           if (conf.hasPath(path + ".trust.password")) {
             options.setTrustPassword(conf.getString(path + ".trust.password"));
           }
+          if (conf.hasPath(path + ".sessionCacheSize")) {
+            options.setSessionCacheSize(conf.getInt(path + ".sessionCacheSize"));
+          }
+          if (conf.hasPath(path + ".sessionTimeout")) {
+            options.setSessionTimeout(conf.getDuration(path + ".sessionTimeout"));
+          }
+          if (conf.hasPath(path + ".ticketKeyRotation")) {
+            options.setTicketKeyRotation(conf.getDuration(path + ".ticketKeyRotation"));
+          }
+          if (conf.hasPath(path + ".reloadInterval")) {
+            options.setReloadInterval(conf.getDuration(path + ".reloadInterval"));
+          }
           if (conf.hasPath(path + ".protocol")) {
             Object value = conf.getAnyRef(path + ".protocol");
             if (value instanceof List) {
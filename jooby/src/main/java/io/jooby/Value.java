@@ -9,16 +9,14 @@ import io.jooby.exception.MissingValueException;
 import io.jooby.exception.TypeMismatchException;
 import io.jooby.internal.ArrayValue;
 import io.jooby.internal.HashValue;
+import io.jooby.internal.HttpDateParser;
 import io.jooby.internal.MissingValue;
+import io.jooby.internal.NumberParser;
 import io.jooby.internal.SingleValue;
 
 import java.util.TreeMap;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeParseException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -57,15 +55,17 @@ public interface Value {
    * @return Long value.
    */
   default long longValue() {
+    String value = value();
+    if (NumberParser.isLong(value)) {
+      return Long.parseLong(value);
+    }
+    long date = HttpDateParser.parse(value);
+    if (date != HttpDateParser.INVALID) {
+      return date;
+    }
     try {
-      return Long.parseLong(value());
+      return Long.parseLong(value);
     } catch (NumberFormatException x) {
-      try {
-        LocalDateTime date = LocalDateTime.parse(value(), Context.RFC1123);
-        Instant instant = date.toInstant(ZoneOffset.UTC);
-        return instant.toEpochMilli();
-      } catch (DateTimeParseException expected) {
-      }
       throw new TypeMismatchException(name(), long.class, x);
     }
   }
@@ -77,6 +77,9 @@ public interface Value {
    * @return Convert this value to long (if possible) or fallback to given value when missing.
    */
   default long longValue(long defaultValue) {
+    if (isMissing()) {
+      return defaultValue;
+    }
     try {
       return longValue();
     } catch (MissingValueException x) {
@@ -90,8 +93,12 @@ public interface Value {
    * @return Int value.
    */
   default int intValue() {
+    String value = value();
+    if (NumberParser.isInt(value)) {
+      return Integer.parseInt(value);
+    }
     try {
-      return Integer.parseInt(value());
+      return Integer.parseInt(value);
     } catch (NumberFormatException x) {
       throw new TypeMismatchException(name(), int.class, x);
     }
@@ -104,6 +111,9 @@ public interface Value {
    * @return Convert this value to int (if possible) or fallback to given value when missing.
    */
   default int intValue(int defaultValue) {
+    if (isMissing()) {
+      return defaultValue;
+    }
     try {
       return intValue();
     } catch (MissingValueException x) {
@@ -117,8 +127,12 @@ public interface Value {
    * @return Convert this value to byte (if possible).
    */
   default byte byteValue() {
+    String value = value();
+    if (NumberParser.isByte(value)) {
+      return Byte.parseByte(value);
+    }
     try {
-      return Byte.parseByte(value());
+      return Byte.parseByte(value);
     } catch (NumberFormatException x) {
       throw new TypeMismatchException(name(), byte.class, x);
     }
@@ -131,6 +145,9 @@ public interface Value {
    * @return Convert this value to byte (if possible) or fallback to given value when missing.
    */
   default byte byteValue(byte defaultValue) {
+    if (isMissing()) {
+      return defaultValue;
+    }
     try {
       return byteValue();
     } catch (MissingValueException x) {
@@ -144,8 +161,12 @@ public interface Value {
    * @return Convert this value to float (if possible).
    */
   default float floatValue() {
+    String value = value();
+    if (NumberParser.isDecimal(value)) {
+      return Float.parseFloat(value);
+    }
     try {
-      return Float.parseFloat(value());
+      return Float.parseFloat(value);
     } catch (NumberFormatException x) {
       throw new TypeMismatchException(name(), float.class, x);
     }
@@ -158,6 +179,9 @@ public interface Value {
    * @return Convert this value to float (if possible) or fallback to given value when missing.
    */
   default float floatValue(float defaultValue) {
+    if (isMissing()) {
+      return defaultValue;
+    }
     try {
       return floatValue();
     } catch (MissingValueException x) {
@@ -171,8 +195,12 @@ public interface Value {
    * @return Convert this value to double (if possible).
    */
   default double doubleValue() {
+    String value = value();
+    if (NumberParser.isDecimal(value)) {
+      return Double.parseDouble(value);
+    }
     try {
-      return Double.parseDouble(value());
+      return Double.parseDouble(value);
     } catch (NumberFormatException x) {
       throw new TypeMismatchException(name(), double.class, x);
     }
@@ -185,6 +213,9 @@ public interface Value {
    * @return Convert this value to double (if possible) or fallback to given value when missing.
    */
   default double doubleValue(double defaultValue) {
+    if (isMissing()) {
+      return defaultValue;
+    }
     try {
       return doubleValue();
     } catch (MissingValueException x) {
@@ -208,6 +239,9 @@ public interface Value {
    * @return Convert this value to boolean (if possible) or fallback to given value when missing.
    */
   default boolean booleanValue(boolean defaultValue) {
+    if (isMissing()) {
+      return defaultValue;
+    }
     try {
       return booleanValue();
     } catch (MissingValueException x) {
@@ -222,6 +256,9 @@ public interface Value {
    * @return Convert this value to String (if possible) or fallback to given value when missing.
    */
   @NonNull default String value(@NonNull String defaultValue) {
+    if (isMissing()) {
+      return defaultValue;
+    }
     try {
       return value();
     } catch (MissingValueException x) {
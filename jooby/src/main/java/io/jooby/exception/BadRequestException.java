@@ -8,6 +8,7 @@ package io.jooby.exception;
 import io.jooby.StatusCode;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 
 /**
  * Specific exception for bad request.
@@ -35,4 +36,16 @@ public class BadRequestException extends StatusCodeException {
   public BadRequestException(@NonNull String message, @NonNull Throwable cause) {
     super(StatusCode.BAD_REQUEST, message, cause);
   }
+
+  /**
+   * Creates a bad request exception.
+   *
+   * @param message Message.
+   * @param cause Throwable.
+   * @param writableStackTrace False to skip filling the stack trace.
+   */
+  protected BadRequestException(@NonNull String message, @Nullable Throwable cause,
+      boolean writableStackTrace) {
+    super(StatusCode.BAD_REQUEST, message, cause, writableStackTrace);
+  }
 }
@@ -27,7 +27,7 @@ public class MethodNotAllowedException extends StatusCodeException {
    * @param allow Allow methods.
    */
   public MethodNotAllowedException(@NonNull String method, @NonNull List<String> allow) {
-    super(StatusCode.METHOD_NOT_ALLOWED, method);
+    super(StatusCode.METHOD_NOT_ALLOWED, method, null, false);
     this.allow = allow;
   }
 
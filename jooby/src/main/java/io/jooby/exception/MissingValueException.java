@@ -23,7 +23,7 @@ public class MissingValueException extends BadRequestException {
    * @param name Parameter/attribute name.
    */
   public MissingValueException(@NonNull String name) {
-    super("Missing value: '" + name + "'");
+    super("Missing value: '" + name + "'", null, false);
     this.name = name;
   }
 
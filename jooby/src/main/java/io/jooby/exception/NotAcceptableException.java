@@ -22,7 +22,7 @@ public class NotAcceptableException extends StatusCodeException {
    * @param contentType Content-Type or <code>null</code>.
    */
   public NotAcceptableException(@Nullable String contentType) {
-    super(StatusCode.NOT_ACCEPTABLE, contentType);
+    super(StatusCode.NOT_ACCEPTABLE, contentType, null, false);
   }
 
   /**
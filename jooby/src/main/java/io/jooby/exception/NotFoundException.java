@@ -23,7 +23,7 @@ public class NotFoundException extends StatusCodeException {
    * @param path Requested path.
    */
   public NotFoundException(@NonNull String path) {
-    super(StatusCode.NOT_FOUND, path);
+    super(StatusCode.NOT_FOUND, path, null, false);
   }
 
   /**
@@ -51,6 +51,22 @@ public class StatusCodeException extends RuntimeException {
     this.statusCode = statusCode;
   }
 
+  /**
+   * Creates an error with the given status code. Client errors raised by the framework (missing
+   * route, bad parameter, etc.) are created without stack trace: they are frequent, expected and
+   * the stack trace points to framework internals.
+   *
+   * @param statusCode Status code.
+   * @param message Error message.
+   * @param cause Cause.
+   * @param writableStackTrace False to skip filling the stack trace.
+   */
+  protected StatusCodeException(@NonNull StatusCode statusCode, @NonNull String message,
+      @Nullable Throwable cause, boolean writableStackTrace) {
+    super(message, cause, true, writableStackTrace);
+    this.statusCode = statusCode;
+  }
+
   /**
    * Status code.
    *
@@ -25,7 +25,7 @@ public class TypeMismatchException extends BadRequestException {
    * @param cause Cause.
    */
   public TypeMismatchException(@NonNull String name, @NonNull Type type, @NonNull Throwable cause) {
-    super("Cannot convert value: '" + name + "', to: '" + type.getTypeName() + "'", cause);
+    super("Cannot convert value: '" + name + "', to: '" + type.getTypeName() + "'", cause, false);
     this.name = name;
   }
 
@@ -22,7 +22,7 @@ public class UnsupportedMediaType extends StatusCodeException {
    * @param type Content Type. Optional.
    */
   public UnsupportedMediaType(@Nullable String type) {
-    super(StatusCode.UNSUPPORTED_MEDIA_TYPE, type);
+    super(StatusCode.UNSUPPORTED_MEDIA_TYPE, type, null, false);
   }
 
   /**
@@ -5,6 +5,7 @@
  */
 package io.jooby.internal;
 
+import io.jooby.Context;
 import io.jooby.MessageEncoder;
 import io.jooby.Route;
 import io.jooby.Router;
@@ -33,6 +34,9 @@ class Chi implements RouteTree {
   static final char ZERO_CHAR = (char) 0;
   private MessageEncoder encoder;
 
+  /** Routes for missing (404/405) responses, per handler. */
+  private final Map<Route.Handler, Route> missing = new ConcurrentHashMap<>();
+
   private interface MethodMatcher {
     StaticRouterMatch get(String method);
 
@@ -139,6 +143,9 @@ class Chi implements RouteTree {
     // HTTP handler endpoints on the leaf node
     Map<String, Route> endpoints;
 
+    // 405 handler, created on first use
+    Route.Handler methodNotAllowed;
+
     // subroutes on the leaf node
     //Routes subroutes;
 
@@ -491,7 +498,7 @@ class Chi implements RouteTree {
                       rctx.key(h.getPathKeys());
                       return h;
                     }
-                    rctx.methodNotAllowed(xn.endpoints.keySet());
+                    rctx.methodNotAllowed(xn.methodNotAllowed());
                   }
                 }
 
@@ -532,7 +539,7 @@ class Chi implements RouteTree {
 
               // flag that the routing context found a route, but not a corresponding
               // supported method
-              rctx.methodNotAllowed(xn.endpoints.keySet());
+              rctx.methodNotAllowed(xn.methodNotAllowed());
             }
           }
 
@@ -579,6 +586,16 @@ class Chi implements RouteTree {
       return endpoints != null;
     }
 
+    Route.Handler methodNotAllowed() {
+      // benign race: endpoints don't change once the application has started
+      Route.Handler handler = this.methodNotAllowed;
+      if (handler == null) {
+        handler = RouterMatch.methodNotAllowed(endpoints.keySet());
+        this.methodNotAllowed = handler;
+      }
+      return handler;
+    }
+
     // longestPrefix finds the filesize of the shared prefix of two strings
     int longestPrefix(String k1, String k2) {
       int len = Math.min(k1.length(), k2.length());
@@ -771,12 +788,25 @@ class Chi implements RouteTree {
     RouterMatch result = new RouterMatch();
     Route route = root.findRoute(result, method, path);
     if (route == null) {
-      return result.missing(method, path, encoder);
+      Route.Handler handler = result.methodNotAllowed();
+      if (handler == null) {
+        handler = path.endsWith("/favicon.ico") ? Route.FAVICON : Route.NOT_FOUND;
+      }
+      return result.missing(missing.computeIfAbsent(handler, this::missingRoute));
     }
     return result.found(route);
   }
 
+  private Route missingRoute(Route.Handler handler) {
+    // method and path are read from context
+    Route route = new Route("*", "*", handler);
+    route.setEncoder(encoder);
+    route.setReturnType(Context.class);
+    return route;
+  }
+
   public void setEncoder(MessageEncoder encoder) {
     this.encoder = encoder;
+    missing.clear();
   }
 }
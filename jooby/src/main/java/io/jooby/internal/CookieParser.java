@@ -0,0 +1,127 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+/**
+ * Decode <code>Cookie</code> request header(s). A single cookie is extracted without decoding all
+ * of them.
+ */
+public final class CookieParser {
+  private CookieParser() {
+  }
+
+  /**
+   * Find the value of the first cookie with the given name.
+   *
+   * @param headers Values of <code>Cookie</code> header (HTTP/2 splits cookies in multiple
+   *     headers).
+   * @param name Cookie name (case-sensitive).
+   * @return Cookie value or <code>null</code>.
+   */
+  public static @Nullable String find(@NonNull Iterator<String> headers, @NonNull String name) {
+    while (headers.hasNext()) {
+      String value = find(headers.next(), name);
+      if (value != null) {
+        return value;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Find the value of the first cookie with the given name.
+   *
+   * @param header Value of <code>Cookie</code> header, like <code>a=1; b=2</code>. Might be
+   *     <code>null</code>.
+   * @param name Cookie name (case-sensitive).
+   * @return Cookie value or <code>null</code>.
+   */
+  public static @Nullable String find(@Nullable String header, @NonNull String name) {
+    return header == null ? null : scan(header, name, null);
+  }
+
+  /**
+   * Decode all the cookies. Same rules as {@link #find(Iterator, String)}: when a name is
+   * repeated the first cookie wins, values are trimmed and unquoted, nothing else is validated.
+   *
+   * @param headers Values of <code>Cookie</code> header (HTTP/2 splits cookies in multiple
+   *     headers).
+   * @return Cookies by name, in request order.
+   */
+  public static @NonNull Map<String, String> parse(@NonNull Iterator<String> headers) {
+    Map<String, String> cookies = new LinkedHashMap<>();
+    while (headers.hasNext()) {
+      String header = headers.next();
+      if (header != null) {
+        scan(header, null, cookies);
+      }
+    }
+    return cookies.isEmpty() ? Collections.emptyMap() : cookies;
+  }
+
+  /**
+   * Scan a <code>Cookie</code> header. Returns the value of the named cookie or, when name is
+   * <code>null</code>, adds all the cookies to the given map.
+   */
+  private static String scan(String header, String name, Map<String, String> cookies) {
+    int len = header.length();
+    int start = 0;
+    while (start < len) {
+      int end = header.indexOf(';', start);
+      if (end < 0) {
+        end = len;
+      }
+      int nameStart = skipSpaces(header, start, end);
+      int eq = header.indexOf('=', nameStart);
+      if (eq > nameStart && eq < end) {
+        int nameEnd = trimSpaces(header, nameStart, eq);
+        if (name == null || (nameEnd - nameStart == name.length()
+            && header.regionMatches(nameStart, name, 0, name.length()))) {
+          int valueStart = skipSpaces(header, eq + 1, end);
+          int valueEnd = trimSpaces(header, valueStart, end);
+          if (valueEnd - valueStart >= 2 && header.charAt(valueStart) == '"'
+              && header.charAt(valueEnd - 1) == '"') {
+            valueStart += 1;
+            valueEnd -= 1;
+          }
+          String value = header.substring(valueStart, valueEnd);
+          if (name != null) {
+            return value;
+          }
+          cookies.putIfAbsent(header.substring(nameStart, nameEnd), value);
+        }
+      }
+      start = end + 1;
+    }
+    return null;
+  }
+
+  private static int skipSpaces(String value, int start, int end) {
+    while (start < end && isSpace(value.charAt(start))) {
+      start += 1;
+    }
+    return start;
+  }
+
+  private static int trimSpaces(String value, int start, int end) {
+    while (end > start && isSpace(value.charAt(end - 1))) {
+      end -= 1;
+    }
+    return end;
+  }
+
+  private static boolean isSpace(char ch) {
+    return ch == ' ' || ch == '\t';
+  }
+}
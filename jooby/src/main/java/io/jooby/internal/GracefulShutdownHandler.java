@@ -5,70 +5,165 @@
  */
 package io.jooby.internal;
 
+import io.jooby.Context;
+import io.jooby.ForwardingContext;
 import io.jooby.Route;
+import io.jooby.ServerSentEmitter;
 import io.jooby.StatusCode;
+import io.jooby.WebSocket;
+import io.jooby.WebSocketCloseStatus;
+import io.jooby.WebSocketConfigurer;
+import io.jooby.internal.handler.ServerSentEventHandler;
+import io.jooby.internal.handler.WebSocketHandler;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.time.Duration;
-import java.util.concurrent.atomic.AtomicLongFieldUpdater;
-import java.util.function.LongUnaryOperator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 public class GracefulShutdownHandler implements Route.Decorator {
-  private static final long SHUTDOWN_MASK = 1L << 63;
-  private static final long ACTIVE_COUNT_MASK = (1L << 63) - 1;
 
-  private static final LongUnaryOperator incrementActive = current -> {
-    long incrementedActiveCount = activeCount(current) + 1;
-    return incrementedActiveCount | (current & ~ACTIVE_COUNT_MASK);
-  };
+  /** Collects user onConnect callback and tracks the web socket. */
+  private class OnConnect implements WebSocketConfigurer, WebSocket.OnConnect {
+    private final WebSocketConfigurer configurer;
 
-  private static final LongUnaryOperator incrementActiveAndShutdown =
-      incrementActive.andThen(current -> current | SHUTDOWN_MASK);
+    private WebSocket.OnConnect callback;
 
-  private static final LongUnaryOperator decrementActive = current -> {
-    long decrementedActiveCount = activeCount(current) - 1;
-    return decrementedActiveCount | (current & ~ACTIVE_COUNT_MASK);
-  };
+    OnConnect(WebSocketConfigurer configurer) {
+      this.configurer = configurer;
+    }
+
+    @Override public void onConnect(@NonNull WebSocket ws) {
+      addConnection(ws);
+      if (callback != null) {
+        callback.onConnect(ws);
+      }
+    }
+
+    @NonNull @Override public WebSocketConfigurer onConnect(
+        @NonNull WebSocket.OnConnect callback) {
+      this.callback = callback;
+      return this;
+    }
+
+    @NonNull @Override public WebSocketConfigurer onMessage(
+        @NonNull WebSocket.OnMessage callback) {
+      configurer.onMessage(callback);
+      return this;
+    }
+
+    @NonNull @Override public WebSocketConfigurer onError(@NonNull WebSocket.OnError callback) {
+      configurer.onError(callback);
+      return this;
+    }
+
+    @NonNull @Override public WebSocketConfigurer onClose(@NonNull WebSocket.OnClose callback) {
+      configurer.onClose(callback);
+      return this;
+    }
+  }
+
+  /** Serving requests. */
+  private static final int RUNNING = 0;
+
+  /** Not ready: still serving requests, but asking clients to close their connections. */
+  private static final int DRAINING = 1;
+
+  /** Rejecting requests, waiting for in-flight requests to finish. */
+  private static final int SHUTDOWN = 2;
+
+  private static final long POLL_INTERVAL = 100;
 
   private final Object lock = new Object();
 
   private final Duration await;
 
-  private volatile long state = 0;
-  private static final AtomicLongFieldUpdater<GracefulShutdownHandler> stateUpdater =
-      AtomicLongFieldUpdater.newUpdater(GracefulShutdownHandler.class, "state");
+  private final Duration drainDelay;
 
-  public GracefulShutdownHandler(Duration await) {
+  /** Striped counter, so concurrent requests don't fight for the same cache line. */
+  private final LongAdder inflight = new LongAdder();
+
+  private volatile int state = RUNNING;
+
+  /** Open web sockets and server-sent event connections. */
+  private final Set<Object> connections = ConcurrentHashMap.newKeySet();
+
+  /** Connection count after last sweep of closed connections. */
+  private volatile int liveConnections = 16;
+
+  private final Route.Complete complete = ctx -> decrementRequests();
+
+  public GracefulShutdownHandler(Duration await, Duration drainDelay) {
     this.await = await;
+    this.drainDelay = drainDelay;
+  }
+
+  public GracefulShutdownHandler(Duration await) {
+    this(await, null);
   }
 
   @NonNull @Override public Route.Handler apply(@NonNull Route.Handler next) {
     return ctx -> {
-      long snapshot = stateUpdater.updateAndGet(this, incrementActive);
-      if (isShutdown(snapshot)) {
-        decrementRequests();
-        return ctx.send(StatusCode.SERVICE_UNAVAILABLE);
-      } else {
-        ctx.onComplete(context -> {
-          decrementRequests();
+      if (state == SHUTDOWN) {
+        return reject(ctx);
+      }
+      Route.Handler route = ctx.getRoute().getHandler();
+      if (route instanceof WebSocketHandler || route instanceof ServerSentEventHandler) {
+        // long lived: tracked as connections and closed on shutdown
+        return next.apply(new ForwardingContext(ctx) {
+          @NonNull @Override public Context upgrade(@NonNull WebSocket.Initializer handler) {
+            return super.upgrade(track(handler));
+          }
+
+          @NonNull @Override public Context upgrade(@NonNull ServerSentEmitter.Handler handler) {
+            return super.upgrade(track(handler));
+          }
         });
-        return next.apply(ctx);
       }
+      inflight.increment();
+      int snapshot = state;
+      if (snapshot == SHUTDOWN) {
+        decrementRequests();
+        return reject(ctx);
+      }
+      if (snapshot == DRAINING) {
+        // keep-alive clients should reconnect, hopefully to another instance
+        ctx.setResponseHeader("Connection", "close");
+      }
+      ctx.onComplete(complete);
+      return next.apply(ctx);
     };
   }
 
-  private static boolean isShutdown(long state) {
-    return (state & SHUTDOWN_MASK) != 0;
+  /**
+   * True while the application accepts new work. Turns false as soon as shutdown starts, before
+   * draining.
+   *
+   * @return True while the application accepts new work.
+   */
+  public boolean isReady() {
+    return state == RUNNING;
   }
 
-  private static long activeCount(long state) {
-    return state & ACTIVE_COUNT_MASK;
+  /**
+   * Number of requests in progress.
+   *
+   * @return Number of requests in progress.
+   */
+  public long getInFlight() {
+    return inflight.sum();
   }
 
   public void shutdown() throws InterruptedException {
-    //the request count is never zero when shutdown is set to true
-    stateUpdater.updateAndGet(this, incrementActiveAndShutdown);
-    decrementRequests();
+    state = DRAINING;
+    if (drainDelay != null && !drainDelay.isZero()) {
+      // not ready anymore, give load balancers time to notice it while we keep serving
+      Thread.sleep(drainDelay.toMillis());
+    }
+    state = SHUTDOWN;
+
+    closeConnections();
 
     if (await == null) {
       awaitShutdown();
@@ -78,15 +173,64 @@ public class GracefulShutdownHandler implements Route.Decorator {
   }
 
   public void start() {
-    synchronized (lock) {
-      stateUpdater.updateAndGet(this, current -> current & ACTIVE_COUNT_MASK);
+    state = RUNNING;
+  }
+
+  private Context reject(Context ctx) {
+    ctx.setResponseHeader("Connection", "close");
+    return ctx.send(StatusCode.SERVICE_UNAVAILABLE);
+  }
+
+  private WebSocket.Initializer track(WebSocket.Initializer initializer) {
+    return (ctx, configurer) -> {
+      OnConnect onConnect = new OnConnect(configurer);
+      initializer.init(ctx, onConnect);
+      configurer.onConnect(onConnect);
+    };
+  }
+
+  private ServerSentEmitter.Handler track(ServerSentEmitter.Handler handler) {
+    return emitter -> {
+      addConnection(emitter);
+      handler.handle(emitter);
+    };
+  }
+
+  private void addConnection(Object connection) {
+    connections.add(connection);
+    if (connections.size() > liveConnections * 2) {
+      // amortized cleanup: we don't own the close callbacks of web sockets/emitters
+      connections.removeIf(it -> !isOpen(it));
+      liveConnections = Math.max(16, connections.size());
+    }
+    if (state == SHUTDOWN) {
+      // raced with shutdown
+      closeConnection(connection);
     }
   }
 
-  private void shutdownComplete() {
-    synchronized (lock) {
-      lock.notifyAll();
+  private void closeConnections() {
+    for (Object connection : connections) {
+      closeConnection(connection);
+    }
+  }
+
+  private void closeConnection(Object connection) {
+    connections.remove(connection);
+    if (isOpen(connection)) {
+      if (connection instanceof WebSocket) {
+        ((WebSocket) connection).close(WebSocketCloseStatus.GOING_AWAY);
+      } else {
+        ((ServerSentEmitter) connection).close();
+      }
+    }
+  }
+
+  private static boolean isOpen(Object connection) {
+    if (connection instanceof WebSocket) {
+      return ((WebSocket) connection).isOpen();
     }
+    return ((ServerSentEmitter) connection).isOpen();
   }
 
   /**
@@ -94,11 +238,8 @@ public class GracefulShutdownHandler implements Route.Decorator {
    */
   private void awaitShutdown() throws InterruptedException {
     synchronized (lock) {
-      if (!isShutdown(stateUpdater.get(this))) {
-        return;
-      }
-      while (activeCount(stateUpdater.get(this)) > 0) {
-        lock.wait();
+      while (inflight.sum() > 0) {
+        lock.wait(POLL_INTERVAL);
       }
     }
   }
@@ -111,26 +252,24 @@ public class GracefulShutdownHandler implements Route.Decorator {
    */
   private boolean awaitShutdown(long millis) throws InterruptedException {
     synchronized (lock) {
-      if (!isShutdown(stateUpdater.get(this))) {
-        return false;
-      }
       long end = System.currentTimeMillis() + millis;
-      while (activeCount(stateUpdater.get(this)) != 0) {
+      while (inflight.sum() > 0) {
         long left = end - System.currentTimeMillis();
         if (left <= 0) {
           return false;
         }
-        lock.wait(left);
+        lock.wait(Math.min(left, POLL_INTERVAL));
       }
       return true;
     }
   }
 
   private void decrementRequests() {
-    long snapshot = stateUpdater.updateAndGet(this, decrementActive);
-    // Shutdown has completed when the activeCount portion is zero, and shutdown is set.
-    if (snapshot == SHUTDOWN_MASK) {
-      shutdownComplete();
+    inflight.decrement();
+    if (state == SHUTDOWN) {
+      synchronized (lock) {
+        lock.notifyAll();
+      }
     }
   }
 }
@@ -0,0 +1,135 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.jooby.Context;
+import io.jooby.Value;
+import io.jooby.ValueNode;
+
+/**
+ * Read-only view of request headers backed by the native header structure of a web server.
+ * Nothing is copied: lookups are delegated to the server (which are case-insensitive) and values
+ * are created on access.
+ */
+public class HeadersValue implements ValueNode {
+  private final Context ctx;
+
+  private final Function<String, List<String>> values;
+
+  private final Supplier<Collection<String>> names;
+
+  /**
+   * Creates a header view.
+   *
+   * @param ctx Web context.
+   * @param values Native lookup of all values of a header. Returns empty or <code>null</code> for
+   *     missing headers.
+   * @param names Native header names.
+   */
+  public HeadersValue(Context ctx, Function<String, List<String>> values,
+      Supplier<Collection<String>> names) {
+    this.ctx = ctx;
+    this.values = values;
+    this.names = names;
+  }
+
+  @Override public String name() {
+    return null;
+  }
+
+  @NonNull @Override public ValueNode get(@NonNull String name) {
+    return Value.create(ctx, name, values.apply(name));
+  }
+
+  @NonNull @Override public ValueNode get(@NonNull int index) {
+    return get(Integer.toString(index));
+  }
+
+  @Override public int size() {
+    return names.get().size();
+  }
+
+  @NonNull @Override public Iterator<ValueNode> iterator() {
+    Iterator<String> it = names.get().iterator();
+    return new Iterator<ValueNode>() {
+      @Override public boolean hasNext() {
+        return it.hasNext();
+      }
+
+      @Override public ValueNode next() {
+        return get(it.next());
+      }
+    };
+  }
+
+  @NonNull @Override public String value() {
+    StringJoiner joiner = new StringJoiner("&");
+    for (String name : names.get()) {
+      for (String value : values.apply(name)) {
+        joiner.add(name + "=" + value);
+      }
+    }
+    return joiner.toString();
+  }
+
+  @NonNull @Override public List<String> toList() {
+    return toList(String.class);
+  }
+
+  @NonNull @Override public Set<String> toSet() {
+    return toSet(String.class);
+  }
+
+  @NonNull @Override public <T> List<T> toList(@NonNull Class<T> type) {
+    List<T> list = new ArrayList<>();
+    list.add(to(type));
+    return list;
+  }
+
+  @NonNull @Override public <T> Set<T> toSet(@NonNull Class<T> type) {
+    Set<T> set = new LinkedHashSet<>();
+    set.add(to(type));
+    return set;
+  }
+
+  @NonNull @Override public <T> Optional<T> toOptional(@NonNull Class<T> type) {
+    if (names.get().isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(to(type));
+  }
+
+  @NonNull @Override public <T> T to(@NonNull Class<T> type) {
+    return ctx.convert(this, type);
+  }
+
+  @Override public Map<String, List<String>> toMultimap() {
+    Collection<String> names = this.names.get();
+    Map<String, List<String>> result = new LinkedHashMap<>(names.size());
+    for (String name : names) {
+      result.put(name, values.apply(name));
+    }
+    return result;
+  }
+
+  @Override public String toString() {
+    return toMultimap().toString();
+  }
+}
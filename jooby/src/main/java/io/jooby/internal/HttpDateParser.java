@@ -0,0 +1,170 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+import io.jooby.Context;
+
+/**
+ * Parse HTTP dates (RFC 1123, like <code>Sun, 06 Nov 1994 08:49:37 GMT</code>) into epoch
+ * milliseconds without going through exceptions for valid input.
+ *
+ * The canonical <code>GMT</code> form is parsed by hand. Anything else falls back to
+ * {@link Context#RFC1123}. The last parsed value is cached: conditional headers like
+ * <code>If-Modified-Since</code> repeat the same date over and over.
+ */
+public final class HttpDateParser {
+
+  /** Returned when the value isn't an HTTP date. */
+  public static final long INVALID = Long.MIN_VALUE;
+
+  private static final class Entry {
+    private final String value;
+
+    private final long millis;
+
+    Entry(String value, long millis) {
+      this.value = value;
+      this.millis = millis;
+    }
+  }
+
+  private static final int LENGTH = "Sun, 06 Nov 1994 08:49:37 GMT".length();
+
+  private static final String[] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+
+  private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+
+  private static final long DAYS_0000_TO_1970 = 719528L;
+
+  private static final long MILLIS_PER_DAY = 86400000L;
+
+  private static volatile Entry last = new Entry("", INVALID);
+
+  private HttpDateParser() {
+  }
+
+  /**
+   * Parse an HTTP date.
+   *
+   * @param value Date value.
+   * @return Epoch milliseconds or {@link #INVALID}.
+   */
+  public static long parse(String value) {
+    if (value == null) {
+      return INVALID;
+    }
+    Entry entry = last;
+    if (entry.value.equals(value)) {
+      return entry.millis;
+    }
+    long millis = fastParse(value);
+    if (millis == INVALID) {
+      millis = slowParse(value);
+    }
+    if (millis != INVALID) {
+      last = new Entry(value, millis);
+    }
+    return millis;
+  }
+
+  private static long slowParse(String value) {
+    try {
+      LocalDateTime date = LocalDateTime.parse(value, Context.RFC1123);
+      return date.toInstant(ZoneOffset.UTC).toEpochMilli();
+    } catch (DateTimeParseException x) {
+      return INVALID;
+    }
+  }
+
+  private static long fastParse(String value) {
+    if (value.length() != LENGTH
+        || value.charAt(3) != ','
+        || value.charAt(4) != ' '
+        || value.charAt(7) != ' '
+        || value.charAt(11) != ' '
+        || value.charAt(16) != ' '
+        || value.charAt(19) != ':'
+        || value.charAt(22) != ':'
+        || value.charAt(25) != ' '
+        || !value.startsWith("GMT", 26)) {
+      return INVALID;
+    }
+    int day = digits(value, 5, 2);
+    int month = month(value);
+    int year = digits(value, 12, 4);
+    int hour = digits(value, 17, 2);
+    int minute = digits(value, 20, 2);
+    int second = digits(value, 23, 2);
+    if (month < 0 || year < 0 || hour < 0 || hour > 23 || minute < 0 || minute > 59
+        || second < 0 || second > 59 || day < 1 || day > lengthOfMonth(year, month)) {
+      return INVALID;
+    }
+    long epochDay = epochDay(year, month, day);
+    // 1970-01-01 was a Thursday
+    if (!value.startsWith(DAYS[(int) Math.floorMod(epochDay + 3, 7L)])) {
+      return INVALID;
+    }
+    return epochDay * MILLIS_PER_DAY + (hour * 3600L + minute * 60L + second) * 1000L;
+  }
+
+  private static int month(String value) {
+    for (int i = 0; i < MONTHS.length(); i += 3) {
+      if (value.regionMatches(8, MONTHS, i, 3)) {
+        return i / 3 + 1;
+      }
+    }
+    return -1;
+  }
+
+  private static int digits(String value, int offset, int len) {
+    int result = 0;
+    for (int i = offset; i < offset + len; i++) {
+      char ch = value.charAt(i);
+      if (ch < '0' || ch > '9') {
+        return -1;
+      }
+      result = result * 10 + (ch - '0');
+    }
+    return result;
+  }
+
+  private static boolean isLeapYear(long year) {
+    return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+    switch (month) {
+      case 2:
+        return isLeapYear(year) ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  /* Same as LocalDate.toEpochDay() for positive years. */
+  private static long epochDay(long year, long month, long day) {
+    long total = 365 * year;
+    total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+    total += (367 * month - 362) / 12;
+    total += day - 1;
+    if (month > 2) {
+      total -= 1;
+      if (!isLeapYear(year)) {
+        total -= 1;
+      }
+    }
+    return total - DAYS_0000_TO_1970;
+  }
+}
@@ -0,0 +1,114 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.jooby.Context;
+import io.jooby.ServiceKey;
+
+/**
+ * Resolves locales from <code>Accept-Language</code> values. Results are cached per header value:
+ * clients send a small set of different values, so parsing, sorting and matching against supported
+ * locales is done once per value.
+ *
+ * Cache is bounded: it is cleared once it reaches the max size.
+ *
+ * Nothing is stored in the request attributes (template engines expose them as model). Web
+ * servers keep the result of the current request in a context field.
+ */
+public class LocaleCache {
+
+  public static final ServiceKey<LocaleCache> KEY = ServiceKey.key(LocaleCache.class);
+
+  private static final int MAX_SIZE = 1024;
+
+  private final List<Locale> locales;
+
+  private final Map<String, Locale> locale = new ConcurrentHashMap<>();
+
+  private final Map<String, List<Locale>> filter = new ConcurrentHashMap<>();
+
+  public LocaleCache(List<Locale> locales) {
+    this.locales = locales;
+  }
+
+  /**
+   * Best matching locale for the current request or default locale. Same as
+   * {@link Locale#lookup(List, java.util.Collection)}.
+   *
+   * @param ctx Web context.
+   * @return Best matching locale or default locale.
+   */
+  public static Locale locale(Context ctx) {
+    LocaleCache cache = cache(ctx);
+    if (cache == null) {
+      return ctx.locale((priorityList, locales) -> lookup(priorityList, locales));
+    }
+    return cache.locale(ctx.header("Accept-Language").valueOrNull());
+  }
+
+  /**
+   * Matching locales for the current request. Same as
+   * {@link Locale#filter(List, java.util.Collection)}.
+   *
+   * @param ctx Web context.
+   * @return Matching locales or empty list.
+   */
+  public static List<Locale> locales(Context ctx) {
+    LocaleCache cache = cache(ctx);
+    if (cache == null) {
+      return ctx.locales(Locale::filter);
+    }
+    return cache.locales(ctx.header("Accept-Language").valueOrNull());
+  }
+
+  private static LocaleCache cache(Context ctx) {
+    LocaleCache cache = ctx.getRouter().getServices().getOrNull(KEY);
+    // locales might change after application started
+    return cache == null || cache.locales != ctx.getRouter().getLocales() ? null : cache;
+  }
+
+  private Locale locale(String value) {
+    String key = value == null ? "" : value;
+    Locale result = locale.get(key);
+    if (result == null) {
+      result = lookup(ranges(value), locales);
+      put(locale, key, result);
+    }
+    return result;
+  }
+
+  private List<Locale> locales(String value) {
+    String key = value == null ? "" : value;
+    List<Locale> result = filter.get(key);
+    if (result == null) {
+      result = Collections.unmodifiableList(Locale.filter(ranges(value), locales));
+      put(filter, key, result);
+    }
+    return result;
+  }
+
+  private static List<Locale.LanguageRange> ranges(String value) {
+    return LocaleUtils.parseRanges(value).orElseGet(Collections::emptyList);
+  }
+
+  private static Locale lookup(List<Locale.LanguageRange> priorityList, List<Locale> locales) {
+    return Optional.ofNullable(Locale.lookup(priorityList, locales)).orElse(locales.get(0));
+  }
+
+  private static <V> void put(Map<String, V> cache, String key, V value) {
+    if (cache.size() >= MAX_SIZE) {
+      cache.clear();
+    }
+    cache.put(key, value);
+  }
+}
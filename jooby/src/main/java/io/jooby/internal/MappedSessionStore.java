@@ -0,0 +1,464 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.Context;
+import io.jooby.Session;
+import io.jooby.SessionStore;
+import io.jooby.SessionToken;
+import io.jooby.SneakyThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Session store backed by a memory-mapped file. Session data lives off-heap (page cache) and
+ * survives restarts: the file is an append-only log of session records, read back on startup.
+ *
+ * Record layout:
+ *
+ * <pre>
+ *   int length    // body length, 0 marks end of log, -1 skips to next segment
+ *   int crc       // CRC32 of body, except for lastAccessed
+ *   body:
+ *     byte type   // PUT or DELETE
+ *     long lastAccessed
+ *     long creationTime
+ *     string id
+ *     int size
+ *     (string key, string value)*
+ * </pre>
+ *
+ * Strings are encoded as an <code>int</code> length followed by UTF-8 bytes. Only a small index
+ * (session ID to record position) lives on heap.
+ *
+ * - Touching a session with same attributes updates lastAccessed in place.
+ * - Records that don't pass the CRC check (crash while writing) are discarded on startup.
+ * - Log is compacted once less than half of it holds live sessions.
+ * - Expired sessions are skipped on startup and purged periodically.
+ */
+public class MappedSessionStore extends SessionStore.InMemory {
+
+  /** Size of each mapped region of the file. A session record must fit in one segment. */
+  static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+
+  private static final int HEADER = Integer.BYTES * 2;
+
+  private static final int PADDING = -1;
+
+  private static final byte PUT = 1;
+
+  private static final byte DELETE = 2;
+
+  /** Position of lastAccessed inside body. */
+  private static final int LAST_ACCESSED = 1;
+
+  /** Position of creationTime inside body. */
+  private static final int CREATION_TIME = LAST_ACCESSED + Long.BYTES;
+
+  private static final long PURGE_INTERVAL = Duration.ofMinutes(1).toMillis();
+
+  /** Mapped file. Replaced on compaction. */
+  private static class Log {
+    private final FileChannel channel;
+
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    /** Next write position. */
+    private long position;
+
+    Log(Path file) throws IOException {
+      this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      long size = channel.size();
+      for (long offset = 0; offset < size; offset += SEGMENT_SIZE) {
+        map();
+      }
+    }
+
+    ByteBuffer segment(long position) throws IOException {
+      int index = (int) (position / SEGMENT_SIZE);
+      while (index >= segments.size()) {
+        map();
+      }
+      return segments.get(index);
+    }
+
+    private void map() throws IOException {
+      segments.add(channel.map(FileChannel.MapMode.READ_WRITE,
+          (long) segments.size() * SEGMENT_SIZE, SEGMENT_SIZE));
+    }
+
+    long append(byte[] body, int crc) throws IOException {
+      int offset = (int) (position % SEGMENT_SIZE);
+      if (offset + HEADER + body.length > SEGMENT_SIZE) {
+        if (offset + Integer.BYTES <= SEGMENT_SIZE) {
+          segment(position).putInt(offset, PADDING);
+        }
+        position += SEGMENT_SIZE - offset;
+        offset = 0;
+      }
+      long recordPosition = position;
+      ByteBuffer segment = segment(recordPosition);
+      segment.putInt(offset + Integer.BYTES, crc);
+      segment.put(offset + HEADER, body);
+      // length goes last: a record is visible once completely written
+      segment.putInt(offset, body.length);
+      position += HEADER + body.length;
+      return recordPosition;
+    }
+
+    byte[] read(long position, int size) throws IOException {
+      byte[] body = new byte[size];
+      segment(position).get((int) (position % SEGMENT_SIZE) + HEADER, body);
+      return body;
+    }
+
+    void force() {
+      for (MappedByteBuffer segment : segments) {
+        segment.force();
+      }
+    }
+
+    void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  /** Index entry: position of latest session record. */
+  private static class Entry {
+    private final Log log;
+
+    private final long position;
+
+    private final int size;
+
+    private volatile long lastAccessedTime;
+
+    Entry(Log log, long position, int size, long lastAccessedTime) {
+      this.log = log;
+      this.position = position;
+      this.size = size;
+      this.lastAccessedTime = lastAccessedTime;
+    }
+  }
+
+  private final Path file;
+
+  private final Map<String, Entry> index = new ConcurrentHashMap<>();
+
+  private final Object lock = new Object();
+
+  private Duration timeout;
+
+  private Log log;
+
+  /** Bytes of records referenced by the index. */
+  private long liveBytes;
+
+  private volatile long lastPurge;
+
+  public MappedSessionStore(SessionToken token, Path file, Duration timeout) {
+    super(token);
+    this.file = file;
+    this.timeout = Optional.ofNullable(timeout)
+        .filter(t -> t.toMillis() > 0)
+        .orElse(null);
+    try {
+      this.log = new Log(file);
+      load();
+    } catch (IOException x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+
+  @Override protected Data getOrCreate(String sessionId, Function<String, Data> factory) {
+    Data data = getOrNull(sessionId);
+    if (data == null) {
+      data = factory.apply(sessionId);
+      put(sessionId, data);
+    }
+    return data;
+  }
+
+  @Override protected Data getOrNull(String sessionId) {
+    Entry entry = index.get(sessionId);
+    if (entry == null || isExpired(entry, System.currentTimeMillis())) {
+      return null;
+    }
+    return decode(entry);
+  }
+
+  @Override protected Data remove(String sessionId) {
+    synchronized (lock) {
+      Entry entry = index.remove(sessionId);
+      if (entry == null) {
+        return null;
+      }
+      liveBytes -= HEADER + entry.size;
+      Data data = decode(entry);
+      append(encode(DELETE, sessionId, 0, 0, null));
+      return data;
+    }
+  }
+
+  @Override protected void put(String sessionId, Data data) {
+    long lastAccessedTime = data.getLastAccessedTime().toEpochMilli();
+    byte[] body = encode(PUT, sessionId, lastAccessedTime,
+        data.getCreationTime().toEpochMilli(), data.getHash());
+    synchronized (lock) {
+      try {
+        Entry entry = index.get(sessionId);
+        if (entry != null && entry.log == log && sameContent(entry, body)) {
+          // touch: just update last accessed time
+          int offset = (int) (entry.position % SEGMENT_SIZE) + HEADER + LAST_ACCESSED;
+          log.segment(entry.position).putLong(offset, lastAccessedTime);
+          entry.lastAccessedTime = lastAccessedTime;
+          return;
+        }
+        long position = append(body);
+        index.put(sessionId, new Entry(log, position, body.length, lastAccessedTime));
+        liveBytes += HEADER + body.length - (entry == null ? 0 : HEADER + entry.size);
+        if (log.position > SEGMENT_SIZE && liveBytes * 2 < log.position) {
+          compact();
+        }
+      } catch (IOException x) {
+        throw SneakyThrows.propagate(x);
+      }
+    }
+  }
+
+  @Override public Session findSession(Context ctx) {
+    purge();
+    return super.findSession(ctx);
+  }
+
+  public SessionStore setTimeout(Duration timeout) {
+    this.timeout = timeout;
+    return this;
+  }
+
+  /**
+   * Remove expired sessions from index and flush pending writes to disk. Runs at most once per
+   * {@link #PURGE_INTERVAL}.
+   */
+  private void purge() {
+    long now = System.currentTimeMillis();
+    if (now - lastPurge < PURGE_INTERVAL) {
+      return;
+    }
+    synchronized (lock) {
+      if (now - lastPurge < PURGE_INTERVAL) {
+        return;
+      }
+      lastPurge = now;
+      if (timeout != null) {
+        index.entrySet().removeIf(it -> {
+          if (isExpired(it.getValue(), now)) {
+            liveBytes -= HEADER + it.getValue().size;
+            return true;
+          }
+          return false;
+        });
+      }
+      log.force();
+    }
+  }
+
+  private boolean isExpired(Entry entry, long now) {
+    return timeout != null && now - entry.lastAccessedTime > timeout.toMillis();
+  }
+
+  private long append(byte[] body) {
+    try {
+      return log.append(body, crc(body));
+    } catch (IOException x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+
+  private boolean sameContent(Entry entry, byte[] body) throws IOException {
+    if (entry.size != body.length) {
+      return false;
+    }
+    int offset = (int) (entry.position % SEGMENT_SIZE) + HEADER;
+    ByteBuffer record = entry.log.segment(entry.position).slice(offset, entry.size);
+    ByteBuffer expected = ByteBuffer.wrap(body);
+    // everything but last accessed time
+    return record.get(0) == expected.get(0)
+        && record.slice(CREATION_TIME, body.length - CREATION_TIME)
+        .equals(expected.slice(CREATION_TIME, body.length - CREATION_TIME));
+  }
+
+  /**
+   * Reads log from disk and rebuild the index. Log is truncated at first corrupted record.
+   */
+  private void load() throws IOException {
+    long now = System.currentTimeMillis();
+    long position = 0;
+    long size = (long) log.segments.size() * SEGMENT_SIZE;
+    while (position < size) {
+      int offset = (int) (position % SEGMENT_SIZE);
+      if (offset + HEADER > SEGMENT_SIZE) {
+        position += SEGMENT_SIZE - offset;
+        continue;
+      }
+      ByteBuffer segment = log.segment(position);
+      int length = segment.getInt(offset);
+      if (length == 0) {
+        break;
+      }
+      if (length == PADDING) {
+        position += SEGMENT_SIZE - offset;
+        continue;
+      }
+      if (length < 0 || offset + HEADER + length > SEGMENT_SIZE) {
+        truncate(position);
+        break;
+      }
+      byte[] bytes = log.read(position, length);
+      if (crc(bytes) != segment.getInt(offset + Integer.BYTES)) {
+        truncate(position);
+        break;
+      }
+      ByteBuffer body = ByteBuffer.wrap(bytes);
+      byte type = body.get();
+      long lastAccessedTime = body.getLong();
+      body.getLong();
+      String id = readString(body);
+      if (type == PUT) {
+        Entry entry = new Entry(log, position, length, lastAccessedTime);
+        if (isExpired(entry, now)) {
+          index.remove(id);
+        } else {
+          index.put(id, entry);
+        }
+      } else {
+        index.remove(id);
+      }
+      position += HEADER + length;
+    }
+    log.position = position;
+    liveBytes = index.values().stream().mapToLong(it -> HEADER + it.size).sum();
+  }
+
+  /**
+   * Discards everything from the given position.
+   */
+  private void truncate(long position) throws IOException {
+    int offset = (int) (position % SEGMENT_SIZE);
+    ByteBuffer segment = log.segment(position);
+    for (int i = offset; i < SEGMENT_SIZE; i++) {
+      segment.put(i, (byte) 0);
+    }
+    int keep = (int) (position / SEGMENT_SIZE) + 1;
+    while (log.segments.size() > keep) {
+      log.segments.remove(log.segments.size() - 1);
+    }
+    log.channel.truncate((long) keep * SEGMENT_SIZE);
+  }
+
+  /**
+   * Copies live records into a new file and replaces the current one.
+   */
+  private void compact() throws IOException {
+    Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+    Files.deleteIfExists(tmp);
+    Log compacted = new Log(tmp);
+    Map<String, Entry> entries = new ConcurrentHashMap<>();
+    for (Map.Entry<String, Entry> it : index.entrySet()) {
+      Entry entry = it.getValue();
+      byte[] body = entry.log.read(entry.position, entry.size);
+      long position = compacted.append(body, crc(body));
+      entries.put(it.getKey(), new Entry(compacted, position, entry.size, entry.lastAccessedTime));
+    }
+    compacted.force();
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    // readers holding entries of old log still read from old mapped segments
+    index.putAll(entries);
+    Log previous = log;
+    log = compacted;
+    liveBytes = compacted.position;
+    previous.close();
+  }
+
+  private Data decode(Entry entry) {
+    try {
+      ByteBuffer body = ByteBuffer.wrap(entry.log.read(entry.position, entry.size));
+      body.position(CREATION_TIME);
+      long creationTime = body.getLong();
+      readString(body);
+      int size = body.getInt();
+      Map<String, String> hash = new ConcurrentHashMap<>(Math.max(16, size * 2));
+      for (int i = 0; i < size; i++) {
+        hash.put(readString(body), readString(body));
+      }
+      return new Data(Instant.ofEpochMilli(creationTime),
+          Instant.ofEpochMilli(entry.lastAccessedTime), hash);
+    } catch (IOException x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+
+  private static byte[] encode(byte type, String id, long lastAccessedTime, long creationTime,
+      Map<?, ?> hash) {
+    byte[] sid = id.getBytes(StandardCharsets.UTF_8);
+    List<byte[]> values = new ArrayList<>();
+    int length = 1 + Long.BYTES * 2 + Integer.BYTES + sid.length + Integer.BYTES;
+    if (hash != null) {
+      for (Map.Entry<?, ?> e : hash.entrySet()) {
+        byte[] key = e.getKey().toString().getBytes(StandardCharsets.UTF_8);
+        byte[] value = e.getValue().toString().getBytes(StandardCharsets.UTF_8);
+        values.add(key);
+        values.add(value);
+        length += Integer.BYTES * 2 + key.length + value.length;
+      }
+    }
+    if (HEADER + length > SEGMENT_SIZE) {
+      throw new IllegalArgumentException("Session too large: " + length);
+    }
+    ByteBuffer body = ByteBuffer.allocate(length)
+        .put(type)
+        .putLong(lastAccessedTime)
+        .putLong(creationTime)
+        .putInt(sid.length)
+        .put(sid)
+        .putInt(values.size() / 2);
+    for (byte[] value : values) {
+      body.putInt(value.length).put(value);
+    }
+    return body.array();
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] value = new byte[buffer.getInt()];
+    buffer.get(value);
+    return new String(value, StandardCharsets.UTF_8);
+  }
+
+  private static int crc(byte[] body) {
+    CRC32 crc = new CRC32();
+    crc.update(body, 0, LAST_ACCESSED);
+    crc.update(body, CREATION_TIME, body.length - CREATION_TIME);
+    return (int) crc.getValue();
+  }
+}
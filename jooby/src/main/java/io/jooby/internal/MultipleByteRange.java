@@ -0,0 +1,357 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import io.jooby.ByteRange;
+import io.jooby.Context;
+import io.jooby.StatusCode;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Multiple byte range request, like: <code>bytes=0-100, 200-300</code>. Produces a
+ * <code>multipart/byteranges</code> response.
+ *
+ * Ranges must be sorted and must not overlap, so the content is read once from start to end.
+ *
+ * @since 3.0.0
+ * @author edgar
+ */
+public class MultipleByteRange implements ByteRange {
+
+  /** Streams parts: part header, content slice, next part header, ..., closing boundary. */
+  private class MultipartInputStream extends InputStream {
+    private final InputStream input;
+
+    /** Current part. Even: header, odd: content slice, last: closing boundary. */
+    private int part = -1;
+
+    private byte[] header;
+
+    private int headerOffset;
+
+    private long remaining;
+
+    /** Position of input. */
+    private long position;
+
+    MultipartInputStream(InputStream input) {
+      this.input = input;
+    }
+
+    @Override public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override public int read(byte[] b, int off, int len) throws IOException {
+      while (true) {
+        if (header != null) {
+          if (headerOffset < header.length) {
+            int count = Math.min(len, header.length - headerOffset);
+            System.arraycopy(header, headerOffset, b, off, count);
+            headerOffset += count;
+            return count;
+          }
+          header = null;
+        } else if (remaining > 0) {
+          int count = input.read(b, off, (int) Math.min(len, remaining));
+          if (count == -1) {
+            throw new IOException("Unexpected end of content at: " + position);
+          }
+          remaining -= count;
+          position += count;
+          return count;
+        }
+        if (!nextPart()) {
+          return -1;
+        }
+      }
+    }
+
+    private boolean nextPart() throws IOException {
+      part += 1;
+      int range = part / 2;
+      if (range > starts.length) {
+        return false;
+      }
+      if (range == starts.length) {
+        // closing boundary
+        if (part % 2 == 0) {
+          header = trailer;
+          headerOffset = 0;
+          return true;
+        }
+        return false;
+      }
+      if (part % 2 == 0) {
+        header = headers[range];
+        headerOffset = 0;
+      } else {
+        input.skipNBytes(starts[range] - position);
+        position = starts[range];
+        remaining = ends[range] - starts[range] + 1;
+      }
+      return true;
+    }
+
+    @Override public void close() throws IOException {
+      input.close();
+    }
+  }
+
+  /**
+   * Like {@link MultipartInputStream} but reads content slices from a file using positional
+   * reads: no skipping and no intermediate stream buffers.
+   */
+  private class MultipartChannel implements ReadableByteChannel {
+    private final FileChannel file;
+
+    private int part = -1;
+
+    private ByteBuffer header;
+
+    private long position;
+
+    private long remaining;
+
+    MultipartChannel(FileChannel file) {
+      this.file = file;
+    }
+
+    @Override public int read(ByteBuffer dst) throws IOException {
+      if (!dst.hasRemaining()) {
+        return 0;
+      }
+      while (true) {
+        if (header != null && header.hasRemaining()) {
+          int count = Math.min(dst.remaining(), header.remaining());
+          dst.put(header.slice().limit(count));
+          header.position(header.position() + count);
+          return count;
+        } else if (remaining > 0) {
+          ByteBuffer slice = dst;
+          if (dst.remaining() > remaining) {
+            slice = dst.slice().limit((int) remaining);
+          }
+          int count = file.read(slice, position);
+          if (count == -1) {
+            throw new IOException("Unexpected end of content at: " + position);
+          }
+          if (slice != dst) {
+            dst.position(dst.position() + count);
+          }
+          remaining -= count;
+          position += count;
+          return count;
+        }
+        part += 1;
+        if (part < starts.length) {
+          header = ByteBuffer.wrap(headers[part]);
+          position = starts[part];
+          remaining = ends[part] - starts[part] + 1;
+        } else if (part == starts.length) {
+          header = ByteBuffer.wrap(trailer);
+        } else {
+          return -1;
+        }
+      }
+    }
+
+    @Override public boolean isOpen() {
+      return file.isOpen();
+    }
+
+    @Override public void close() throws IOException {
+      file.close();
+    }
+  }
+
+  private final String value;
+
+  private final long[] starts;
+
+  private final long[] ends;
+
+  private final long size;
+
+  private final String boundary;
+
+  private byte[][] headers;
+
+  private byte[] trailer;
+
+  private long contentLength;
+
+  /**
+   * Creates a multiple byte range.
+   *
+   * @param value Byte range request value.
+   * @param starts Start of each range, sorted.
+   * @param ends End (inclusive) of each range.
+   * @param size Size of content.
+   */
+  public MultipleByteRange(String value, long[] starts, long[] ends, long size) {
+    this.value = value;
+    this.starts = starts;
+    this.ends = ends;
+    this.size = size;
+    this.boundary = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    parts("application/octet-stream");
+  }
+
+  /**
+   * Not a single slice of content.
+   *
+   * @return <code>-1</code>.
+   */
+  @Override public long getStart() {
+    return -1;
+  }
+
+  /**
+   * Not a single slice of content.
+   *
+   * @return <code>-1</code>.
+   */
+  @Override public long getEnd() {
+    return -1;
+  }
+
+  /**
+   * Length of multipart response.
+   *
+   * @return Length of multipart response.
+   */
+  @Override public long getContentLength() {
+    return contentLength;
+  }
+
+  @NonNull @Override public String getContentRange() {
+    return "bytes */" + size;
+  }
+
+  @NonNull @Override public StatusCode getStatusCode() {
+    return StatusCode.PARTIAL_CONTENT;
+  }
+
+  /**
+   * Set the following response headers:
+   *
+   *  - Accept-Ranges
+   *  - Content-Type: multipart/byteranges
+   *  - Content-Length
+   *
+   * Current response type is used as content type of each part.
+   *
+   * @param ctx Web context.
+   * @return This byte range request.
+   */
+  @NonNull @Override public ByteRange apply(@NonNull Context ctx) {
+    parts(ctx.getResponseType().toContentTypeHeader(null));
+    ctx.setResponseHeader("Accept-Ranges", "bytes");
+    ctx.setResponseType("multipart/byteranges; boundary=" + boundary);
+    ctx.setResponseLength(contentLength);
+    ctx.setResponseCode(StatusCode.PARTIAL_CONTENT);
+    return this;
+  }
+
+  /**
+   * Generates a multipart stream of the requested ranges. Given input stream is read once, from
+   * start to end.
+   *
+   * @param input Input stream.
+   * @return Multipart stream.
+   */
+  @NonNull @Override public InputStream apply(@NonNull InputStream input) {
+    return new MultipartInputStream(input);
+  }
+
+  /**
+   * Generates a multipart channel of the requested ranges. Content is read from the file using
+   * positional reads, the file position is not used.
+   *
+   * @param file File channel.
+   * @return Multipart channel.
+   */
+  public @NonNull ReadableByteChannel apply(@NonNull FileChannel file) {
+    return new MultipartChannel(file);
+  }
+
+  /**
+   * Number of parts (ranges).
+   *
+   * @return Number of parts.
+   */
+  public int getPartCount() {
+    return starts.length;
+  }
+
+  /**
+   * Boundary and headers of a part, written before the part content.
+   *
+   * @param index Part index.
+   * @return Part header.
+   */
+  public @NonNull byte[] getPartHeader(int index) {
+    return headers[index];
+  }
+
+  /**
+   * Content offset of a part.
+   *
+   * @param index Part index.
+   * @return Content offset.
+   */
+  public long getPartStart(int index) {
+    return starts[index];
+  }
+
+  /**
+   * Content length of a part.
+   *
+   * @param index Part index.
+   * @return Content length.
+   */
+  public long getPartLength(int index) {
+    return ends[index] - starts[index] + 1;
+  }
+
+  /**
+   * Closing boundary, written after the last part.
+   *
+   * @return Closing boundary.
+   */
+  public @NonNull byte[] getTrailer() {
+    return trailer;
+  }
+
+  @Override public String toString() {
+    return value;
+  }
+
+  private void parts(String contentType) {
+    headers = new byte[starts.length][];
+    long length = 0;
+    for (int i = 0; i < starts.length; i++) {
+      String header = (i == 0 ? "" : "\r\n") + "--" + boundary + "\r\n"
+          + "Content-Type: " + contentType + "\r\n"
+          + "Content-Range: bytes " + starts[i] + "-" + ends[i] + "/" + size + "\r\n"
+          + "\r\n";
+      headers[i] = header.getBytes(StandardCharsets.US_ASCII);
+      length += headers[i].length + ends[i] - starts[i] + 1;
+    }
+    trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    contentLength = length + trailer.length;
+  }
+}
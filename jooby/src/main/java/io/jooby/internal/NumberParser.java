@@ -0,0 +1,144 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+/**
+ * Validate number literals before handing them to the JDK parsers. Callers use these checks to
+ * avoid {@link NumberFormatException} (and its stack trace) as control flow: a <code>true</code>
+ * answer guarantees the matching <code>parseXxx</code> call succeeds, a <code>false</code> answer
+ * means the value must go through the slow (throwing) path, which still reports the real error.
+ *
+ * Only plain ASCII decimal literals are recognized here.
+ */
+public final class NumberParser {
+
+  private NumberParser() {
+  }
+
+  /**
+   * True when {@link Long#parseLong(String)} succeeds for the given value.
+   *
+   * @param value Value to check.
+   * @return True when {@link Long#parseLong(String)} succeeds for the given value.
+   */
+  public static boolean isLong(String value) {
+    return isInteger(value, Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  /**
+   * True when {@link Integer#parseInt(String)} succeeds for the given value.
+   *
+   * @param value Value to check.
+   * @return True when {@link Integer#parseInt(String)} succeeds for the given value.
+   */
+  public static boolean isInt(String value) {
+    return isInteger(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * True when {@link Byte#parseByte(String)} succeeds for the given value.
+   *
+   * @param value Value to check.
+   * @return True when {@link Byte#parseByte(String)} succeeds for the given value.
+   */
+  public static boolean isByte(String value) {
+    return isInteger(value, Byte.MIN_VALUE, Byte.MAX_VALUE);
+  }
+
+  /**
+   * True when the value is a plain decimal literal: <code>[+-]digits[.digits][(e|E)[+-]digits]</code>
+   * accepted by {@link Double#parseDouble(String)} and {@link Float#parseFloat(String)}. Special
+   * forms (NaN, Infinity, hexadecimal, type suffix, surrounding whitespace) answer
+   * <code>false</code>.
+   *
+   * @param value Value to check.
+   * @return True for plain decimal literals.
+   */
+  public static boolean isDecimal(String value) {
+    if (value == null) {
+      return false;
+    }
+    int len = value.length();
+    int i = 0;
+    if (i < len && isSign(value.charAt(i))) {
+      i += 1;
+    }
+    int digits = 0;
+    while (i < len && isDigit(value.charAt(i))) {
+      i += 1;
+      digits += 1;
+    }
+    if (i < len && value.charAt(i) == '.') {
+      i += 1;
+      while (i < len && isDigit(value.charAt(i))) {
+        i += 1;
+        digits += 1;
+      }
+    }
+    if (digits == 0) {
+      return false;
+    }
+    if (i < len && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+      i += 1;
+      if (i < len && isSign(value.charAt(i))) {
+        i += 1;
+      }
+      int exponent = i;
+      while (i < len && isDigit(value.charAt(i))) {
+        i += 1;
+      }
+      if (exponent == i) {
+        return false;
+      }
+    }
+    return i == len;
+  }
+
+  private static boolean isInteger(String value, long min, long max) {
+    if (value == null) {
+      return false;
+    }
+    int len = value.length();
+    if (len == 0) {
+      return false;
+    }
+    int i = 0;
+    boolean negative = false;
+    char first = value.charAt(0);
+    if (isSign(first)) {
+      if (len == 1) {
+        return false;
+      }
+      negative = first == '-';
+      i = 1;
+    }
+    // Accumulate negatively, like the JDK does, so MIN_VALUE doesn't overflow
+    long limit = negative ? min : -max;
+    long multmin = limit / 10;
+    long result = 0;
+    while (i < len) {
+      char ch = value.charAt(i++);
+      if (!isDigit(ch) || result < multmin) {
+        return false;
+      }
+      result *= 10;
+      int digit = ch - '0';
+      if (result < limit + digit) {
+        return false;
+      }
+      result -= digit;
+    }
+    return true;
+  }
+
+  private static boolean isSign(char ch) {
+    return ch == '-' || ch == '+';
+  }
+
+  private static boolean isDigit(char ch) {
+    return ch >= '0' && ch <= '9';
+  }
+}
@@ -6,7 +6,6 @@
 package io.jooby.internal;
 
 import io.jooby.Context;
-import io.jooby.MessageEncoder;
 import io.jooby.Route;
 import io.jooby.Router;
 
@@ -15,7 +14,6 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 public class RouterMatch implements Router.Match {
 
@@ -53,13 +51,28 @@ public class RouterMatch implements Router.Match {
     vars.remove(vars.size() - 1);
   }
 
-  public void methodNotAllowed(Set<String> allow) {
-    String allowString = allow.stream().collect(Collectors.joining(","));
+  public void methodNotAllowed(Route.Handler handler) {
+    this.handler = handler;
+  }
+
+  public Route.Handler methodNotAllowed() {
+    return handler;
+  }
+
+  /**
+   * Handler for 405 responses. Callers cache it per route tree node, it doesn't change between
+   * requests.
+   *
+   * @param allow Allowed methods.
+   * @return Handler for 405 responses.
+   */
+  public static Route.Handler methodNotAllowed(Set<String> allow) {
+    String allowString = String.join(",", allow);
     Route.Decorator decorator = next -> ctx -> {
       ctx.setResponseHeader("Allow", allowString);
       return next.apply(ctx);
     };
-    handler = decorator.then(Route.METHOD_NOT_ALLOWED);
+    return decorator.then(Route.METHOD_NOT_ALLOWED);
   }
 
   @Override public boolean matches() {
@@ -94,16 +107,15 @@ public class RouterMatch implements Router.Match {
     }
   }
 
-  public RouterMatch missing(String method, String path, MessageEncoder encoder) {
-    Route.Handler h;
-    if (this.handler == null) {
-      h = path.endsWith("/favicon.ico") ? Route.FAVICON : Route.NOT_FOUND;
-    } else {
-      h = this.handler;
-    }
-    this.route = new Route(method, path, h);
-    this.route.setEncoder(encoder);
-    this.route.setReturnType(Context.class);
+  /**
+   * Set the route for missing (404/405) responses. Missing routes are shared between requests,
+   * their handlers read the request method and path from the context.
+   *
+   * @param route Missing route.
+   * @return This match.
+   */
+  public RouterMatch missing(Route route) {
+    this.route = route;
     return this;
   }
 }
@@ -0,0 +1,116 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.jooby.Context;
+import io.jooby.FileDownload;
+import io.jooby.MediaType;
+import io.jooby.StatusCode;
+
+/**
+ * Request identity and response checks for handlers that share an encoded response between
+ * requests: {@link io.jooby.ResponseCacheHandler} and {@link io.jooby.SingleFlightHandler}.
+ */
+public final class SharedResponse {
+
+  private static final String[] ASYNC_TYPES = {"io.reactivex.", "reactor.core.publisher.",
+      "kotlinx.coroutines.", "kotlin.coroutines.", "org.reactivestreams."};
+
+  private SharedResponse() {
+  }
+
+  /**
+   * Build a request key from HTTP method, path, query parameters, the given headers and the
+   * negotiated content type.
+   *
+   * @param ctx Web context.
+   * @param queryParameters Query parameters to use or <code>null</code> for the entire query
+   *     string.
+   * @param headers Request headers to use.
+   * @return Request key.
+   */
+  public static @NonNull String key(@NonNull Context ctx, @Nullable List<String> queryParameters,
+      @NonNull List<String> headers) {
+    StringBuilder key = new StringBuilder();
+    key.append(ctx.getMethod()).append(' ').append(ctx.getRequestPath());
+    if (queryParameters == null) {
+      key.append(ctx.queryString());
+    } else {
+      for (String name : queryParameters) {
+        key.append('&').append(name).append('=').append(ctx.query(name).toList());
+      }
+    }
+    for (String header : headers) {
+      key.append('\n').append(header).append(':').append(ctx.header(header).toList());
+    }
+    List<MediaType> produces = ctx.getRoute().getProduces();
+    key.append('\n');
+    if (produces.isEmpty()) {
+      key.append(ctx.header("Accept").value(""));
+    } else {
+      key.append(ctx.accept(produces));
+    }
+    return key.toString();
+  }
+
+  /**
+   * True when the route encoder turns the value into bytes that can be sent to other requests.
+   * False for non <code>200</code> responses, values sent directly by the encoder (files,
+   * streams, etc.) and async values.
+   *
+   * @param ctx Web context.
+   * @param value Route handler result.
+   * @return True when the value can be encoded and shared.
+   */
+  public static boolean isEncodable(@NonNull Context ctx, @Nullable Object value) {
+    return value != null
+        && !ctx.isResponseStarted()
+        && ctx.getResponseCode() == StatusCode.OK
+        && !isSentDirectly(value)
+        && !isAsync(value.getClass());
+  }
+
+  private static boolean isSentDirectly(Object value) {
+    return value instanceof Context
+        || value instanceof StatusCode
+        || value instanceof InputStream
+        || value instanceof ReadableByteChannel
+        || value instanceof ByteBuffer
+        || value instanceof File
+        || value instanceof Path
+        || value instanceof FileDownload;
+  }
+
+  /**
+   * True for {@link CompletionStage} and reactive types (RxJava, Reactor, Kotlin coroutines,
+   * reactive streams).
+   *
+   * @param type Value type.
+   * @return True for async types.
+   */
+  public static boolean isAsync(@NonNull Class<?> type) {
+    if (CompletionStage.class.isAssignableFrom(type)) {
+      return true;
+    }
+    String name = type.getName();
+    for (String prefix : ASYNC_TYPES) {
+      if (name.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Generates URL safe random tokens. Each thread has its own {@link SecureRandom}, so threads don't
+ * compete for a shared generator (default generator on Linux, NativePRNG, serializes all
+ * instances on a global lock; DRBG instances are independent).
+ *
+ * Generators are reseeded after {@link #RESEED} tokens.
+ */
+public final class TokenGenerator {
+
+  private static final int RESEED = 1 << 16;
+
+  private static final byte[] ALPHABET =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+          .getBytes(StandardCharsets.US_ASCII);
+
+  private static final ThreadLocal<TokenGenerator> GENERATOR =
+      ThreadLocal.withInitial(TokenGenerator::new);
+
+  private SecureRandom random = newSecureRandom();
+
+  private int count;
+
+  private byte[] bytes = new byte[0];
+
+  private byte[] chars = new byte[0];
+
+  private TokenGenerator() {
+  }
+
+  /**
+   * Creates a new token: <code>size</code> random bytes encoded as URL safe base64 without
+   * padding.
+   *
+   * @param size Number of random bytes.
+   * @return A new token.
+   */
+  public static String newToken(int size) {
+    return GENERATOR.get().next(size);
+  }
+
+  private String next(int size) {
+    if (++count > RESEED) {
+      count = 0;
+      reseed();
+    }
+    if (bytes.length != size) {
+      bytes = new byte[size];
+      chars = new byte[(size * 4 + 2) / 3];
+    }
+    random.nextBytes(bytes);
+    int len = encode(bytes, chars);
+    return new String(chars, 0, len, StandardCharsets.US_ASCII);
+  }
+
+  private void reseed() {
+    try {
+      random.reseed();
+    } catch (UnsupportedOperationException x) {
+      random = newSecureRandom();
+    }
+  }
+
+  /**
+   * URL safe base64 without padding.
+   */
+  private static int encode(byte[] src, byte[] dst) {
+    int d = 0;
+    int s = 0;
+    int end = src.length - src.length % 3;
+    while (s < end) {
+      int bits = (src[s++] & 0xff) << 16 | (src[s++] & 0xff) << 8 | (src[s++] & 0xff);
+      dst[d++] = ALPHABET[(bits >>> 18) & 0x3f];
+      dst[d++] = ALPHABET[(bits >>> 12) & 0x3f];
+      dst[d++] = ALPHABET[(bits >>> 6) & 0x3f];
+      dst[d++] = ALPHABET[bits & 0x3f];
+    }
+    int remaining = src.length - end;
+    if (remaining > 0) {
+      int bits = (src[s++] & 0xff) << 16;
+      if (remaining == 2) {
+        bits |= (src[s] & 0xff) << 8;
+      }
+      dst[d++] = ALPHABET[(bits >>> 18) & 0x3f];
+      dst[d++] = ALPHABET[(bits >>> 12) & 0x3f];
+      if (remaining == 2) {
+        dst[d++] = ALPHABET[(bits >>> 6) & 0x3f];
+      }
+    }
+    return d;
+  }
+
+  private static SecureRandom newSecureRandom() {
+    try {
+      return SecureRandom.getInstance("DRBG");
+    } catch (NoSuchAlgorithmException x) {
+      return new SecureRandom();
+    }
+  }
+}
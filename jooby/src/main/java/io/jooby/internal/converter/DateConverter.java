@@ -7,6 +7,7 @@ package io.jooby.internal.converter;
 
 import io.jooby.Value;
 import io.jooby.ValueConverter;
+import io.jooby.internal.NumberParser;
 
 import java.time.LocalDate;
 import java.time.ZoneId;
@@ -19,13 +20,13 @@ public class DateConverter implements ValueConverter {
   }
 
   @Override public Object convert(Value value, Class type) {
-    try {
+    String string = value.value();
+    if (NumberParser.isLong(string)) {
       // must be millis
-      return new Date(Long.parseLong(value.value()));
-    } catch (NumberFormatException x) {
-      // must be YYYY-MM-dd
-      LocalDate date = LocalDate.parse(value.value(), DateTimeFormatter.ISO_LOCAL_DATE);
-      return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+      return new Date(Long.parseLong(string));
     }
+    // must be YYYY-MM-dd
+    LocalDate date = LocalDate.parse(string, DateTimeFormatter.ISO_LOCAL_DATE);
+    return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
   }
 }
@@ -7,6 +7,7 @@ package io.jooby.internal.converter;
 
 import io.jooby.Value;
 import io.jooby.ValueConverter;
+import io.jooby.internal.NumberParser;
 
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
@@ -17,10 +18,10 @@ public class InstantConverter implements ValueConverter {
   }
 
   @Override public Object convert(Value value, Class type) {
-    try {
-      return Instant.ofEpochMilli(Long.parseLong(value.value()));
-    } catch (NumberFormatException x) {
-      return DateTimeFormatter.ISO_INSTANT.parse(value.value(), Instant::from);
+    String string = value.value();
+    if (NumberParser.isLong(string)) {
+      return Instant.ofEpochMilli(Long.parseLong(string));
     }
+    return DateTimeFormatter.ISO_INSTANT.parse(string, Instant::from);
   }
 }
@@ -7,6 +7,7 @@ package io.jooby.internal.converter;
 
 import io.jooby.Value;
 import io.jooby.ValueConverter;
+import io.jooby.internal.NumberParser;
 
 import java.time.Instant;
 import java.time.LocalDate;
@@ -19,13 +20,13 @@ public class LocalDateConverter implements ValueConverter {
   }
 
   @Override public Object convert(Value value, Class type) {
-    try {
+    String string = value.value();
+    if (NumberParser.isLong(string)) {
       // must be millis
-      Instant instant = Instant.ofEpochMilli(Long.parseLong(value.value()));
+      Instant instant = Instant.ofEpochMilli(Long.parseLong(string));
       return instant.atZone(ZoneId.systemDefault()).toLocalDate();
-    } catch (NumberFormatException x) {
-      // must be YYYY-MM-dd
-      return LocalDate.parse(value.value(), DateTimeFormatter.ISO_LOCAL_DATE);
     }
+    // must be YYYY-MM-dd
+    return LocalDate.parse(string, DateTimeFormatter.ISO_LOCAL_DATE);
   }
 }
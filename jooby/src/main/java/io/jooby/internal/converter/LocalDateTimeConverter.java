@@ -7,6 +7,7 @@ package io.jooby.internal.converter;
 
 import io.jooby.Value;
 import io.jooby.ValueConverter;
+import io.jooby.internal.NumberParser;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -19,12 +20,12 @@ public class LocalDateTimeConverter implements ValueConverter {
   }
 
   @Override public Object convert(Value value, Class type) {
-    try {
+    String string = value.value();
+    if (NumberParser.isLong(string)) {
       // must be millis
-      Instant instant = Instant.ofEpochMilli(Long.parseLong(value.value()));
+      Instant instant = Instant.ofEpochMilli(Long.parseLong(string));
       return instant.atZone(ZoneId.systemDefault()).toLocalDateTime();
-    } catch (NumberFormatException x) {
-      return LocalDateTime.parse(value.value(), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
     }
+    return LocalDateTime.parse(string, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
   }
 }
@@ -2,6 +2,9 @@ package io.jooby;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.function.Consumer;
 
 import static io.jooby.StatusCode.PARTIAL_CONTENT;
@@ -57,12 +60,70 @@ public class ByteRangeTest {
       assertEquals("bytes 101-199/200", range.getContentRange());
     });
 
-    // 100-150 is ignored.
     range("bytes=0-50, 100-150", 200, range -> {
       assertEquals(PARTIAL_CONTENT, range.getStatusCode());
+      assertEquals(-1, range.getStart());
+      assertEquals(-1, range.getEnd());
+    });
+
+    // overlapping/adjacent ranges are merged
+    range("bytes=0-50, 40-99, 100-120", 200, range -> {
+      assertEquals(PARTIAL_CONTENT, range.getStatusCode());
+      assertEquals(0, range.getStart());
+      assertEquals(121, range.getEnd());
+      assertEquals("bytes 0-120/200", range.getContentRange());
+    });
+
+    // not satisfiable ranges are ignored
+    range("bytes=0-9, 500-600", 200, range -> {
       assertEquals(0, range.getStart());
-      assertEquals(51, range.getEnd());
-      assertEquals("bytes 0-50/200", range.getContentRange());
+      assertEquals(10, range.getEnd());
+    });
+
+    range("bytes=-300", 200, range -> {
+      assertEquals(0, range.getStart());
+      assertEquals(200, range.getEnd());
+      assertEquals("bytes 0-199/200", range.getContentRange());
+    });
+  }
+
+  @Test
+  public void multipleByteRange() throws IOException {
+    byte[] content = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+    ByteRange range = ByteRange.parse("bytes=15-, 0-2, 5-6", content.length);
+    assertEquals(PARTIAL_CONTENT, range.getStatusCode());
+
+    String body = new String(range.apply(new ByteArrayInputStream(content)).readAllBytes(),
+        StandardCharsets.US_ASCII);
+    assertEquals(range.getContentLength(), body.length());
+
+    String boundary = body.substring(2, body.indexOf("\r\n"));
+    assertEquals("--" + boundary + "\r\n"
+        + "Content-Type: application/octet-stream\r\n"
+        + "Content-Range: bytes 0-2/20\r\n"
+        + "\r\n"
+        + "012\r\n"
+        + "--" + boundary + "\r\n"
+        + "Content-Type: application/octet-stream\r\n"
+        + "Content-Range: bytes 5-6/20\r\n"
+        + "\r\n"
+        + "56\r\n"
+        + "--" + boundary + "\r\n"
+        + "Content-Type: application/octet-stream\r\n"
+        + "Content-Range: bytes 15-19/20\r\n"
+        + "\r\n"
+        + "fghij\r\n"
+        + "--" + boundary + "--\r\n", body);
+  }
+
+  @Test
+  public void tooManyRanges() {
+    StringBuilder value = new StringBuilder("bytes=");
+    for (int i = 0; i <= ByteRange.MAX_RANGES; i++) {
+      value.append(i * 10).append("-").append(i * 10 + 1).append(",");
+    }
+    range(value.toString(), 1000, range -> {
+      assertEquals(StatusCode.OK, range.getStatusCode());
     });
   }
 
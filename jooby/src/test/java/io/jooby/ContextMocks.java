@@ -0,0 +1,65 @@
+package io.jooby;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mocked contexts for handler and decorator tests.
+ */
+public class ContextMocks {
+
+  /**
+   * Mock a request with a route that encodes values with <code>toString</code>, a
+   * <code>200</code> response code, a <code>json</code> response type and no headers. Router runs
+   * worker tasks in the caller thread.
+   *
+   * @param method HTTP method.
+   * @param path Request path.
+   * @return Mocked context.
+   */
+  public static Context request(String method, String path) {
+    Route route = mock(Route.class);
+    when(route.getProduces()).thenReturn(Collections.emptyList());
+    when(route.getEncoder())
+        .thenReturn((ctx, value) -> value.toString().getBytes(StandardCharsets.UTF_8));
+
+    Router router = mock(Router.class);
+    when(router.getWorker()).thenReturn(Runnable::run);
+
+    Context ctx = mock(Context.class);
+    when(ctx.getMethod()).thenReturn(method);
+    when(ctx.getRequestPath()).thenReturn(path);
+    when(ctx.queryString()).thenReturn("");
+    when(ctx.getRoute()).thenReturn(route);
+    when(ctx.getRouter()).thenReturn(router);
+    when(ctx.getResponseCode()).thenReturn(StatusCode.OK);
+    when(ctx.getResponseType()).thenReturn(MediaType.json);
+    when(ctx.header(anyString()))
+        .then(invocation -> Value.missing(invocation.getArgument(0)));
+    return ctx;
+  }
+
+  /**
+   * Back {@link Context#getAttributes()} and {@link Context#attribute(String, Object)} with a
+   * mutable map.
+   *
+   * @param ctx Mocked context.
+   * @return Same context.
+   */
+  public static Context attributes(Context ctx) {
+    Map<String, Object> attributes = new HashMap<>();
+    when(ctx.getAttributes()).thenReturn(attributes);
+    when(ctx.attribute(anyString(), any())).then(invocation -> {
+      attributes.put(invocation.getArgument(0), invocation.getArgument(1));
+      return ctx;
+    });
+    return ctx;
+  }
+}
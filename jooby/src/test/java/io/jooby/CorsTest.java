@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
 import java.util.function.Consumer;
 
 import static com.typesafe.config.ConfigValueFactory.fromAnyRef;
@@ -62,6 +63,36 @@ public class CorsTest {
     });
   }
 
+  @Test
+  public void compiledOrigin() {
+    List<String> origin = asList("http://foo.com", "https://*.bar.com", "http://[a-z]+.baz.com");
+    cors(baseconf().withValue("origin", fromAnyRef(origin)), cors -> {
+      assertEquals(false, cors.anyOrigin());
+      assertEquals(true, cors.allowOrigin("http://foo.com"));
+      assertEquals(true, cors.allowOrigin("HTTP://FOO.COM"));
+      assertEquals(false, cors.allowOrigin("http://fooxcom"));
+      assertEquals(true, cors.allowOrigin("https://api.bar.com"));
+      // cached decision
+      assertEquals(true, cors.allowOrigin("https://api.bar.com"));
+      assertEquals(false, cors.allowOrigin("http://api.bar.com"));
+      assertEquals(true, cors.allowOrigin("http://abc.baz.com"));
+      assertEquals(false, cors.allowOrigin("http://123.baz.com"));
+      assertEquals(false, cors.allowOrigin("http://123.baz.com"));
+    });
+  }
+
+  @Test
+  public void headerValues() {
+    Cors cors = new Cors()
+        .setMethods("GET", "POST", "PUT")
+        .setHeaders("Accept", "Content-Type")
+        .setExposedHeaders("X-A", "X-B");
+    assertEquals("GET,POST,PUT", cors.getMethodsHeader());
+    assertEquals("Accept,Content-Type", cors.getHeadersHeader());
+    assertEquals("X-A,X-B", cors.getExposedHeadersHeader());
+    assertEquals(null, cors.setExposedHeaders().getExposedHeadersHeader());
+  }
+
   @Test
   public void allowedMethods() {
     cors(baseconf().withValue("methods", fromAnyRef("GET")), cors -> {
@@ -0,0 +1,133 @@
+package io.jooby;
+
+import io.jooby.exception.StatusCodeException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class DeadlineHandlerTest {
+
+  @Test
+  public void routeTimeout() throws Exception {
+    Context ctx = context("2m");
+    Route.Handler handler = new DeadlineHandler(Duration.ofSeconds(1)).apply(c -> {
+      Deadline deadline = c.getDeadline();
+      assertNotNull(deadline);
+      assertSame(deadline, Deadline.current());
+      assertTrue(deadline.getRemaining().compareTo(Duration.ofMinutes(1)) > 0);
+      assertEquals(120, deadline.getRemainingSeconds());
+      return "OK";
+    });
+
+    assertEquals("OK", handler.apply(ctx));
+    assertNull(Deadline.current());
+    // completed deadline can't be cancelled
+    Deadline.cancel(ctx);
+    assertFalse(ctx.getDeadline().isCancelled());
+  }
+
+  @Test
+  public void noTimeout() throws Exception {
+    Route.Handler handler = new DeadlineHandler().apply(c -> {
+      assertNull(c.getDeadline());
+      return "OK";
+    });
+
+    assertEquals("OK", handler.apply(context(null)));
+  }
+
+  @Test
+  public void interruptOnTimeout() {
+    Route.Handler handler = new DeadlineHandler(Duration.ofMillis(50))
+        .setInterrupt(true)
+        .apply(c -> {
+          Thread.sleep(5000);
+          return "OK";
+        });
+
+    StatusCodeException x = assertThrows(StatusCodeException.class,
+        () -> handler.apply(context(null)));
+    assertEquals(StatusCode.GATEWAY_TIMEOUT, x.getStatusCode());
+    assertTrue(x.getCause() instanceof InterruptedException);
+    assertFalse(Thread.currentThread().isInterrupted());
+  }
+
+  @Test
+  public void cancelOnDisconnect() throws Exception {
+    Context ctx = context(null);
+    CountDownLatch cancelled = new CountDownLatch(1);
+    Route.Handler handler = new DeadlineHandler(Duration.ofMinutes(1)).apply(c -> {
+      c.getDeadline().onCancel(cancelled::countDown);
+      // server IO thread
+      new Thread(() -> Deadline.cancel(c)).start();
+      assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+      c.getDeadline().check();
+      return "OK";
+    });
+
+    StatusCodeException x = assertThrows(StatusCodeException.class, () -> handler.apply(ctx));
+    assertEquals(StatusCode.GATEWAY_TIMEOUT, x.getStatusCode());
+  }
+
+  @Test
+  public void asyncTimeout() throws Exception {
+    Route.Handler handler = new DeadlineHandler(Duration.ofMillis(50))
+        .apply(c -> new CompletableFuture<>());
+
+    CompletableFuture<?> response = ((CompletionStage<?>) handler.apply(context(null)))
+        .toCompletableFuture();
+    ExecutionException x = assertThrows(ExecutionException.class,
+        () -> response.get(5, TimeUnit.SECONDS));
+    assertEquals(StatusCode.GATEWAY_TIMEOUT, ((StatusCodeException) x.getCause()).getStatusCode());
+  }
+
+  @Test
+  public void outerDeadlineExceeded() {
+    Context ctx = context(null);
+    ctx.getAttributes().put(Deadline.KEY, Deadline.of(Duration.ZERO));
+    Route.Handler handler = new DeadlineHandler(Duration.ofMinutes(1)).apply(c -> "OK");
+
+    StatusCodeException x = assertThrows(StatusCodeException.class, () -> handler.apply(ctx));
+    assertEquals(StatusCode.SERVICE_UNAVAILABLE, x.getStatusCode());
+  }
+
+  @Test
+  public void neverInterruptAfterCompletion() throws Exception {
+    Route.Handler handler = new DeadlineHandler(Duration.ofNanos(1000))
+        .setInterrupt(true)
+        .apply(c -> "OK");
+
+    Context ctx = context(null);
+    for (int i = 0; i < 10_000; i++) {
+      ctx.getAttributes().clear();
+      try {
+        handler.apply(ctx);
+      } catch (StatusCodeException x) {
+        // deadline reached before handler completed
+        assertEquals(StatusCode.GATEWAY_TIMEOUT, x.getStatusCode());
+      }
+      assertFalse(Thread.interrupted(), "interrupted after completion at: " + i);
+    }
+  }
+
+  private Context context(String timeout) {
+    Context ctx = ContextMocks.attributes(ContextMocks.request(Router.GET, "/"));
+    when(ctx.getRoute().attribute(DeadlineHandler.TIMEOUT)).thenReturn(timeout);
+    when(ctx.getDeadline()).thenCallRealMethod();
+    return ctx;
+  }
+}
@@ -3,8 +3,12 @@ package io.jooby;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -45,4 +49,16 @@ public class DefaultContextTest {
   public void getRequestURL_withCustomPathWithoutQueryString() {
     assertEquals("https://some-host/my-path", ctx.getRequestURL("/my-path"));
   }
+
+  @Test
+  public void cookie() {
+    when(ctx.header("Cookie")).thenReturn(
+        Value.create(ctx, "Cookie", Arrays.asList("a=1; b=\"2\"", "a=3; c=4")));
+    when(ctx.cookie(anyString())).thenCallRealMethod();
+
+    assertEquals("1", ctx.cookie("a").value());
+    assertEquals("2", ctx.cookie("b").value());
+    assertEquals("4", ctx.cookie("c").value());
+    assertTrue(ctx.cookie("d").isMissing());
+  }
 }
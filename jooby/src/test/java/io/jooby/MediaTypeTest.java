@@ -2,16 +2,33 @@ package io.jooby;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MediaTypeTest {
 
+  @Test
+  public void contentTypeHeader() {
+    assertEquals("application/json;charset=UTF-8", MediaType.json.toContentTypeHeader(null));
+    assertSame(MediaType.json.toContentTypeHeader(null), MediaType.json.toContentTypeHeader(null));
+    assertEquals("application/json;charset=UTF-8",
+        MediaType.json.toContentTypeHeader(StandardCharsets.UTF_8));
+    assertSame(MediaType.json.toContentTypeHeader(StandardCharsets.UTF_8),
+        MediaType.json.toContentTypeHeader(StandardCharsets.UTF_8));
+    assertEquals("application/json;charset=ISO-8859-1",
+        MediaType.json.toContentTypeHeader(StandardCharsets.ISO_8859_1));
+    assertEquals("application/octet-stream", MediaType.octetStream.toContentTypeHeader(null));
+    assertEquals("text/plain;charset=ISO-8859-1",
+        MediaType.valueOf("text/plain;charset=ISO-8859-1").toContentTypeHeader(null));
+  }
+
   @Test
   public void json() {
     MediaType type = MediaType.json;
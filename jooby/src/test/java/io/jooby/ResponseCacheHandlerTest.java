@@ -0,0 +1,132 @@
+package io.jooby;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ResponseCacheHandlerTest {
+
+  @Test
+  public void cacheResponse() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    ResponseCacheHandler cache = new ResponseCacheHandler(Duration.ofMinutes(1));
+    Route.Handler handler = cache.apply(ctx -> "Hello " + calls.incrementAndGet());
+
+    Context ctx1 = context(Router.GET, null, null);
+    handler.apply(ctx1);
+    Context ctx2 = context(Router.GET, null, null);
+    handler.apply(ctx2);
+
+    assertEquals(1, calls.get());
+    byte[] bytes = "Hello 1".getBytes(StandardCharsets.UTF_8);
+    verify(ctx1).send(bytes);
+    verify(ctx2).send(bytes);
+    verify(ctx2).setResponseType(MediaType.json);
+    assertEquals(bytes.length, cache.getSize());
+  }
+
+  @Test
+  public void ifNoneMatch() throws Exception {
+    ResponseCacheHandler cache = new ResponseCacheHandler(Duration.ofMinutes(1));
+    Route.Handler handler = cache.apply(ctx -> "Hello");
+
+    Context ctx = context(Router.GET, null, null);
+    handler.apply(ctx);
+    ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+    verify(ctx).setResponseHeader(eq("ETag"), etag.capture());
+    assertTrue(etag.getValue().startsWith("\""));
+
+    Context conditional = context(Router.GET, "W/" + etag.getValue(), null);
+    handler.apply(conditional);
+    verify(conditional).send(StatusCode.NOT_MODIFIED);
+  }
+
+  @Test
+  public void invalidateByTag() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    ResponseCacheHandler cache = new ResponseCacheHandler(Duration.ofMinutes(1));
+    Route.Handler handler = cache.apply(ctx -> "Hello " + calls.incrementAndGet());
+
+    handler.apply(context(Router.GET, null, Set.of("products")));
+    handler.apply(context(Router.GET, null, Set.of("products")));
+    assertEquals(1, calls.get());
+
+    cache.invalidate("orders");
+    handler.apply(context(Router.GET, null, Set.of("products")));
+    assertEquals(1, calls.get());
+
+    cache.invalidate("products");
+    assertEquals(0, cache.getSize());
+    handler.apply(context(Router.GET, null, Set.of("products")));
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void ignoreNonGetRequests() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    ResponseCacheHandler cache = new ResponseCacheHandler(Duration.ofMinutes(1));
+    Route.Handler handler = cache.apply(ctx -> "Hello " + calls.incrementAndGet());
+
+    assertEquals("Hello 1", handler.apply(context(Router.POST, null, null)));
+    assertEquals("Hello 2", handler.apply(context(Router.POST, null, null)));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void waitIsBounded() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    ResponseCacheHandler cache = new ResponseCacheHandler(Duration.ofMinutes(1))
+        .setWaitTimeout(Duration.ofMillis(50));
+    Route.Handler handler = cache.apply(ctx -> {
+      if (calls.incrementAndGet() == 1) {
+        started.countDown();
+        release.await();
+      }
+      return "Hello";
+    });
+
+    Thread leader = new Thread(() -> {
+      try {
+        handler.apply(context(Router.GET, null, null));
+      } catch (Exception x) {
+        throw SneakyThrows.propagate(x);
+      }
+    });
+    leader.start();
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    // leader is still running, follower gives up waiting and runs the handler like an uncached
+    // route: the route result is returned as is
+    Context follower = context(Router.GET, null, null);
+    assertEquals("Hello", handler.apply(follower));
+    assertEquals(2, calls.get());
+    verify(follower, never()).send(any(byte[].class));
+
+    release.countDown();
+    leader.join();
+  }
+
+  private Context context(String method, String ifNoneMatch, Set<String> tags) {
+    Context ctx = ContextMocks.request(method, "/products");
+    when(ctx.header("If-None-Match"))
+        .thenReturn(Value.create(ctx, "If-None-Match", ifNoneMatch));
+    when(ctx.attribute(ResponseCacheHandler.class.getName() + ".tags")).thenReturn(tags);
+    return ctx;
+  }
+}
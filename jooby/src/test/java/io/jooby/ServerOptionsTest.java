@@ -3,8 +3,11 @@ package io.jooby;
 import com.typesafe.config.ConfigFactory;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+
 import static com.typesafe.config.ConfigValueFactory.fromAnyRef;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class ServerOptionsTest {
 
@@ -23,6 +26,10 @@ public class ServerOptionsTest {
         .withValue("server.workerThreads", fromAnyRef(32))
         .withValue("server.host", fromAnyRef("0.0.0.0"))
         .withValue("server.httpsOnly", fromAnyRef(true))
+        .withValue("server.contextRecycling", fromAnyRef(true))
+        .withValue("server.transport", fromAnyRef("io_uring"))
+        .withValue("server.reusePort", fromAnyRef(true))
+        .withValue("server.cpuAffinity", fromAnyRef(true))
         .resolve()
     ).get();
     assertEquals(9090, options.getPort());
@@ -36,6 +43,39 @@ public class ServerOptionsTest {
     assertEquals(32, options.getWorkerThreads());
     assertEquals("0.0.0.0", options.getHost());
     assertEquals(true, options.isHttpsOnly());
+    assertEquals(true, options.isContextRecycling());
+    assertEquals("io_uring", options.getTransport());
+    assertEquals(true, options.isReusePort());
+    assertEquals(true, options.isCpuAffinity());
+  }
+
+  @Test
+  public void shouldParseSslFromConfig() {
+    ServerOptions options = ServerOptions.from(ConfigFactory.empty()
+        .withValue("server.ssl.type", fromAnyRef("self-signed"))
+        .withValue("server.ssl.sessionCacheSize", fromAnyRef(20000))
+        .withValue("server.ssl.sessionTimeout", fromAnyRef("1h"))
+        .withValue("server.ssl.ticketKeyRotation", fromAnyRef("12h"))
+        .withValue("server.ssl.reloadInterval", fromAnyRef("30s"))
+        .resolve()
+    ).get();
+    SslOptions ssl = options.getSsl();
+    assertEquals(20000, ssl.getSessionCacheSize());
+    assertEquals(Duration.ofHours(1), ssl.getSessionTimeout());
+    assertEquals(Duration.ofHours(12), ssl.getTicketKeyRotation());
+    assertEquals(Duration.ofSeconds(30), ssl.getReloadInterval());
+  }
+
+  @Test
+  public void shouldUseSslEngineDefaults() {
+    SslOptions ssl = SslOptions.from(ConfigFactory.empty()
+        .withValue("server.ssl.type", fromAnyRef("self-signed"))
+        .resolve(), "server.ssl"
+    ).get();
+    assertEquals(0, ssl.getSessionCacheSize());
+    assertNull(ssl.getSessionTimeout());
+    assertNull(ssl.getTicketKeyRotation());
+    assertNull(ssl.getReloadInterval());
   }
 
   @Test
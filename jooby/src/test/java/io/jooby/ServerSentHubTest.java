@@ -0,0 +1,172 @@
+package io.jooby;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServerSentHubTest {
+
+  @Test
+  public void publish() {
+    ServerSentHub hub = new ServerSentHub();
+    ServerSentEmitter a = emitter(null);
+    ServerSentEmitter b = emitter(null);
+    hub.channel("news").subscribe(a).subscribe(b);
+
+    hub.publish("news", "1st");
+    hub.publish("news", new ServerSentMessage("2nd").setEvent("update"));
+    hub.publish("other", "ignored");
+
+    List<ServerSentMessage> messages = messages(a, 2);
+    assertEquals("1", messages.get(0).getId());
+    assertEquals("1st", messages.get(0).getData());
+    assertEquals("2", messages.get(1).getId());
+    assertEquals("update", messages.get(1).getEvent());
+
+    // same message instance is shared by all the emitters
+    List<ServerSentMessage> other = messages(b, 2);
+    assertSame(messages.get(0), other.get(0));
+    assertSame(messages.get(1), other.get(1));
+  }
+
+  @Test
+  public void encodeOnce() throws Exception {
+    ServerSentHub hub = new ServerSentHub();
+    ServerSentEmitter a = emitter(null);
+    hub.channel("news").subscribe(a);
+    hub.publish("news", "data");
+
+    Context ctx = mock(Context.class);
+    MessageEncoder encoder = mock(MessageEncoder.class);
+    when(encoder.encode(ctx, "data")).thenReturn("data".getBytes());
+    Route route = mock(Route.class);
+    when(route.getEncoder()).thenReturn(encoder);
+    when(ctx.getRoute()).thenReturn(route);
+
+    ServerSentMessage message = messages(a, 1).get(0);
+    assertEquals("id:1\ndata:data\n\n", new String(message.toByteArray(ctx)));
+    assertEquals("id:1\ndata:data\n\n", new String(message.toByteArray(ctx)));
+    verify(encoder, times(1)).encode(ctx, "data");
+  }
+
+  @Test
+  public void replay() {
+    ServerSentHub hub = new ServerSentHub(2);
+    hub.publish("news", "1st");
+    hub.publish("news", "2nd");
+    hub.publish("news", "3rd");
+
+    // resume after 2
+    ServerSentEmitter a = emitter("2");
+    hub.channel("news").subscribe(a);
+    assertEquals(List.of("3rd"), data(messages(a, 1)));
+
+    // 1 isn't in the buffer anymore: whole buffer
+    ServerSentEmitter b = emitter("1");
+    hub.channel("news").subscribe(b);
+    assertEquals(List.of("2nd", "3rd"), data(messages(b, 2)));
+
+    // no last event id: no replay
+    ServerSentEmitter c = emitter(null);
+    hub.channel("news").subscribe(c);
+    verify(c, never()).send(any(ServerSentMessage.class));
+  }
+
+  @Test
+  public void removeClosedEmitters() {
+    ServerSentHub hub = new ServerSentHub(0);
+    ServerSentEmitter a = emitter(null);
+    ServerSentEmitter b = emitter(null);
+    hub.channel("news").subscribe(a).subscribe(b);
+    when(b.isOpen()).thenReturn(false);
+
+    hub.publish("news", "1st");
+
+    assertEquals(1, hub.channel("news").size());
+    verify(a, times(1)).send(any(ServerSentMessage.class));
+    verify(b, never()).send(any(ServerSentMessage.class));
+  }
+
+  @Test
+  public void unsubscribeOnClose() throws Exception {
+    ServerSentHub hub = new ServerSentHub(0);
+    ServerSentEmitter a = emitter(null);
+    hub.channel("news").subscribe(a);
+    assertEquals(1, hub.channel("news").size());
+
+    ArgumentCaptor<SneakyThrows.Runnable> onClose = ArgumentCaptor
+        .forClass(SneakyThrows.Runnable.class);
+    verify(a).onClose(onClose.capture());
+    onClose.getValue().run();
+
+    assertEquals(0, hub.channel("news").size());
+  }
+
+  @Test
+  public void slowEmitterDoesNotBlockPublishers() throws Exception {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    ServerSentHub hub = new ServerSentHub(0).setExecutor(executor);
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ServerSentEmitter slow = emitter(null);
+    when(slow.send(any(ServerSentMessage.class))).then(invocation -> {
+      sending.countDown();
+      release.await();
+      return slow;
+    });
+    ServerSentEmitter fast = emitter(null);
+    hub.channel("news").subscribe(slow).subscribe(fast);
+    try {
+      // publisher doesn't wait for emitters
+      hub.publish("news", "1st");
+      assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+      // slow emitter is still writing 1st: 2nd is queued for it
+      hub.publish("news", "2nd");
+      verify(fast, timeout(5000).times(2)).send(any(ServerSentMessage.class));
+
+      release.countDown();
+      verify(slow, timeout(5000).times(2)).send(any(ServerSentMessage.class));
+      assertEquals(List.of("1st", "2nd"), data(messages(slow, 2)));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private ServerSentEmitter emitter(String lastEventId) {
+    ServerSentEmitter emitter = mock(ServerSentEmitter.class);
+    // writes run in the caller thread
+    Context ctx = ContextMocks.request(Router.GET, "/sse");
+    when(emitter.getContext()).thenReturn(ctx);
+    when(emitter.isOpen()).thenReturn(true);
+    when(emitter.getLastEventId()).thenReturn(lastEventId);
+    return emitter;
+  }
+
+  private List<ServerSentMessage> messages(ServerSentEmitter emitter, int count) {
+    ArgumentCaptor<ServerSentMessage> captor = ArgumentCaptor.forClass(ServerSentMessage.class);
+    verify(emitter, times(count)).send(captor.capture());
+    return captor.getAllValues();
+  }
+
+  private List<Object> data(List<ServerSentMessage> messages) {
+    return messages.stream().map(ServerSentMessage::getData).collect(Collectors.toList());
+  }
+}
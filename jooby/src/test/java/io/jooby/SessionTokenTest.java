@@ -0,0 +1,94 @@
+package io.jooby;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SessionTokenTest {
+
+  @Test
+  public void newToken() {
+    SessionToken token = SessionToken.cookieId(SessionToken.SID);
+    Set<String> tokens = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      String value = token.newToken();
+      assertEquals(40, value.length());
+      assertEquals(SessionToken.ID_SIZE, Base64.getUrlDecoder().decode(value).length);
+      tokens.add(value);
+    }
+    assertEquals(1000, tokens.size());
+  }
+
+  @Test
+  public void cookieIdOnlyOnChange() {
+    SessionToken token = SessionToken.cookieId(SessionToken.SID);
+
+    Context ctx = context("abc");
+    token.saveToken(ctx, "abc");
+    verify(ctx, never()).setResponseCookie(any());
+
+    token.saveToken(ctx, "xyz");
+    verify(ctx, times(1)).setResponseCookie(any());
+
+    ctx = context(null);
+    token.saveToken(ctx, "abc");
+    verify(ctx, times(1)).setResponseCookie(any());
+  }
+
+  @Test
+  public void cookieIdWithMaxAge() {
+    SessionToken token = SessionToken.cookieId(SessionToken.SID.clone().setMaxAge(60));
+
+    Context ctx = context("abc");
+    token.saveToken(ctx, "abc");
+    verify(ctx, times(1)).setResponseCookie(any());
+  }
+
+  @Test
+  public void signedCookieChangedBack() {
+    SessionToken token = SessionToken.signedCookie(SessionToken.SID);
+
+    Context ctx = context("v1");
+    token.saveToken(ctx, "v2");
+    // same as request, but v2 was written
+    token.saveToken(ctx, "v1");
+    verify(ctx, times(2)).setResponseCookie(any());
+    verify(ctx, never()).attribute(anyString(), any());
+  }
+
+  private Context context(String sid) {
+    Context ctx = mock(Context.class);
+    Map<String, String> cookies = new HashMap<>();
+    if (sid != null) {
+      cookies.put(SessionToken.SID.getName(), sid);
+    }
+    when(ctx.cookieMap()).thenReturn(cookies);
+    when(ctx.cookie(anyString())).then(invocation -> {
+      String name = invocation.getArgument(0);
+      return Value.create(ctx, name, cookies.get(name));
+    });
+    Map<String, String> responseHeaders = new HashMap<>();
+    when(ctx.getResponseHeader(anyString())).then(
+        invocation -> responseHeaders.get(invocation.getArgument(0)));
+    when(ctx.setResponseCookie(any())).then(invocation -> {
+      Cookie cookie = invocation.getArgument(0);
+      responseHeaders.put("Set-Cookie", cookie.toCookieString());
+      return ctx;
+    });
+    return ctx;
+  }
+}
@@ -0,0 +1,119 @@
+package io.jooby;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SingleFlightHandlerTest {
+
+  @Test
+  public void collapseIdenticalRequests() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    CompletableFuture<Object> result = new CompletableFuture<>();
+    SingleFlightHandler singleFlight = new SingleFlightHandler();
+    Route.Handler handler = singleFlight.apply(ctx -> {
+      calls.incrementAndGet();
+      return result;
+    });
+
+    Context leader = context(Router.GET, "/report");
+    Context follower = context(Router.GET, "/report");
+    Context other = context(Router.GET, "/other");
+    CompletableFuture<?> leaderResponse = stage(handler.apply(leader));
+    CompletableFuture<?> followerResponse = stage(handler.apply(follower));
+    CompletableFuture<?> otherResponse = stage(handler.apply(other));
+
+    assertEquals(2, calls.get());
+    assertFalse(followerResponse.isDone());
+
+    result.complete("Report");
+
+    byte[] bytes = "Report".getBytes(StandardCharsets.UTF_8);
+    assertArrayEquals(bytes, (byte[]) leaderResponse.get());
+    assertArrayEquals(bytes, (byte[]) followerResponse.get());
+    assertArrayEquals(bytes, (byte[]) otherResponse.get());
+    verify(follower).setResponseType(MediaType.json);
+
+    // new flight
+    stage(handler.apply(context(Router.GET, "/report")));
+    assertEquals(3, calls.get());
+  }
+
+  @Test
+  public void runHandlerWhenResponseIsNotShared() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    CompletableFuture<Object> result = new CompletableFuture<>();
+    SingleFlightHandler singleFlight = new SingleFlightHandler();
+    Route.Handler handler = singleFlight.apply(ctx -> {
+      calls.incrementAndGet();
+      return calls.get() == 1 ? result : CompletableFuture.completedFuture("Retry");
+    });
+
+    CompletableFuture<?> leaderResponse = stage(handler.apply(context(Router.GET, "/report")));
+    CompletableFuture<?> followerResponse = stage(handler.apply(context(Router.GET, "/report")));
+
+    result.complete(StatusCode.NO_CONTENT);
+
+    assertEquals(StatusCode.NO_CONTENT, leaderResponse.get());
+    assertEquals("Retry", followerResponse.get());
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void ignoreNonGetRequests() throws Exception {
+    SingleFlightHandler singleFlight = new SingleFlightHandler();
+    Route.Handler handler = singleFlight.apply(ctx -> "Created");
+
+    // route was forced to CompletionStage, so pass-through must be a CompletionStage too
+    assertEquals("Created", stage(handler.apply(context(Router.POST, "/report"))).get());
+  }
+
+  @Test
+  public void keepDeclaredReturnType() throws Exception {
+    SingleFlightHandler singleFlight = new SingleFlightHandler();
+    Route.Handler handler = singleFlight.apply(ctx -> "Hello");
+
+    Context ctx = context(Router.GET, "/report");
+    when(ctx.getRoute().getReturnType()).thenReturn(String.class);
+    assertEquals("Hello", handler.apply(ctx));
+  }
+
+  @Test
+  public void setRoute() {
+    SingleFlightHandler singleFlight = new SingleFlightHandler();
+
+    Route get = new Route(Router.GET, "/", ctx -> "OK");
+    singleFlight.setRoute(get);
+    assertEquals(CompletionStage.class, get.getReturnType());
+
+    Route post = new Route(Router.POST, "/", ctx -> "OK");
+    singleFlight.setRoute(post);
+    assertNull(post.getReturnType());
+
+    Route future = new Route(Router.GET, "/", ctx -> "OK");
+    future.setReturnType(CompletableFuture.class);
+    singleFlight.setRoute(future);
+    assertEquals(CompletableFuture.class, future.getReturnType());
+  }
+
+  private CompletableFuture<?> stage(Object value) {
+    return ((CompletionStage<?>) value).toCompletableFuture();
+  }
+
+  private Context context(String method, String path) {
+    Context ctx = ContextMocks.request(method, path);
+    Route route = ctx.getRoute();
+    when(route.getReturnType()).thenReturn(CompletionStage.class);
+    return ctx;
+  }
+}
@@ -291,6 +291,45 @@ public class ValueTest {
     });
   }
 
+  @Test
+  public void numbers() {
+    assertEquals(Long.MAX_VALUE, Value.value(null, "n", "9223372036854775807").longValue());
+    assertEquals(Long.MIN_VALUE, Value.value(null, "n", "-9223372036854775808").longValue());
+    assertEquals(-1, Value.value(null, "n", "-1").intValue());
+    assertEquals(5, Value.value(null, "n", "+5").intValue());
+    assertEquals(-128, Value.value(null, "n", "-128").byteValue());
+    assertEquals(1.5E-3, Value.value(null, "n", "1.5E-3").doubleValue());
+    assertEquals(.5f, Value.value(null, "n", ".5").floatValue());
+    assertEquals(Double.NaN, Value.value(null, "n", "NaN").doubleValue());
+    assertEquals(7, Value.missing("n").intValue(7));
+    assertEquals(7L, Value.missing("n").longValue(7L));
+
+    assertMessage(BadRequestException.class,
+        () -> Value.value(null, "n", "2147483648").intValue(),
+        "Cannot convert value: 'n', to: 'int'");
+    assertMessage(BadRequestException.class, () -> Value.value(null, "n", "128").byteValue(),
+        "Cannot convert value: 'n', to: 'byte'");
+    assertMessage(BadRequestException.class, () -> Value.value(null, "n", "1e").doubleValue(),
+        "Cannot convert value: 'n', to: 'double'");
+    assertMessage(BadRequestException.class, () -> Value.value(null, "n", "x").longValue(7),
+        "Cannot convert value: 'n', to: 'long'");
+  }
+
+  @Test
+  public void httpDate() {
+    assertEquals(784111777000L,
+        Value.value(null, "d", "Sun, 06 Nov 1994 08:49:37 GMT").longValue());
+    assertEquals(951782400000L,
+        Value.value(null, "d", "Tue, 29 Feb 2000 00:00:00 GMT").longValue());
+    // cached
+    assertEquals(951782400000L,
+        Value.value(null, "d", "Tue, 29 Feb 2000 00:00:00 GMT").longValue());
+    // wrong day of week
+    assertMessage(BadRequestException.class,
+        () -> Value.value(null, "d", "Mon, 06 Nov 1994 08:49:37 GMT").longValue(),
+        "Cannot convert value: 'd', to: 'long'");
+  }
+
   @Test
   public void customMapper() {
     assertEquals(new BigDecimal("3.14"), Value.value(null, "n", "3.14").value(BigDecimal::new));
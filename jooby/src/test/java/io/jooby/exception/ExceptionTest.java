@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ExceptionTest {
 
@@ -39,6 +40,21 @@ public class ExceptionTest {
     assertEquals(null, exceptionNoMessage.getCause());
   }
 
+  @Test
+  public void shouldSkipStackTraceOnClientErrors() {
+    assertEquals(0, new NotFoundException("/missing").getStackTrace().length);
+    assertEquals(0, new MethodNotAllowedException("GET", Collections.emptyList())
+        .getStackTrace().length);
+    assertEquals(0, new MissingValueException("q").getStackTrace().length);
+    assertEquals(0, new TypeMismatchException("q", int.class).getStackTrace().length);
+    assertEquals(0, new NotAcceptableException("text/html").getStackTrace().length);
+    assertEquals(0, new UnsupportedMediaType("text/html").getStackTrace().length);
+
+    // application errors keep stack trace
+    assertTrue(new BadRequestException("Some").getStackTrace().length > 0);
+    assertTrue(new StatusCodeException(StatusCode.SERVER_ERROR).getStackTrace().length > 0);
+  }
+
   @Test
   public void shouldCreateMethodNotAllowed() {
     MethodNotAllowedException exception = new MethodNotAllowedException("GET", Collections.singletonList("POST"));
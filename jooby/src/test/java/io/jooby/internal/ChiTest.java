@@ -9,6 +9,8 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -171,6 +173,23 @@ public class ChiTest {
     });
   }
 
+  @Test
+  public void shareMissingRoutes() {
+    Chi router = new Chi();
+    router.setEncoder(MessageEncoder.TO_STRING);
+    router.insert(route("GET", "/products/{id}", stringHandler("product")));
+
+    Router.Match notFound = router.find("GET", "/orders/1");
+    assertFalse(notFound.matches());
+    assertSame(notFound.route(), router.find("DELETE", "/users").route());
+    assertNotSame(notFound.route(), router.find("GET", "/favicon.ico").route());
+
+    Router.Match methodNotAllowed = router.find("POST", "/products/1");
+    assertFalse(methodNotAllowed.matches());
+    assertNotSame(notFound.route(), methodNotAllowed.route());
+    assertSame(methodNotAllowed.route(), router.find("PUT", "/products/2").route());
+  }
+
   private void find(Chi router, String pattern,
       SneakyThrows.Consumer2<Context, Router.Match> consumer) {
     Router.Match result = router
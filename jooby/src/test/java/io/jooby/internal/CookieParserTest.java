@@ -0,0 +1,56 @@
+package io.jooby.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CookieParserTest {
+
+  @Test
+  public void find() {
+    String header = "a=1; jooby.sid=abc ; b = \"quoted\"; empty=; c=x=y";
+    assertEquals("1", CookieParser.find(header, "a"));
+    assertEquals("abc", CookieParser.find(header, "jooby.sid"));
+    assertEquals("quoted", CookieParser.find(header, "b"));
+    assertEquals("", CookieParser.find(header, "empty"));
+    assertEquals("x=y", CookieParser.find(header, "c"));
+    assertNull(CookieParser.find(header, "A"));
+    assertNull(CookieParser.find(header, "sid"));
+    assertNull(CookieParser.find(header, "missing"));
+    assertNull(CookieParser.find((String) null, "a"));
+  }
+
+  @Test
+  public void firstWins() {
+    assertEquals("1", CookieParser.find("a=1; a=2", "a"));
+  }
+
+  @Test
+  public void multipleHeaders() {
+    assertEquals("2", CookieParser.find(Arrays.asList("a=1", "b=2").iterator(), "b"));
+    assertNull(CookieParser.find(Arrays.asList("a=1", "b=2").iterator(), "c"));
+  }
+
+  @Test
+  public void parse() {
+    Map<String, String> cookies = CookieParser.parse(
+        Arrays.asList("a=1; b = \"quoted\"; a=2; =x; novalue", "c=x=y; b=3").iterator());
+    assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(cookies.keySet()));
+    // same result as find
+    for (String name : cookies.keySet()) {
+      assertEquals(CookieParser.find(
+          Arrays.asList("a=1; b = \"quoted\"; a=2; =x; novalue", "c=x=y; b=3").iterator(), name),
+          cookies.get(name));
+    }
+    assertEquals("1", cookies.get("a"));
+    assertEquals("quoted", cookies.get("b"));
+    assertEquals("x=y", cookies.get("c"));
+    assertEquals(Collections.emptyMap(), CookieParser.parse(Collections.emptyIterator()));
+  }
+}
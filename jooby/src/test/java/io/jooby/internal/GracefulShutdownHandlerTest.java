@@ -0,0 +1,60 @@
+package io.jooby.internal;
+
+import io.jooby.Context;
+import io.jooby.Route;
+import io.jooby.StatusCode;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GracefulShutdownHandlerTest {
+
+  @Test
+  public void shouldTrackInFlightRequests() throws Exception {
+    GracefulShutdownHandler handler = new GracefulShutdownHandler(Duration.ofMillis(200));
+    Route.Handler pipeline = handler.apply(ctx -> "OK");
+
+    Context ctx = context();
+    assertEquals("OK", pipeline.apply(ctx));
+    assertEquals(1, handler.getInFlight());
+    assertTrue(handler.isReady());
+
+    ArgumentCaptor<Route.Complete> complete = ArgumentCaptor.forClass(Route.Complete.class);
+    verify(ctx).onComplete(complete.capture());
+    complete.getValue().apply(ctx);
+    assertEquals(0, handler.getInFlight());
+  }
+
+  @Test
+  public void shouldRejectAfterShutdown() throws Exception {
+    GracefulShutdownHandler handler = new GracefulShutdownHandler(Duration.ofMillis(200));
+    Route.Handler pipeline = handler.apply(ctx -> "OK");
+
+    handler.shutdown();
+    assertFalse(handler.isReady());
+
+    Context ctx = context();
+    pipeline.apply(ctx);
+    verify(ctx).setResponseHeader("Connection", "close");
+    verify(ctx).send(StatusCode.SERVICE_UNAVAILABLE);
+    verify(ctx, never()).onComplete(any());
+    assertEquals(0, handler.getInFlight());
+  }
+
+  private Context context() {
+    Context ctx = mock(Context.class);
+    Route route = mock(Route.class);
+    when(ctx.getRoute()).thenReturn(route);
+    return ctx;
+  }
+}
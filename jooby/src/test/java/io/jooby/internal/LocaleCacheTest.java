@@ -0,0 +1,78 @@
+package io.jooby.internal;
+
+import io.jooby.Context;
+import io.jooby.Router;
+import io.jooby.ServiceRegistry;
+import io.jooby.Value;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LocaleCacheTest {
+
+  private List<Locale> locales = Arrays.asList(Locale.ENGLISH, Locale.GERMAN, Locale.FRENCH);
+
+  private LocaleCache cache = new LocaleCache(locales);
+
+  @Test
+  public void shouldResolveLocale() {
+    assertEquals(Locale.FRENCH, LocaleCache.locale(context("fr-CH, en;q=0.8")));
+    assertEquals(Locale.GERMAN, LocaleCache.locale(context("es, de;q=0.5")));
+    assertEquals(Locale.ENGLISH, LocaleCache.locale(context("es")));
+    assertEquals(Locale.ENGLISH, LocaleCache.locale(context(null)));
+  }
+
+  @Test
+  public void shouldResolveLocales() {
+    assertEquals(Arrays.asList(Locale.GERMAN, Locale.ENGLISH),
+        LocaleCache.locales(context("de, en;q=0.8")));
+    assertEquals(Arrays.asList(), LocaleCache.locales(context(null)));
+  }
+
+  @Test
+  public void shouldCacheByHeaderValue() {
+    Locale locale = LocaleCache.locale(context("de"));
+    assertSame(locale, LocaleCache.locale(context("de")));
+
+    List<Locale> result = LocaleCache.locales(context("de, fr"));
+    assertSame(result, LocaleCache.locales(context("de, fr")));
+  }
+
+  @Test
+  public void shouldNotLeakIntoAttributes() {
+    Context ctx = context("de");
+    assertEquals(Locale.GERMAN, LocaleCache.locale(ctx));
+    assertEquals(Arrays.asList(Locale.GERMAN), LocaleCache.locales(ctx));
+    verify(ctx, never()).attribute(anyString(), any());
+    verify(ctx, never()).getAttributes();
+  }
+
+  private Context context(String acceptLanguage) {
+    Context ctx = mock(Context.class);
+
+    ServiceRegistry services = mock(ServiceRegistry.class);
+    when(services.getOrNull(LocaleCache.KEY)).thenReturn(cache);
+
+    Router router = mock(Router.class);
+    when(router.getServices()).thenReturn(services);
+    when(router.getLocales()).thenReturn(locales);
+    when(ctx.getRouter()).thenReturn(router);
+
+    Value value = acceptLanguage == null
+        ? Value.missing("Accept-Language")
+        : Value.value(ctx, "Accept-Language", acceptLanguage);
+    when(ctx.header("Accept-Language")).thenReturn(value);
+    return ctx;
+  }
+}
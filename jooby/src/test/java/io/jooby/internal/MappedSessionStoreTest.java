@@ -0,0 +1,117 @@
+package io.jooby.internal;
+
+import io.jooby.SessionToken;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MappedSessionStoreTest {
+
+  private static class Store extends MappedSessionStore {
+    Store(Path file) {
+      super(SessionToken.cookieId(SessionToken.SID), file, Duration.ofMinutes(30));
+    }
+
+    void put(String id, long lastAccessedTime, Map<String, String> hash) {
+      put(id, new Data(Instant.ofEpochMilli(1), Instant.ofEpochMilli(lastAccessedTime), hash));
+    }
+
+    Map get(String id) {
+      Data data = getOrNull(id);
+      return data == null ? null : data.getHash();
+    }
+
+    long lastAccessedTime(String id) {
+      return getOrNull(id).getLastAccessedTime().toEpochMilli();
+    }
+  }
+
+  @Test
+  public void shouldKeepSessionsAfterRestart(@TempDir Path dir) {
+    Path file = dir.resolve("sessions.db");
+    long now = System.currentTimeMillis();
+    Store store = new Store(file);
+    store.put("a", now, Map.of("user", "edgar"));
+    store.put("b", now, Map.of("user", "pedro"));
+    store.put("b", now, Map.of("user", "pablo"));
+    store.put("c", now, Map.of());
+    store.remove("c");
+    // touch
+    store.put("a", now + 1000, Map.of("user", "edgar"));
+
+    Store restarted = new Store(file);
+    assertEquals(Map.of("user", "edgar"), restarted.get("a"));
+    assertEquals(now + 1000, restarted.lastAccessedTime("a"));
+    assertEquals(Map.of("user", "pablo"), restarted.get("b"));
+    assertNull(restarted.get("c"));
+  }
+
+  @Test
+  public void shouldSkipExpiredSessions(@TempDir Path dir) {
+    Path file = dir.resolve("sessions.db");
+    long now = System.currentTimeMillis();
+    Store store = new Store(file);
+    store.put("expired", now - Duration.ofHours(1).toMillis(), Map.of("user", "edgar"));
+    store.put("active", now, Map.of("user", "pedro"));
+
+    assertNull(store.get("expired"));
+    Store restarted = new Store(file);
+    assertNull(restarted.get("expired"));
+    assertEquals(Map.of("user", "pedro"), restarted.get("active"));
+  }
+
+  @Test
+  public void shouldDiscardCorruptedRecords(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("sessions.db");
+    long now = System.currentTimeMillis();
+    Store store = new Store(file);
+    store.put("a", now, Map.of("user", "edgar"));
+    store.put("b", now, Map.of("user", "pedro"));
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, 1024);
+      // flip last byte of second record
+      int length = buffer.getInt(0);
+      int second = Integer.BYTES * 2 + length;
+      int last = second + Integer.BYTES * 2 + buffer.getInt(second) - 1;
+      buffer.put(last, (byte) (buffer.get(last) + 1));
+      buffer.force();
+    }
+
+    Store restarted = new Store(file);
+    assertEquals(Map.of("user", "edgar"), restarted.get("a"));
+    assertNull(restarted.get("b"));
+
+    // log continues after the last valid record
+    restarted.put("c", now, Map.of("user", "pablo"));
+    assertEquals(Map.of("user", "pablo"), new Store(file).get("c"));
+  }
+
+  @Test
+  public void shouldCompactLog(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("sessions.db");
+    long now = System.currentTimeMillis();
+    Store store = new Store(file);
+    String value = "x".repeat(10_000);
+    for (int i = 0; i < 5_000; i++) {
+      store.put("s" + (i % 10), now, Map.of("value", value + i));
+    }
+    // 50MB were written, live data fits in one segment
+    assertEquals(MappedSessionStore.SEGMENT_SIZE, Files.size(file));
+
+    Store restarted = new Store(file);
+    assertEquals(Map.of("value", value + 4999), restarted.get("s9"));
+  }
+}
@@ -7,11 +7,25 @@ package io.jooby.caffeine;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jooby.Context;
+import io.jooby.Session;
 import io.jooby.SessionStore;
 import io.jooby.SessionToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
 /**
@@ -26,13 +40,38 @@ import java.util.function.Function;
  *
  * Default session timeout is: <code>30 minutes</code>.
  *
+ * Optionally, the store works as a local tier in front of a secondary store (like Redis): session
+ * changes are written behind to the secondary store and sessions not found locally are read from
+ * it. See {@link #setSecondary(SessionStore)}.
+ *
  * @author edgar
  * @since 2.8.5
  */
 public class CaffeineSessionStore extends SessionStore.InMemory {
 
+  /** Local session data, keeps the time the session was last written to the secondary store. */
+  private static class LocalData extends Data {
+    private final Instant writtenAt;
+
+    LocalData(Instant creationTime, Instant lastAccessedTime, Map hash, Instant writtenAt) {
+      super(creationTime, lastAccessedTime, hash);
+      this.writtenAt = writtenAt;
+    }
+  }
+
   private final Cache<String, Object> cache;
 
+  private SessionStore secondary;
+
+  private Duration refreshInterval = Duration.ofMinutes(DEFAULT_TIMEOUT).dividedBy(2);
+
+  private Executor executor = ForkJoinPool.commonPool();
+
+  /** Snapshot of sessions waiting to be written to the secondary store. */
+  private final Map<String, Session> pending = new ConcurrentHashMap<>();
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
   /**
    * Creates a new session store using the given cache.
    *
@@ -52,7 +91,32 @@ public class CaffeineSessionStore extends SessionStore.InMemory {
     super(SessionToken.cookieId(SessionToken.SID));
     this.cache = Caffeine.newBuilder()
         .expireAfterAccess(timeout)
+        .<String, Object>evictionListener(this::evicted)
+        .recordStats()
         .build();
+    this.refreshInterval = timeout.dividedBy(2);
+  }
+
+  /**
+   * Creates a new session store with given session timeout and bounded by session size. Once the
+   * total weight goes over <code>maximumWeight</code> least used sessions are evicted. See
+   * {@link #weigher()}.
+   *
+   * @param timeout Session timeout.
+   * @param maximumWeight Maximum weight, approximately the number of bytes of all session
+   *     attributes.
+   * @since 3.0.0
+   */
+  public CaffeineSessionStore(@NonNull Duration timeout, long maximumWeight) {
+    super(SessionToken.cookieId(SessionToken.SID));
+    this.cache = Caffeine.newBuilder()
+        .expireAfterAccess(timeout)
+        .maximumWeight(maximumWeight)
+        .<String, Object>evictionListener(this::evicted)
+        .weigher(weigher())
+        .recordStats()
+        .build();
+    this.refreshInterval = timeout.dividedBy(2);
   }
 
   /**
@@ -62,6 +126,177 @@ public class CaffeineSessionStore extends SessionStore.InMemory {
     this(Duration.ofMinutes(DEFAULT_TIMEOUT));
   }
 
+  /**
+   * Weigh sessions by the size of their attributes: number of characters of session ID, attribute
+   * names and values. Useful for custom caches:
+   *
+   * <pre>{@code
+   *   Caffeine.newBuilder()
+   *     .maximumWeight(64 * 1024 * 1024)
+   *     .weigher(CaffeineSessionStore.weigher())
+   *     .build();
+   * }</pre>
+   *
+   * @return Session weigher.
+   * @since 3.0.0
+   */
+  public static @NonNull Weigher<String, Object> weigher() {
+    return (sessionId, value) -> {
+      int weight = sessionId.length();
+      if (value instanceof Data) {
+        Map<?, ?> hash = ((Data) value).getHash();
+        for (Map.Entry<?, ?> e : hash.entrySet()) {
+          weight += String.valueOf(e.getKey()).length() + String.valueOf(e.getValue()).length();
+        }
+      }
+      return weight;
+    };
+  }
+
+  /**
+   * Cache statistics: hits, misses, evictions, etc. Statistics are recorded by caches created by
+   * this store. Custom caches must enable them with {@link Caffeine#recordStats()}.
+   *
+   * @return Cache statistics.
+   * @since 3.0.0
+   */
+  public @NonNull CacheStats getStats() {
+    return cache.stats();
+  }
+
+  /**
+   * Approximate number of sessions in local cache.
+   *
+   * @return Approximate number of sessions in local cache.
+   * @since 3.0.0
+   */
+  public long getSize() {
+    return cache.estimatedSize();
+  }
+
+  /**
+   * Secondary session store or <code>null</code>.
+   *
+   * @return Secondary session store or <code>null</code>.
+   * @since 3.0.0
+   */
+  public @Nullable SessionStore getSecondary() {
+    return secondary;
+  }
+
+  /**
+   * Set a secondary session store. Local cache keeps the hot sessions and the secondary store
+   * keeps all them:
+   *
+   * - New sessions, and modified sessions once the request completes, are written asynchronously
+   *   to the secondary store. Pending writes of the same session are coalesced into one.
+   * - Sessions not found in local cache are read from the secondary store and cached.
+   * - Deleted sessions are deleted from both stores.
+   * - Renewed sessions are deleted from the secondary store and written again with the new ID.
+   * - Sessions in use but not modified are written again once the refresh interval elapsed since
+   *   their last write, so they don't expire in the secondary store. See
+   *   {@link #setRefreshInterval(Duration)}.
+   * - Sessions evicted from local cache because of its size are written before they are dropped.
+   *   Custom caches (see {@link #CaffeineSessionStore(Cache)}) don't report evictions.
+   *
+   * Secondary timeout should be greater than the refresh interval. Both stores must use the same
+   * session token. Writes run outside of the request on a copy of the session, so
+   * {@link SessionStore#saveSession(Context, Session)} of secondary store gets a
+   * <code>null</code> context.
+   *
+   * @param secondary Secondary session store.
+   * @return This store.
+   * @since 3.0.0
+   */
+  public @NonNull CaffeineSessionStore setSecondary(@NonNull SessionStore secondary) {
+    this.secondary = secondary;
+    return this;
+  }
+
+  /**
+   * Set how often a session in use but not modified is written to the secondary store, so it
+   * doesn't expire there. Defaults to half the session timeout (<code>15 minutes</code> for custom
+   * caches).
+   *
+   * @param refreshInterval Time since the last write to the secondary store.
+   * @return This store.
+   * @since 3.0.0
+   */
+  public @NonNull CaffeineSessionStore setRefreshInterval(@NonNull Duration refreshInterval) {
+    this.refreshInterval = refreshInterval;
+    return this;
+  }
+
+  /**
+   * Set the executor for writing to the secondary store. Defaults to
+   * {@link ForkJoinPool#commonPool()}.
+   *
+   * @param executor Executor.
+   * @return This store.
+   * @since 3.0.0
+   */
+  public @NonNull CaffeineSessionStore setExecutor(@NonNull Executor executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  @NonNull @Override public Session newSession(@NonNull Context ctx) {
+    Session session = super.newSession(ctx);
+    writeBehind(session);
+    return session;
+  }
+
+  @Override public Session findSession(Context ctx) {
+    Session session = super.findSession(ctx);
+    if (session == null && secondary != null) {
+      Session remote = secondary.findSession(ctx);
+      if (remote != null) {
+        // last access of the remote copy is the best guess of its last write
+        Data data = new LocalData(remote.getCreationTime(), remote.getLastAccessedTime(),
+            new ConcurrentHashMap<>(remote.toMap()), remote.getLastAccessedTime());
+        put(remote.getId(), data);
+        session = Session.create(ctx, remote.getId(), data.getHash())
+            .setLastAccessedTime(data.getLastAccessedTime())
+            .setCreationTime(data.getCreationTime());
+      }
+    }
+    return session;
+  }
+
+  @Override public void deleteSession(@NonNull Context ctx, @NonNull Session session) {
+    if (secondary == null) {
+      super.deleteSession(ctx, session);
+    } else {
+      String sessionId = session.getId();
+      remove(sessionId);
+      pending.remove(sessionId);
+      // deletes token too
+      secondary.deleteSession(ctx, session);
+    }
+  }
+
+  @Override public void touchSession(@NonNull Context ctx, @NonNull Session session) {
+    // changes reach secondary store once the request completes
+    save(session, false);
+    getToken().saveToken(ctx, session.getId());
+  }
+
+  @Override public void saveSession(Context ctx, @NonNull Session session) {
+    save(session, session.isModify());
+  }
+
+  @Override public void renewSessionId(@NonNull Context ctx, @NonNull Session session) {
+    if (secondary == null) {
+      super.renewSessionId(ctx, session);
+    } else {
+      pending.remove(session.getId());
+      // expires the token too, the session saves the new one right after renew
+      secondary.deleteSession(ctx, session);
+      super.renewSessionId(ctx, session);
+      writeBehind(session);
+    }
+  }
+
   @Override protected Data getOrCreate(String sessionId,
       Function<String, Data> factory) {
     return (Data) cache.get(sessionId, factory);
@@ -80,4 +315,69 @@ public class CaffeineSessionStore extends SessionStore.InMemory {
   @Override protected void put(String sessionId, Data data) {
     cache.put(sessionId, data);
   }
+
+  /**
+   * Save session in local cache. It is written behind when modified or when the refresh interval
+   * elapsed since its last write: secondary timeout counts from last write, not from last access.
+   */
+  private void save(Session session, boolean modified) {
+    String sessionId = session.getId();
+    Instant now = Instant.now();
+    Instant writtenAt = null;
+    if (secondary != null) {
+      writtenAt = writtenAt(getOrNull(sessionId));
+      if (modified || writtenAt == null
+          || Duration.between(writtenAt, now).compareTo(refreshInterval) >= 0) {
+        writeBehind(session);
+        writtenAt = now;
+      }
+    }
+    put(sessionId, new LocalData(session.getCreationTime(), now, session.toMap(), writtenAt));
+  }
+
+  private static Instant writtenAt(Data data) {
+    if (data == null) {
+      return null;
+    }
+    // new sessions are written on creation
+    return data instanceof LocalData ? ((LocalData) data).writtenAt : data.getCreationTime();
+  }
+
+  private void evicted(@Nullable String sessionId, @Nullable Object value, RemovalCause cause) {
+    // size eviction drops sessions still in use, expired sessions expire in secondary store too
+    if (cause == RemovalCause.SIZE && value instanceof Data) {
+      Data data = (Data) value;
+      writeBehind(sessionId, data.getHash(), data.getCreationTime(), data.getLastAccessedTime());
+    }
+  }
+
+  private void writeBehind(Session session) {
+    writeBehind(session.getId(), session.toMap(), session.getCreationTime(),
+        session.getLastAccessedTime());
+  }
+
+  private void writeBehind(String sessionId, Map<String, String> hash, Instant creationTime,
+      Instant lastAccessedTime) {
+    if (secondary != null) {
+      // copy: the session belongs to the request and keeps changing while the write is pending
+      Session snapshot = Session.create(null, sessionId, new HashMap<>(hash))
+          .setCreationTime(creationTime)
+          .setLastAccessedTime(lastAccessedTime);
+      if (pending.put(sessionId, snapshot) == null) {
+        executor.execute(() -> flush(sessionId));
+      }
+    }
+  }
+
+  private void flush(String sessionId) {
+    // latest version of session, null when deleted
+    Session session = pending.remove(sessionId);
+    if (session != null) {
+      try {
+        secondary.saveSession(null, session);
+      } catch (Exception x) {
+        log.error("write-behind of session {} failed", sessionId, x);
+      }
+    }
+  }
 }
@@ -0,0 +1,230 @@
+package io.jooby.caffeine;
+
+import io.jooby.Context;
+import io.jooby.Cookie;
+import io.jooby.Router;
+import io.jooby.Session;
+import io.jooby.SessionStore;
+import io.jooby.SessionToken;
+import io.jooby.Value;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CaffeineSessionStoreTest {
+
+  /** In-memory secondary store, records the context of each save. */
+  private static class SecondaryStore extends SessionStore.InMemory {
+    private final Map<String, Data> sessions = new ConcurrentHashMap<>();
+
+    private final List<Context> saves = new ArrayList<>();
+
+    SecondaryStore() {
+      super(SessionToken.cookieId(SessionToken.SID));
+    }
+
+    @Override public void saveSession(Context ctx, Session session) {
+      saves.add(ctx);
+      super.saveSession(ctx, session);
+    }
+
+    Map<?, ?> get(String sessionId) {
+      Data data = sessions.get(sessionId);
+      return data == null ? null : data.getHash();
+    }
+
+    @Override protected Data getOrCreate(String sessionId, Function<String, Data> factory) {
+      return sessions.computeIfAbsent(sessionId, factory);
+    }
+
+    @Override protected Data getOrNull(String sessionId) {
+      return sessions.get(sessionId);
+    }
+
+    @Override protected Data remove(String sessionId) {
+      return sessions.remove(sessionId);
+    }
+
+    @Override protected void put(String sessionId, Data data) {
+      sessions.put(sessionId, data);
+    }
+  }
+
+  private SecondaryStore secondary = new SecondaryStore();
+
+  /** Runs write-behind tasks on demand. */
+  private List<Runnable> tasks = Collections.synchronizedList(new ArrayList<>());
+
+  private CaffeineSessionStore store = new CaffeineSessionStore()
+      .setSecondary(secondary)
+      .setExecutor(tasks::add);
+
+  @Test
+  public void writeBehindOncePerRequest() {
+    Context ctx = context(null);
+    Session session = store.newSession(ctx);
+    flush();
+    assertEquals(1, secondary.saves.size());
+
+    // attribute changes don't reach the secondary store
+    session.put("foo", "1");
+    session.put("foo", "2");
+    session.put("bar", "3");
+    assertEquals(0, tasks.size());
+
+    // request completed
+    store.saveSession(ctx, session);
+    flush();
+    assertEquals(2, secondary.saves.size());
+    assertEquals("2", secondary.get(session.getId()).get("foo"));
+    // write-behind never gets the request context
+    assertNull(secondary.saves.get(0));
+    assertNull(secondary.saves.get(1));
+  }
+
+  @Test
+  public void skipUnmodifiedSession() {
+    Session session = store.newSession(context(null));
+    flush();
+
+    Context ctx = context(session.getId());
+    Session found = store.findSession(ctx);
+    assertNotNull(found);
+    store.saveSession(ctx, found);
+    assertEquals(0, tasks.size());
+    assertEquals(1, secondary.saves.size());
+  }
+
+  @Test
+  public void coalescePendingWrites() {
+    Session session = store.newSession(context(null));
+    session.put("foo", "1");
+    store.saveSession(context(session.getId()), session);
+    session.put("foo", "2");
+    store.saveSession(context(session.getId()), session);
+
+    assertEquals(1, tasks.size());
+    flush();
+    assertEquals(1, secondary.saves.size());
+    assertEquals("2", secondary.get(session.getId()).get("foo"));
+  }
+
+  @Test
+  public void renewSessionId() {
+    Session session = store.newSession(context(null));
+    session.put("foo", "bar");
+    store.saveSession(context(session.getId()), session);
+    flush();
+    String oldId = session.getId();
+
+    Context ctx = context(oldId);
+    Session found = store.findSession(ctx);
+    found.renewId();
+    String newId = found.getId();
+    assertNotEquals(oldId, newId);
+    assertNull(secondary.get(oldId));
+
+    flush();
+    assertNull(secondary.get(oldId));
+    assertEquals("bar", secondary.get(newId).get("foo"));
+    assertNull(store.findSession(context(oldId)));
+    assertEquals("bar", store.findSession(context(newId)).get("foo").value());
+  }
+
+  @Test
+  public void readFromSecondary() {
+    Session session = store.newSession(context(null));
+    session.put("foo", "bar");
+    store.saveSession(context(session.getId()), session);
+    flush();
+
+    CaffeineSessionStore node = new CaffeineSessionStore()
+        .setSecondary(secondary)
+        .setExecutor(tasks::add);
+    Session found = node.findSession(context(session.getId()));
+    assertEquals("bar", found.get("foo").value());
+    assertEquals(1, node.getSize());
+  }
+
+  @Test
+  public void refreshUnmodifiedSession() {
+    store.setRefreshInterval(Duration.ZERO);
+    Session session = store.newSession(context(null));
+    flush();
+
+    Context ctx = context(session.getId());
+    store.saveSession(ctx, store.findSession(ctx));
+    assertEquals(1, tasks.size());
+    flush();
+    assertEquals(2, secondary.saves.size());
+  }
+
+  @Test
+  public void writeBehindSizeEviction() throws InterruptedException {
+    CaffeineSessionStore store = new CaffeineSessionStore(Duration.ofMinutes(30), 100)
+        .setSecondary(secondary)
+        .setExecutor(tasks::add);
+    Session session = store.newSession(context(store, null));
+    flush();
+
+    // local only change, session goes over the maximum weight
+    session.put("foo", "x".repeat(200));
+    assertEquals(0, tasks.size());
+
+    // eviction runs in the background
+    long deadline = System.currentTimeMillis() + 5000;
+    while (secondary.get(session.getId()).get("foo") == null) {
+      assertTrue(System.currentTimeMillis() < deadline, "evicted session was not written");
+      Thread.sleep(10);
+      flush();
+    }
+    assertEquals(0, store.getSize());
+  }
+
+  private void flush() {
+    List<Runnable> tasks;
+    synchronized (this.tasks) {
+      tasks = new ArrayList<>(this.tasks);
+      this.tasks.clear();
+    }
+    tasks.forEach(Runnable::run);
+  }
+
+  private Context context(String sid) {
+    return context(store, sid);
+  }
+
+  private Context context(SessionStore store, String sid) {
+    Context ctx = mock(Context.class);
+    Router router = mock(Router.class);
+    when(router.getSessionStore()).thenReturn(store);
+    when(ctx.getRouter()).thenReturn(router);
+    Map<String, String> cookies = new HashMap<>();
+    if (sid != null) {
+      cookies.put(SessionToken.SID.getName(), sid);
+    }
+    when(ctx.cookie(anyString())).then(invocation -> {
+      String name = invocation.getArgument(0);
+      return Value.create(ctx, name, cookies.get(name));
+    });
+    when(ctx.setResponseCookie(any(Cookie.class))).thenReturn(ctx);
+    return ctx;
+  }
+}
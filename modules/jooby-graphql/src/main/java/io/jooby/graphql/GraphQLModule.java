@@ -6,6 +6,7 @@
 package io.jooby.graphql;
 
 import graphql.GraphQL;
+import graphql.execution.preparsed.NoOpPreparsedDocumentProvider;
 import graphql.schema.GraphQLSchema;
 import graphql.schema.idl.RuntimeWiring;
 import graphql.schema.idl.SchemaGenerator;
@@ -17,7 +18,11 @@ import io.jooby.Route;
 import io.jooby.ServiceRegistry;
 import io.jooby.SneakyThrows;
 import io.jooby.internal.graphql.BlockingGraphQLHandler;
+import io.jooby.internal.graphql.DataLoaders;
+import io.jooby.internal.graphql.DocumentCache;
 import io.jooby.internal.graphql.GraphQLHandler;
+import org.dataloader.BatchLoaderWithContext;
+import org.dataloader.MappedBatchLoaderWithContext;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.FileNotFoundException;
@@ -27,6 +32,7 @@ import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -56,6 +62,12 @@ public class GraphQLModule implements Extension {
 
   private boolean supportGetRequest;
 
+  private int documentCacheSize = DocumentCache.MAX_SIZE;
+
+  private boolean persistedQueries;
+
+  private final Map<String, Object> dataLoaders = new LinkedHashMap<>();
+
   /**
    * Creates a new GraphQL module.
    *
@@ -107,9 +119,16 @@ public class GraphQLModule implements Extension {
   @Override public void install(@NonNull Jooby application) throws Exception {
     String graphqlPath = application.getEnvironment().getProperty("graphql.path", "/graphql");
 
+    if ((documentCacheSize > 0 || persistedQueries)
+        && graphQL.getPreparsedDocumentProvider() instanceof NoOpPreparsedDocumentProvider) {
+      DocumentCache cache = new DocumentCache(documentCacheSize, persistedQueries);
+      graphQL = graphQL.transform(builder -> builder.preparsedDocumentProvider(cache));
+    }
+
+    DataLoaders loaders = dataLoaders.isEmpty() ? null : new DataLoaders(dataLoaders);
     GraphQLHandler handler = async
-        ? new GraphQLHandler(graphQL)
-        : new BlockingGraphQLHandler(graphQL);
+        ? new GraphQLHandler(graphQL, loaders)
+        : new BlockingGraphQLHandler(graphQL, loaders);
 
     if (supportGetRequest) {
       executionMode(application.get(graphqlPath, handler), async);
@@ -143,6 +162,103 @@ public class GraphQLModule implements Extension {
     return this;
   }
 
+  /**
+   * Max number of parsed and validated queries to keep, so the same query isn't parsed and
+   * validated on every request. Set to <code>0</code> to turn it off. Default is:
+   * <code>1000</code>.
+   *
+   * Ignored when the GraphQL instance has its own
+   * {@link graphql.execution.preparsed.PreparsedDocumentProvider}.
+   *
+   * @param documentCacheSize Max number of parsed and validated queries to keep.
+   * @return This module.
+   */
+  public GraphQLModule setDocumentCacheSize(int documentCacheSize) {
+    this.documentCacheSize = documentCacheSize;
+    return this;
+  }
+
+  /**
+   * Whether to support automatic persisted queries. Clients send the SHA-256 hash of the query
+   * (<code>extensions.persistedQuery.sha256Hash</code>) instead of the query. Unknown hashes are
+   * resolved as <code>PersistedQueryNotFound</code> errors, so the client sends the query with
+   * its hash and the hash gets registered. Default is: <code>false</code>.
+   *
+   * Ignored when the GraphQL instance has its own
+   * {@link graphql.execution.preparsed.PreparsedDocumentProvider}.
+   *
+   * @param persistedQueries True to support automatic persisted queries.
+   * @return This module.
+   */
+  public GraphQLModule setPersistedQueries(boolean persistedQueries) {
+    this.persistedQueries = persistedQueries;
+    return this;
+  }
+
+  /**
+   * Register a batch loader. A new {@link org.dataloader.DataLoader} is created per request, so
+   * loaded values are cached per request only. Resolvers get it with
+   * {@link graphql.schema.DataFetchingEnvironment#getDataLoader(String)}:
+   *
+   * <pre>{@code
+   * {
+   *   install(new GraphQLModule(wiring)
+   *       .dataLoader("author", (List<Long> ids, BatchLoaderEnvironment env) -> {
+   *         Context ctx = env.getContext();
+   *         ...
+   *       }));
+   * }
+   * }</pre>
+   *
+   * The batch loader gets the current {@link io.jooby.Context} via
+   * {@link org.dataloader.BatchLoaderEnvironment#getContext()}.
+   *
+   * @param name Data loader name.
+   * @param loader Batch loader.
+   * @param <K> Key type.
+   * @param <V> Value type.
+   * @return This module.
+   */
+  public @NonNull <K, V> GraphQLModule dataLoader(@NonNull String name,
+      @NonNull BatchLoaderWithContext<K, V> loader) {
+    dataLoaders.put(name, loader);
+    return this;
+  }
+
+  /**
+   * Register a mapped batch loader. See {@link #dataLoader(String, BatchLoaderWithContext)}.
+   *
+   * @param name Data loader name.
+   * @param loader Mapped batch loader.
+   * @param <K> Key type.
+   * @param <V> Value type.
+   * @return This module.
+   */
+  public @NonNull <K, V> GraphQLModule mappedDataLoader(@NonNull String name,
+      @NonNull MappedBatchLoaderWithContext<K, V> loader) {
+    dataLoaders.put(name, loader);
+    return this;
+  }
+
+  /**
+   * Register a batch loader by type. Batch loader is resolved from service registry (usually a
+   * dependency injection framework) on every request. Type must implement
+   * {@link BatchLoaderWithContext} or {@link MappedBatchLoaderWithContext}. See
+   * {@link #dataLoader(String, BatchLoaderWithContext)}.
+   *
+   * @param name Data loader name.
+   * @param loaderType Batch loader type.
+   * @return This module.
+   */
+  public @NonNull GraphQLModule dataLoader(@NonNull String name, @NonNull Class<?> loaderType) {
+    if (!BatchLoaderWithContext.class.isAssignableFrom(loaderType)
+        && !MappedBatchLoaderWithContext.class.isAssignableFrom(loaderType)) {
+      throw new IllegalArgumentException("Unsupported data loader: " + loaderType.getName());
+    }
+    dataLoaders.put(name, loaderType);
+    return this;
+  }
+
   private void executionMode(Route route, boolean async) {
     if (async) {
       route.setReturnType(CompletableFuture.class);
@@ -12,8 +12,12 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 
 public class BlockingGraphQLHandler extends GraphQLHandler {
 
+  public BlockingGraphQLHandler(GraphQL graphQL, DataLoaders dataLoaders) {
+    super(graphQL, dataLoaders);
+  }
+
   public BlockingGraphQLHandler(GraphQL graphQL) {
-    super(graphQL);
+    this(graphQL, null);
   }
 
   @NonNull @Override public Object apply(@NonNull Context ctx) {
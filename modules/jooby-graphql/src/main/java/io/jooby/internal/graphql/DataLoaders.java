@@ -0,0 +1,56 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.graphql;
+
+import io.jooby.Context;
+import org.dataloader.BatchLoaderWithContext;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderFactory;
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.DataLoaderRegistry;
+import org.dataloader.MappedBatchLoaderWithContext;
+
+import java.util.Map;
+
+/**
+ * Creates a new {@link DataLoaderRegistry} per execution. Data loaders cache values and group keys
+ * per request, loaders are shared. Batch loaders get access to the current {@link Context} via
+ * {@link org.dataloader.BatchLoaderEnvironment#getContext()}.
+ */
+public class DataLoaders {
+
+  /** Batch loader instances or batch loader types (resolved from service registry). */
+  private final Map<String, Object> loaders;
+
+  public DataLoaders(Map<String, Object> loaders) {
+    this.loaders = loaders;
+  }
+
+  public DataLoaderRegistry newRegistry(Context ctx) {
+    DataLoaderRegistry registry = new DataLoaderRegistry();
+    DataLoaderOptions options = DataLoaderOptions.newOptions()
+        .setBatchLoaderContextProvider(() -> ctx);
+    for (Map.Entry<String, Object> e : loaders.entrySet()) {
+      registry.register(e.getKey(), newDataLoader(ctx, e.getKey(), e.getValue(), options));
+    }
+    return registry;
+  }
+
+  private DataLoader<?, ?> newDataLoader(Context ctx, String name, Object loader,
+      DataLoaderOptions options) {
+    if (loader instanceof Class) {
+      loader = ctx.require((Class<?>) loader);
+    }
+    if (loader instanceof BatchLoaderWithContext) {
+      return DataLoaderFactory.newDataLoader((BatchLoaderWithContext<?, ?>) loader, options);
+    }
+    if (loader instanceof MappedBatchLoaderWithContext) {
+      return DataLoaderFactory
+          .newMappedDataLoader((MappedBatchLoaderWithContext<?, ?>) loader, options);
+    }
+    throw new IllegalStateException("Unsupported data loader: " + name + ": " + loader);
+  }
+}
@@ -0,0 +1,124 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.graphql;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport;
+import graphql.execution.preparsed.persisted.PersistedQueryCache;
+import graphql.execution.preparsed.persisted.PersistedQueryCacheMiss;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.jooby.SneakyThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps parsed and validated documents, so the same query is parsed and validated once.
+ *
+ * Optionally, supports automatic persisted queries: clients send the SHA-256 hash of the query
+ * instead of the query. Hashes are registered the first time the query is sent with its hash,
+ * once the hash is verified: otherwise a client could register any query under the hash of a
+ * different one.
+ *
+ * Both caches are bounded: they are cleared once they reach the max size. Applications send a
+ * limited set of queries, so the cache fills up again quickly with the ones in use.
+ */
+public class DocumentCache implements PreparsedDocumentProvider, PersistedQueryCache {
+
+  /** Default max number of documents. */
+  public static final int MAX_SIZE = 1000;
+
+  private final int maxSize;
+
+  private final Map<String, PreparsedDocumentEntry> documents = new ConcurrentHashMap<>();
+
+  private final Map<Object, PreparsedDocumentEntry> persisted;
+
+  private final PersistedQuerySupport persistedQuerySupport;
+
+  public DocumentCache(int maxSize, boolean persistedQueries) {
+    this.maxSize = maxSize;
+    if (persistedQueries) {
+      this.persisted = new ConcurrentHashMap<>();
+      this.persistedQuerySupport = new ApolloPersistedQuerySupport(this);
+    } else {
+      this.persisted = null;
+      this.persistedQuerySupport = null;
+    }
+  }
+
+  @Override public PreparsedDocumentEntry getDocument(ExecutionInput input,
+      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+    if (persistedQuerySupport == null) {
+      return document(input, parseAndValidate);
+    }
+    // persisted query support falls back to given function when there is no persisted query id
+    return persistedQuerySupport
+        .getDocument(input, executionInput -> document(executionInput, parseAndValidate));
+  }
+
+  @Override public PreparsedDocumentEntry getPersistedQueryDocument(Object persistedQueryId,
+      ExecutionInput input, PersistedQueryCacheMiss onCacheMiss) throws PersistedQueryNotFound {
+    PreparsedDocumentEntry entry = persisted.get(persistedQueryId);
+    if (entry == null) {
+      String query = input.getQuery();
+      if (query == null || query.isEmpty()
+          || query.equals(PersistedQuerySupport.PERSISTED_QUERY_MARKER)) {
+        throw new PersistedQueryNotFound(persistedQueryId);
+      }
+      if (!sha256(query).equalsIgnoreCase(persistedQueryId.toString())) {
+        // same error Apollo clients get for unknown hashes, a valid hash is never found
+        throw new PersistedQueryNotFound(persistedQueryId);
+      }
+      entry = onCacheMiss.apply(query);
+      put(persisted, maxSize > 0 ? maxSize : MAX_SIZE, persistedQueryId, entry);
+    }
+    return entry;
+  }
+
+  private PreparsedDocumentEntry document(ExecutionInput input,
+      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+    if (maxSize <= 0) {
+      return parseAndValidate.apply(input);
+    }
+    String query = input.getQuery();
+    PreparsedDocumentEntry entry = documents.get(query);
+    if (entry == null) {
+      entry = parseAndValidate.apply(input);
+      put(documents, maxSize, query, entry);
+    }
+    return entry;
+  }
+
+  private static String sha256(String query) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest(query.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException x) {
+      throw SneakyThrows.propagate(x);
+    }
+  }
+
+  private static <K> void put(Map<K, PreparsedDocumentEntry> cache, int maxSize, K key,
+      PreparsedDocumentEntry entry) {
+    if (cache.size() >= maxSize) {
+      cache.clear();
+    }
+    cache.put(key, entry);
+  }
+}
@@ -10,22 +10,41 @@ import com.google.gson.GsonBuilder;
 import graphql.ExecutionInput;
 import graphql.ExecutionResult;
 import graphql.GraphQL;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.jooby.Body;
 import io.jooby.Context;
+import io.jooby.ForwardingContext;
+import io.jooby.MediaType;
+import io.jooby.MessageDecoder;
+import io.jooby.Reified;
 import io.jooby.Route;
 import io.jooby.Router;
+import io.jooby.SneakyThrows;
+import io.jooby.exception.MissingValueException;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Map;
 
 public class GraphQLHandler implements Route.Handler {
+  private static final Type MAP = Reified.map(String.class, Object.class).getType();
+
   private static final Gson json = new GsonBuilder()
       .create();
 
   protected GraphQL graphQL;
 
-  public GraphQLHandler(GraphQL graphQL) {
+  private final DataLoaders dataLoaders;
+
+  public GraphQLHandler(GraphQL graphQL, DataLoaders dataLoaders) {
     this.graphQL = graphQL;
+    this.dataLoaders = dataLoaders;
+  }
+
+  public GraphQLHandler(GraphQL graphQL) {
+    this(graphQL, null);
   }
 
   @NonNull @Override public Object apply(@NonNull Context ctx) {
@@ -39,20 +58,54 @@ public class GraphQLHandler implements Route.Handler {
       request = ctx.body(GraphQLRequest.class);
     } else {
       request = new GraphQLRequest();
-      String query = ctx.query("query").value();
+      String query = ctx.query("query").valueOrNull();
       String operationName = ctx.query("operationName").valueOrNull();
-      Map<String, Object> variables = ctx.query("variables").toOptional()
-          .filter(string -> !string.equals("{}"))
-          .map(str -> json.fromJson(str,Map.class))
-          .orElseGet(Collections::emptyMap);
       request.setOperationName(operationName);
       request.setQuery(query);
-      request.setVariables(variables);
+      request.setVariables(jsonMap(ctx, ctx.query("variables").valueOrNull()));
+      request.setExtensions(jsonMap(ctx, ctx.query("extensions").valueOrNull()));
+    }
+    String query = request.getQuery();
+    if (query == null) {
+      if (!request.getExtensions().containsKey("persistedQuery")) {
+        throw new MissingValueException("query");
+      }
+      // persisted query: hash only, see extensions
+      query = PersistedQuerySupport.PERSISTED_QUERY_MARKER;
     }
-    return ExecutionInput.newExecutionInput(request.getQuery())
+    ExecutionInput.Builder input = ExecutionInput.newExecutionInput(query)
         .operationName(request.getOperationName())
         .context(ctx)
         .variables(request.getVariables())
-        .build();
+        .extensions(request.getExtensions());
+    if (dataLoaders != null) {
+      input.dataLoaderRegistry(dataLoaders.newRegistry(ctx));
+    }
+    return input.build();
+  }
+
+  /**
+   * Parse a JSON query parameter using the application JSON decoder, falls back to Gson when
+   * there is no JSON decoder.
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> jsonMap(Context ctx, String value) {
+    if (value == null || value.equals("{}")) {
+      return Collections.emptyMap();
+    }
+    MessageDecoder decoder = ctx.decoder(MediaType.json);
+    if (decoder == MessageDecoder.UNSUPPORTED_MEDIA_TYPE) {
+      return json.fromJson(value, MAP);
+    }
+    Body body = Body.of(ctx, value.getBytes(StandardCharsets.UTF_8));
+    try {
+      return (Map<String, Object>) decoder.decode(new ForwardingContext(ctx) {
+        @NonNull @Override public Body body() {
+          return body;
+        }
+      }, MAP);
+    } catch (Exception x) {
+      throw SneakyThrows.propagate(x);
+    }
   }
 }
@@ -15,6 +15,8 @@ public class GraphQLRequest {
 
   private Map<String, Object> variables;
 
+  private Map<String, Object> extensions;
+
   public String getQuery() {
     return query;
   }
@@ -38,4 +40,12 @@ public class GraphQLRequest {
   public void setVariables(Map<String, Object> variables) {
     this.variables = variables;
   }
+
+  public Map<String, Object> getExtensions() {
+    return extensions == null ? Collections.emptyMap() : extensions;
+  }
+
+  public void setExtensions(Map<String, Object> extensions) {
+    this.extensions = extensions;
+  }
 }
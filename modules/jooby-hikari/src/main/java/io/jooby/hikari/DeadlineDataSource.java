@@ -0,0 +1,79 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.hikari;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import io.jooby.Deadline;
+
+/**
+ * Data source that applies the request {@link Deadline} as query timeout of statements.
+ *
+ * @author edgar
+ * @since 3.0.0
+ */
+class DeadlineDataSource implements InvocationHandler {
+  private final Object target;
+
+  private DeadlineDataSource(Object target) {
+    this.target = target;
+  }
+
+  static DataSource wrap(DataSource dataSource) {
+    return proxy(DataSource.class, dataSource);
+  }
+
+  @Override public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    switch (method.getName()) {
+      case "equals":
+        return proxy == args[0];
+      case "hashCode":
+        return System.identityHashCode(proxy);
+      default:
+        Object result = invoke(method, args);
+        if (result instanceof Connection && method.getName().equals("getConnection")) {
+          return proxy(Connection.class, result);
+        }
+        if (result instanceof Statement) {
+          queryTimeout((Statement) result);
+        }
+        return result;
+    }
+  }
+
+  private Object invoke(Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException x) {
+      throw x.getCause();
+    }
+  }
+
+  private static void queryTimeout(Statement statement) throws Exception {
+    Deadline deadline = Deadline.current();
+    if (deadline != null) {
+      try {
+        deadline.check();
+      } catch (Exception x) {
+        statement.close();
+        throw x;
+      }
+      statement.setQueryTimeout(deadline.getRemainingSeconds());
+    }
+  }
+
+  private static <T> T proxy(Class<T> type, Object target) {
+    return type.cast(Proxy.newProxyInstance(DeadlineDataSource.class.getClassLoader(),
+        new Class[]{type}, new DeadlineDataSource(target)));
+  }
+}
@@ -131,6 +131,8 @@ public class HikariModule implements Extension {
   private Object metricRegistry;
   private Object healthCheckRegistry;
 
+  private boolean deadline;
+
   /**
    * Creates a new Hikari module. The database parameter can be one of:
    *
@@ -194,6 +196,21 @@ public class HikariModule implements Extension {
     return this;
   }
 
+  /**
+   * Apply the request {@link io.jooby.Deadline} as query timeout of JDBC statements. Statements
+   * created while a route handler with a deadline runs get the remaining time of the deadline as
+   * query timeout. Statements created once the deadline was exceeded fail with a
+   * <code>504</code>. Default is: <code>false</code>.
+   *
+   * @param deadline True for applying the request deadline.
+   * @return this instance
+   * @see io.jooby.DeadlineHandler
+   */
+  public HikariModule deadline(boolean deadline) {
+    this.deadline = deadline;
+    return this;
+  }
+
   @Override public void install(@NonNull Jooby application) {
     if (hikari == null) {
       hikari = build(application.getEnvironment(), database);
@@ -206,7 +223,10 @@ public class HikariModule implements Extension {
       hikari.setHealthCheckRegistry(healthCheckRegistry);
     }
 
-    HikariDataSource dataSource = new HikariDataSource(hikari);
+    HikariDataSource hikariDataSource = new HikariDataSource(hikari);
+    DataSource dataSource = deadline
+        ? DeadlineDataSource.wrap(hikariDataSource)
+        : hikariDataSource;
 
     ServiceRegistry registry = application.getServices();
     ServiceKey<DataSource> key = ServiceKey.key(DataSource.class, database);
@@ -216,7 +236,7 @@ public class HikariModule implements Extension {
     /** Specific access: */
     registry.put(key, dataSource);
 
-    application.onStop(dataSource::close);
+    application.onStop(hikariDataSource::close);
   }
 
   /**
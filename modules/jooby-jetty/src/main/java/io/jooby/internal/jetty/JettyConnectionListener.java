@@ -0,0 +1,34 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.jetty;
+
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.server.HttpConnection;
+import org.eclipse.jetty.server.Request;
+
+import io.jooby.Context;
+import io.jooby.Deadline;
+
+/**
+ * Cancel the deadline of the running request (if any) when the client disconnects.
+ */
+public class JettyConnectionListener implements Connection.Listener {
+  /** Request attribute with the web context. */
+  static final String CONTEXT = Context.class.getName();
+
+  @Override public void onOpened(Connection connection) {
+  }
+
+  @Override public void onClosed(Connection connection) {
+    if (connection instanceof HttpConnection) {
+      Request request = ((HttpConnection) connection).getHttpChannel().getRequest();
+      Object context = request.getAttribute(CONTEXT);
+      if (context instanceof Context) {
+        Deadline.cancel((Context) context);
+      }
+    }
+  }
+}
@@ -29,6 +29,9 @@ import io.jooby.StatusCode;
 import io.jooby.Value;
 import io.jooby.ValueNode;
 import io.jooby.WebSocket;
+import io.jooby.internal.CookieParser;
+import io.jooby.internal.HeadersValue;
+import io.jooby.internal.LocaleCache;
 import jakarta.servlet.AsyncContext;
 import jakarta.servlet.MultipartConfigElement;
 import jakarta.servlet.ServletException;
@@ -68,8 +71,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Executor;
@@ -96,6 +99,8 @@ public class JettyContext implements DefaultContext {
   private MediaType responseType;
   private Map<String, String> cookies;
   private HashMap<String, String> responseCookies;
+  private Locale locale;
+  private List<Locale> locales;
   private boolean responseStarted;
   private Boolean resetHeadersOnError;
   private String method;
@@ -120,16 +125,25 @@ public class JettyContext implements DefaultContext {
     return attributes;
   }
 
+
+  @NonNull @Override public Locale locale() {
+    if (locale == null) {
+      locale = LocaleCache.locale(this);
+    }
+    return locale;
+  }
+
+  @NonNull @Override public List<Locale> locales() {
+    if (locales == null) {
+      locales = LocaleCache.locales(this);
+    }
+    return locales;
+  }
+
   @Override public @NonNull Map<String, String> cookieMap() {
     if (this.cookies == null) {
-      this.cookies = Collections.emptyMap();
-      jakarta.servlet.http.Cookie[] cookies = request.getCookies();
-      if (cookies != null) {
-        this.cookies = new LinkedHashMap<>(cookies.length);
-        for (jakarta.servlet.http.Cookie it : cookies) {
-          this.cookies.put(it.getName(), it.getValue());
-        }
-      }
+      this.cookies = CookieParser.parse(
+          request.getHeaders(HttpHeader.COOKIE.asString()).asIterator());
     }
     return cookies;
   }
@@ -235,15 +249,14 @@ public class JettyContext implements DefaultContext {
     return multipart;
   }
 
+  @NonNull @Override public Value header(@NonNull String name) {
+    return Value.create(this, name, request.getHttpFields().getValuesList(name));
+  }
+
   @NonNull @Override public ValueNode header() {
     if (headers == null) {
-      Enumeration<String> names = request.getHeaderNames();
-      Map<String, Collection<String>> headerMap = new LinkedHashMap<>();
-      while (names.hasMoreElements()) {
-        String name = names.nextElement();
-        headerMap.put(name, Collections.list(request.getHeaders(name)));
-      }
-      headers = Value.headers(this, headerMap);
+      headers = new HeadersValue(this, name -> request.getHttpFields().getValuesList(name),
+          () -> request.getHttpFields().getFieldNamesCollection());
     }
     return headers;
   }
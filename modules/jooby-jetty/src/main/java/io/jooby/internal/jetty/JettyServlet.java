@@ -35,6 +35,7 @@ public class JettyServlet extends GenericServlet {
       response.setHeader(HttpHeader.SERVER.asString(), "J");
     }
     JettyContext context = new JettyContext(request, router, bufferSize, maxRequestSize);
+    request.setAttribute(JettyConnectionListener.CONTEXT, context);
     router.match(context).execute(context);
   }
 }
@@ -48,6 +48,7 @@ import io.jooby.ServerOptions;
 import io.jooby.SneakyThrows;
 import io.jooby.SslOptions;
 import io.jooby.WebSocket;
+import io.jooby.internal.jetty.JettyConnectionListener;
 import io.jooby.internal.jetty.JettyServlet;
 
 /**
@@ -135,6 +136,7 @@ public class Jetty extends io.jooby.Server.Base {
             connectionFactories.toArray(new ConnectionFactory[0]));
         http.setPort(options.getPort());
         http.setHost(options.getHost());
+        http.addBean(new JettyConnectionListener());
 
         server.addConnector(http);
       }
@@ -175,6 +177,7 @@ public class Jetty extends io.jooby.Server.Base {
                 .toArray(new ConnectionFactory[0]));
         secureConnector.setPort(options.getSecurePort());
         secureConnector.setHost(options.getHost());
+        secureConnector.addBean(new JettyConnectionListener());
 
         server.addConnector(secureConnector);
       } else if (options.isHttpsOnly()) {
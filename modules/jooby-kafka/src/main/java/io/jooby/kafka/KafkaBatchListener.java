@@ -0,0 +1,34 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.kafka;
+
+import java.util.List;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Process Kafka records in batches. A batch contains records of a single partition, in offset
+ * order. Batches of the same partition are processed in order, by one thread at a time. Batches of
+ * different partitions are processed in parallel.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author edgar
+ * @since 3.0.0
+ */
+@FunctionalInterface
+public interface KafkaBatchListener<K, V> {
+  /**
+   * Process a batch of records. On exception, the whole batch is retried after a backoff, see
+   * {@link KafkaConsumerRunner}.
+   *
+   * @param records Records of a single partition.
+   * @throws Exception If something goes wrong.
+   */
+  void onMessages(@NonNull List<ConsumerRecord<K, V>> records) throws Exception;
+}
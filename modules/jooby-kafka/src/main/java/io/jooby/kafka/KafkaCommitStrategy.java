@@ -0,0 +1,32 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.kafka;
+
+/**
+ * How {@link KafkaConsumerRunner} commits offsets.
+ *
+ * @author edgar
+ * @since 3.0.0
+ */
+public enum KafkaCommitStrategy {
+  /**
+   * Let Kafka commit offsets periodically (<code>enable.auto.commit</code>). Offsets might be
+   * committed before records are processed.
+   */
+  AUTO,
+
+  /**
+   * Commit offsets of processed records using <code>commitSync</code>, from the poll loop. This is
+   * the default.
+   */
+  SYNC,
+
+  /**
+   * Commit offsets of processed records using <code>commitAsync</code>, from the poll loop.
+   * Offsets are committed synchronously on rebalance and shutdown.
+   */
+  ASYNC
+}
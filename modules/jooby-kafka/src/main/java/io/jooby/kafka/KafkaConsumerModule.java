@@ -5,8 +5,18 @@
  */
 package io.jooby.kafka;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+
 import edu.umd.cs.findbugs.annotations.NonNull;
 
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 
 import io.jooby.Extension;
@@ -40,12 +50,39 @@ import io.jooby.Jooby;
  *  kafka.consumer.value.deserializer = "org.apache.kafka.common.serialization.StringDeserializer"
  * }</pre>
  *
+ * Listeners run on a managed poll loop, one per listener, see {@link KafkaConsumerRunner}. Each
+ * listener owns its {@link KafkaConsumer}, so no shared consumer is registered when listeners are
+ * present:
+ *
+ * <pre>{@code
+ * {
+ *   install(new KafkaConsumerModule()
+ *       .listen("orders", (ConsumerRecord<String, String> record) -> {
+ *         // process record
+ *       })
+ *       .listenBatch("events", (List<ConsumerRecord<String, String>> records) -> {
+ *         // process records of a single partition
+ *       }));
+ * }
+ * }</pre>
+ *
  * @author edgar
  * @since 2.9.3
  */
 public class KafkaConsumerModule implements Extension {
   private final String key;
 
+  private final List<BiFunction<Properties, Executor, KafkaConsumerRunner<?, ?>>> listeners =
+      new ArrayList<>();
+
+  private Executor executor;
+
+  private KafkaCommitStrategy commitStrategy = KafkaCommitStrategy.SYNC;
+
+  private Duration pollTimeout;
+
+  private Duration retryBackoff;
+
   /**
    * Creates a new kafka consumer module.
    *
@@ -62,7 +99,142 @@ public class KafkaConsumerModule implements Extension {
     this("kafka.consumer");
   }
 
+  /**
+   * Process records of the given topics, one at a time. The listener gets its own
+   * {@link KafkaConsumer} and poll loop.
+   *
+   * @param topic Topic.
+   * @param listener Record listener.
+   * @param <K> Key type.
+   * @param <V> Value type.
+   * @return This module.
+   */
+  public @NonNull <K, V> KafkaConsumerModule listen(@NonNull String topic,
+      @NonNull KafkaListener<K, V> listener) {
+    return listen(Arrays.asList(topic), listener);
+  }
+
+  /**
+   * Process records of the given topics, one at a time. The listener gets its own
+   * {@link KafkaConsumer} and poll loop.
+   *
+   * @param topics Topics.
+   * @param listener Record listener.
+   * @param <K> Key type.
+   * @param <V> Value type.
+   * @return This module.
+   */
+  public @NonNull <K, V> KafkaConsumerModule listen(@NonNull Collection<String> topics,
+      @NonNull KafkaListener<K, V> listener) {
+    listeners.add((properties, executor) ->
+        new KafkaConsumerRunner<K, V>(new KafkaConsumer<>(properties), topics, executor,
+            listener));
+    return this;
+  }
+
+  /**
+   * Process records of the given topics in batches. The listener gets its own
+   * {@link KafkaConsumer} and poll loop.
+   *
+   * @param topic Topic.
+   * @param listener Batch listener.
+   * @param <K> Key type.
+   * @param <V> Value type.
+   * @return This module.
+   */
+  public @NonNull <K, V> KafkaConsumerModule listenBatch(@NonNull String topic,
+      @NonNull KafkaBatchListener<K, V> listener) {
+    return listenBatch(Arrays.asList(topic), listener);
+  }
+
+  /**
+   * Process records of the given topics in batches. The listener gets its own
+   * {@link KafkaConsumer} and poll loop.
+   *
+   * @param topics Topics.
+   * @param listener Batch listener.
+   * @param <K> Key type.
+   * @param <V> Value type.
+   * @return This module.
+   */
+  public @NonNull <K, V> KafkaConsumerModule listenBatch(@NonNull Collection<String> topics,
+      @NonNull KafkaBatchListener<K, V> listener) {
+    listeners.add((properties, executor) ->
+        new KafkaConsumerRunner<K, V>(new KafkaConsumer<>(properties), topics, executor,
+            listener));
+    return this;
+  }
+
+  /**
+   * Set the executor where listeners run. Default is the application worker executor.
+   *
+   * @param executor Executor.
+   * @return This module.
+   */
+  public @NonNull KafkaConsumerModule setExecutor(@NonNull Executor executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  /**
+   * Set the commit strategy for listeners. Default is: {@link KafkaCommitStrategy#SYNC}.
+   *
+   * @param commitStrategy Commit strategy.
+   * @return This module.
+   */
+  public @NonNull KafkaConsumerModule setCommitStrategy(
+      @NonNull KafkaCommitStrategy commitStrategy) {
+    this.commitStrategy = commitStrategy;
+    return this;
+  }
+
+  /**
+   * Set max time to block on poll for listeners.
+   *
+   * @param pollTimeout Max time to block on poll.
+   * @return This module.
+   */
+  public @NonNull KafkaConsumerModule setPollTimeout(@NonNull Duration pollTimeout) {
+    this.pollTimeout = pollTimeout;
+    return this;
+  }
+
+  /**
+   * Set time a partition stays paused after a listener failure, before records are processed
+   * again. Default is: <code>1s</code>.
+   *
+   * @param retryBackoff Time a partition stays paused after a listener failure.
+   * @return This module.
+   */
+  public @NonNull KafkaConsumerModule setRetryBackoff(@NonNull Duration retryBackoff) {
+    this.retryBackoff = retryBackoff;
+    return this;
+  }
+
   @Override public void install(@NonNull Jooby application) {
-    KafkaHelper.install(application, key, KafkaConsumer::new);
+    if (listeners.isEmpty()) {
+      KafkaHelper.install(application, key, KafkaConsumer::new);
+    } else {
+      Properties properties = KafkaHelper.properties(application, key);
+      if (commitStrategy != KafkaCommitStrategy.AUTO) {
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+      }
+      application.onStarted(() -> {
+        Executor executor = this.executor == null ? application.getWorker() : this.executor;
+        for (int i = 0; i < listeners.size(); i++) {
+          KafkaConsumerRunner<?, ?> runner = listeners.get(i).apply(properties, executor);
+          runner.setCommitStrategy(commitStrategy);
+          if (pollTimeout != null) {
+            runner.setPollTimeout(pollTimeout);
+          }
+          if (retryBackoff != null) {
+            runner.setRetryBackoff(retryBackoff);
+          }
+          Thread thread = new Thread(runner, "kafka-" + key + "-" + i);
+          thread.start();
+          application.onStop(runner);
+        }
+      });
+    }
   }
 }
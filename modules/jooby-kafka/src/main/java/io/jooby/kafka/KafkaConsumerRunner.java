@@ -0,0 +1,430 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.jooby.SneakyThrows;
+
+/**
+ * Poll loop for a Kafka {@link Consumer}. Records are dispatched to an {@link Executor}, one task
+ * per partition and poll:
+ *
+ * - A partition is paused while its records are being processed, so records of the same partition
+ *   are processed in order and the consumer doesn't fetch more than it can process (back-pressure).
+ * - Different partitions are processed in parallel.
+ * - The poll loop keeps running while listeners work, so the consumer stays in the group.
+ *
+ * Offsets of processed records are committed from the poll loop (see {@link KafkaCommitStrategy}),
+ * including on partition revocation and on {@link #close()}. A failed commit is logged and retried
+ * on next poll, it doesn't stop the consumer.
+ *
+ * Processing is at-least-once: when a listener throws, the partition stays paused for the retry
+ * backoff (see {@link #setRetryBackoff(Duration)}), then it is rewound to the failed record (record
+ * listener) or to the first record of the batch (batch listener) and processed again. Records
+ * before the failed one are committed. A record that always fails (poison message) is retried
+ * forever and blocks its partition, so listeners must handle (or dead-letter) records they can't
+ * process.
+ *
+ * The runner owns the consumer: it must not be used from another thread and is closed when the
+ * poll loop ends.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author edgar
+ * @since 3.0.0
+ */
+public class KafkaConsumerRunner<K, V> implements Runnable, AutoCloseable,
+    ConsumerRebalanceListener {
+
+  private static class Completion {
+    private final TopicPartition partition;
+
+    /** Offset to commit: next record to process. */
+    private final long offset;
+
+    private final boolean failed;
+
+    Completion(TopicPartition partition, long offset, boolean failed) {
+      this.partition = partition;
+      this.offset = offset;
+      this.failed = failed;
+    }
+  }
+
+  /** Failure of a record listener, keeps the offset of the failed record. */
+  private static class RecordException extends RuntimeException {
+    private final long offset;
+
+    RecordException(ConsumerRecord<?, ?> record, Throwable cause) {
+      super(record.topic() + "-" + record.partition() + "@" + record.offset(), cause);
+      this.offset = record.offset();
+    }
+  }
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
+  private final Consumer<K, V> consumer;
+
+  private final Collection<String> topics;
+
+  private final Executor executor;
+
+  private final KafkaBatchListener<K, V> listener;
+
+  private KafkaCommitStrategy commitStrategy = KafkaCommitStrategy.SYNC;
+
+  private Duration pollTimeout = Duration.ofMillis(500);
+
+  private Duration retryBackoff = Duration.ofSeconds(1);
+
+  private volatile boolean running = true;
+
+  private volatile boolean polling;
+
+  private final CountDownLatch stopped = new CountDownLatch(1);
+
+  /** Partitions being processed. Poll loop only. */
+  private final Map<TopicPartition, CompletableFuture<Void>> inflight = new HashMap<>();
+
+  /** Offsets to commit. Poll loop only. */
+  private final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+
+  /** Failed partitions waiting to be resumed, with resume time. Poll loop only. */
+  private final Map<TopicPartition, Long> retries = new HashMap<>();
+
+  private final ConcurrentLinkedQueue<Completion> completed = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Creates a new runner.
+   *
+   * @param consumer Consumer.
+   * @param topics Topics to subscribe to.
+   * @param executor Executor for listeners.
+   * @param listener Batch listener.
+   */
+  public KafkaConsumerRunner(@NonNull Consumer<K, V> consumer, @NonNull Collection<String> topics,
+      @NonNull Executor executor, @NonNull KafkaBatchListener<K, V> listener) {
+    this.consumer = consumer;
+    this.topics = topics;
+    this.executor = executor;
+    this.listener = listener;
+  }
+
+  /**
+   * Creates a new runner.
+   *
+   * @param consumer Consumer.
+   * @param topics Topics to subscribe to.
+   * @param executor Executor for listeners.
+   * @param listener Record listener.
+   */
+  public KafkaConsumerRunner(@NonNull Consumer<K, V> consumer, @NonNull Collection<String> topics,
+      @NonNull Executor executor, @NonNull KafkaListener<K, V> listener) {
+    this(consumer, topics, executor, batch(listener));
+  }
+
+  /**
+   * Commit strategy. Default is: {@link KafkaCommitStrategy#SYNC}.
+   *
+   * @return Commit strategy.
+   */
+  public @NonNull KafkaCommitStrategy getCommitStrategy() {
+    return commitStrategy;
+  }
+
+  /**
+   * Set commit strategy. For {@link KafkaCommitStrategy#SYNC} and
+   * {@link KafkaCommitStrategy#ASYNC} the consumer must be created with
+   * <code>enable.auto.commit=false</code>.
+   *
+   * @param commitStrategy Commit strategy.
+   * @return This runner.
+   */
+  public @NonNull KafkaConsumerRunner<K, V> setCommitStrategy(
+      @NonNull KafkaCommitStrategy commitStrategy) {
+    this.commitStrategy = commitStrategy;
+    return this;
+  }
+
+  /**
+   * Max time to block on poll. Default is: <code>500ms</code>.
+   *
+   * @return Max time to block on poll.
+   */
+  public @NonNull Duration getPollTimeout() {
+    return pollTimeout;
+  }
+
+  /**
+   * Set max time to block on poll. Partitions whose records has been processed wake up the poll
+   * loop, this timeout only matters when there is no data.
+   *
+   * @param pollTimeout Max time to block on poll.
+   * @return This runner.
+   */
+  public @NonNull KafkaConsumerRunner<K, V> setPollTimeout(@NonNull Duration pollTimeout) {
+    this.pollTimeout = pollTimeout;
+    return this;
+  }
+
+  /**
+   * Time a partition stays paused after a listener failure. Default is: <code>1s</code>.
+   *
+   * @return Time a partition stays paused after a listener failure.
+   */
+  public @NonNull Duration getRetryBackoff() {
+    return retryBackoff;
+  }
+
+  /**
+   * Set time a partition stays paused after a listener failure, before records are processed
+   * again.
+   *
+   * @param retryBackoff Time a partition stays paused after a listener failure.
+   * @return This runner.
+   */
+  public @NonNull KafkaConsumerRunner<K, V> setRetryBackoff(@NonNull Duration retryBackoff) {
+    this.retryBackoff = retryBackoff;
+    return this;
+  }
+
+  @Override public void run() {
+    try {
+      consumer.subscribe(topics, this);
+      while (running) {
+        drain();
+        commit(false);
+        ConsumerRecords<K, V> records;
+        try {
+          polling = true;
+          records = consumer.poll(pollTimeout);
+        } catch (WakeupException x) {
+          // a partition is ready to resume or we are shutting down
+          continue;
+        } finally {
+          polling = false;
+        }
+        for (TopicPartition partition : records.partitions()) {
+          dispatch(partition, records.records(partition));
+        }
+      }
+    } catch (Throwable x) {
+      log.error("kafka consumer for {} resulted in exception", topics, x);
+    } finally {
+      try {
+        awaitInflight(new ArrayList<>(inflight.keySet()));
+        commit(true);
+      } catch (Throwable x) {
+        log.error("kafka consumer for {} failed to commit offsets", topics, x);
+      } finally {
+        consumer.close();
+        stopped.countDown();
+      }
+    }
+  }
+
+  /**
+   * Stop the poll loop and wait for it to finish: in flight records are processed, offsets are
+   * committed and the consumer is closed.
+   */
+  @Override public void close() throws InterruptedException {
+    if (running) {
+      running = false;
+      consumer.wakeup();
+      stopped.await();
+    }
+  }
+
+  /**
+   * Wait up to the given time for the poll loop to finish.
+   *
+   * @param timeout Max time to wait.
+   * @return True if the poll loop finished.
+   * @throws InterruptedException If interrupted.
+   */
+  public boolean await(@NonNull Duration timeout) throws InterruptedException {
+    return stopped.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+    try {
+      awaitInflight(partitions);
+      retries.keySet().removeAll(partitions);
+      commit(true);
+      // offsets of revoked partitions belong to the new owner now: records whose commit failed
+      // are processed again there
+      offsets.keySet().removeAll(partitions);
+    } catch (InterruptedException x) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+  }
+
+  private void dispatch(TopicPartition partition, List<ConsumerRecord<K, V>> records) {
+    long first = records.get(0).offset();
+    long next = records.get(records.size() - 1).offset() + 1;
+    consumer.pause(Collections.singletonList(partition));
+    CompletableFuture<Void> future;
+    try {
+      future = CompletableFuture.runAsync(() -> {
+        try {
+          listener.onMessages(records);
+        } catch (Exception x) {
+          throw SneakyThrows.propagate(x);
+        }
+      }, executor);
+    } catch (RuntimeException x) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(x);
+    }
+    inflight.put(partition, future.whenComplete((value, cause) -> {
+      if (cause == null) {
+        completed.add(new Completion(partition, next, false));
+      } else {
+        Throwable x = cause instanceof CompletionException ? cause.getCause() : cause;
+        long offset = first;
+        if (x instanceof RecordException) {
+          offset = ((RecordException) x).offset;
+          x = x.getCause();
+        }
+        log.error("kafka records for {} were not processed, going to retry from offset {}",
+            partition, offset, x);
+        completed.add(new Completion(partition, offset, true));
+      }
+      if (polling) {
+        consumer.wakeup();
+      }
+    }));
+  }
+
+  /**
+   * Resume processed partitions and collect their offsets. Failed partitions are rewound and
+   * resumed once the retry backoff elapsed.
+   */
+  private void drain() {
+    Set<TopicPartition> assignment = consumer.assignment();
+    long now = System.nanoTime();
+    Completion completion;
+    while ((completion = completed.poll()) != null) {
+      TopicPartition partition = completion.partition;
+      inflight.remove(partition);
+      // records before offset were processed (partitions are processed in order)
+      offsets.put(partition, new OffsetAndMetadata(completion.offset));
+      if (running && assignment.contains(partition)) {
+        if (completion.failed) {
+          consumer.seek(partition, completion.offset);
+          retries.put(partition, now + retryBackoff.toNanos());
+        } else {
+          consumer.resume(Collections.singletonList(partition));
+        }
+      }
+    }
+    Iterator<Map.Entry<TopicPartition, Long>> it = retries.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<TopicPartition, Long> retry = it.next();
+      if (!running || !assignment.contains(retry.getKey())) {
+        it.remove();
+      } else if (now - retry.getValue() >= 0) {
+        it.remove();
+        consumer.resume(Collections.singletonList(retry.getKey()));
+      }
+    }
+  }
+
+  private void awaitInflight(Collection<TopicPartition> partitions) throws InterruptedException {
+    for (TopicPartition partition : partitions) {
+      CompletableFuture<Void> future = inflight.get(partition);
+      if (future != null) {
+        try {
+          future.get();
+        } catch (ExecutionException x) {
+          // logged and recorded by completion
+        }
+      }
+    }
+    drain();
+  }
+
+  /**
+   * Commit collected offsets. A failed commit (rebalance in progress, timeout, etc.) is logged and
+   * its offsets are kept for the next attempt, so the poll loop keeps running.
+   */
+  private void commit(boolean sync) {
+    if (offsets.isEmpty() || commitStrategy == KafkaCommitStrategy.AUTO) {
+      offsets.clear();
+      return;
+    }
+    Map<TopicPartition, OffsetAndMetadata> commit = new HashMap<>(offsets);
+    try {
+      if (commitStrategy == KafkaCommitStrategy.ASYNC && !sync) {
+        consumer.commitAsync(commit, (result, x) -> {
+          if (x != null) {
+            log.warn("kafka commit failed: {}", result, x);
+          }
+        });
+        offsets.clear();
+      } else {
+        for (int attempt = 0; attempt < 2; attempt++) {
+          try {
+            consumer.commitSync(commit);
+            offsets.keySet().removeAll(commit.keySet());
+            return;
+          } catch (WakeupException x) {
+            // pending wakeup from a completed partition or close, try again
+          }
+        }
+      }
+    } catch (InterruptException x) {
+      throw x;
+    } catch (KafkaException x) {
+      log.warn("kafka commit failed: {}, going to retry", commit, x);
+    }
+  }
+
+  private static <K, V> KafkaBatchListener<K, V> batch(KafkaListener<K, V> listener) {
+    return records -> {
+      for (ConsumerRecord<K, V> record : records) {
+        try {
+          listener.onMessage(record);
+        } catch (Exception x) {
+          throw new RecordException(record, x);
+        }
+      }
+    };
+  }
+}
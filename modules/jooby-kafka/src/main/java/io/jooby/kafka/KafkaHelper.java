@@ -18,19 +18,23 @@ final class KafkaHelper {
   private KafkaHelper() {
   }
 
-  public static void install(Jooby application, String key,
-      Function<Properties, AutoCloseable> factory) {
+  public static Properties properties(Jooby application, String key) {
     Environment environment = application.getEnvironment();
 
     Properties properties = new Properties();
     properties.putAll(environment.getProperties(key, null));
+    return properties;
+  }
 
-    AutoCloseable service = factory.apply(properties);
+  public static <T extends AutoCloseable> T install(Jooby application, String key,
+      Function<Properties, T> factory) {
+    T service = factory.apply(properties(application, key));
     ServiceRegistry registry = application.getServices();
 
     application.onStop(service::close);
     Class serviceType = service.getClass();
     registry.putIfAbsent(serviceType, service);
     registry.put(ServiceKey.key(serviceType, key), service);
+    return service;
   }
 }
@@ -0,0 +1,31 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.kafka;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Process Kafka records, one at a time. Records of the same partition are processed in order, by
+ * one thread at a time. Records of different partitions are processed in parallel.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author edgar
+ * @since 3.0.0
+ */
+@FunctionalInterface
+public interface KafkaListener<K, V> {
+  /**
+   * Process a record. On exception, records before this one are committed and the partition is
+   * retried from this record after a backoff, see {@link KafkaConsumerRunner}.
+   *
+   * @param record Record.
+   * @throws Exception If something goes wrong.
+   */
+  void onMessage(@NonNull ConsumerRecord<K, V> record) throws Exception;
+}
@@ -11,6 +11,8 @@ import org.apache.kafka.clients.producer.KafkaProducer;
 
 import io.jooby.Extension;
 import io.jooby.Jooby;
+import io.jooby.ServiceKey;
+import io.jooby.ServiceRegistry;
 
 /**
  * Kafka producer module: https://jooby.io/modules/kafka.
@@ -26,6 +28,13 @@ import io.jooby.Jooby;
  *     KafkaProducer producer = require(KafkaProducer.class);
  *     // work with producer
  *   });
+ *
+ *   post("/events", ctx -> {
+ *     KafkaSender sender = require(KafkaSender.class);
+ *     // non-blocking send
+ *     return sender.send("events", null, ctx.body().value())
+ *         .thenApply(metadata -> StatusCode.ACCEPTED);
+ *   });
  * }
  * }</pre>
  *
@@ -61,6 +70,12 @@ public class KafkaProducerModule implements Extension {
   }
 
   @Override public void install(@NonNull Jooby application) {
-    KafkaHelper.install(application, key, KafkaProducer::new);
+    KafkaProducer<Object, Object> producer = KafkaHelper.install(application, key,
+        KafkaProducer::new);
+
+    KafkaSender<Object, Object> sender = new KafkaSender<>(producer);
+    ServiceRegistry registry = application.getServices();
+    registry.putIfAbsent(KafkaSender.class, sender);
+    registry.put(ServiceKey.key(KafkaSender.class, key), sender);
   }
 }
@@ -0,0 +1,359 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import io.jooby.Context;
+import io.jooby.MessageEncoder;
+
+/**
+ * Asynchronous facade on top of a Kafka {@link Producer}. Sends return a
+ * {@link CompletableFuture}, so route handlers can return them and don't block a worker thread
+ * waiting for the broker acknowledgment:
+ *
+ * <pre>{@code
+ * {
+ *   MessageEncoder json = new JacksonModule();
+ *
+ *   post("/events", ctx -> {
+ *     KafkaSender<String, byte[]> sender = require(KafkaSender.class);
+ *     return sender.send(ctx, json, "events", null, ctx.body(Event.class))
+ *         .thenApply(metadata -> StatusCode.ACCEPTED);
+ *   });
+ * }
+ * }</pre>
+ *
+ * Sending is not fully non-blocking: {@link Producer#send(ProducerRecord)} blocks the caller up to
+ * <code>max.block.ms</code> (default 60s) while topic metadata is fetched or when the producer
+ * buffer (<code>buffer.memory</code>) is full. Lower <code>max.block.ms</code> when calling it
+ * from a request thread.
+ *
+ * Records sent while handling a request can be grouped using {@link #batch()}: they are handed to
+ * the producer together on {@link Batch#flush()}, so they end up in the same producer batch
+ * (see <code>linger.ms</code> and <code>batch.size</code>).
+ *
+ * Latency, error and batch size metrics are available via {@link #getMetrics()}.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ * @author edgar
+ * @since 3.0.0
+ */
+public class KafkaSender<K, V> {
+
+  /**
+   * Records of a single unit of work (usually a request), sent together on {@link #flush()}.
+   * Not thread-safe.
+   */
+  public class Batch {
+    private final List<ProducerRecord<K, V>> records = new ArrayList<>();
+
+    /** First encoding failure, reported by {@link #flush()}. */
+    private Exception failure;
+
+    /**
+     * Add a record.
+     *
+     * @param record Record.
+     * @return This batch.
+     */
+    public @NonNull Batch send(@NonNull ProducerRecord<K, V> record) {
+      records.add(record);
+      return this;
+    }
+
+    /**
+     * Add a record.
+     *
+     * @param topic Topic.
+     * @param key Key or <code>null</code>.
+     * @param value Value.
+     * @return This batch.
+     */
+    public @NonNull Batch send(@NonNull String topic, @Nullable K key, @NonNull V value) {
+      return send(new ProducerRecord<>(topic, key, value));
+    }
+
+    /**
+     * Add a record. The value is encoded using the given encoder, see
+     * {@link KafkaSender#send(Context, MessageEncoder, String, Object, Object)}. Encoding failures
+     * are reported by {@link #flush()}.
+     *
+     * @param ctx Web context.
+     * @param encoder Value encoder.
+     * @param topic Topic.
+     * @param key Key or <code>null</code>.
+     * @param value Value.
+     * @return This batch.
+     */
+    public @NonNull Batch send(@NonNull Context ctx, @NonNull MessageEncoder encoder,
+        @NonNull String topic, @Nullable K key, @NonNull Object value) {
+      try {
+        return send(topic, key, encode(ctx, encoder, value));
+      } catch (Exception x) {
+        if (failure == null) {
+          failure = x;
+        }
+        return this;
+      }
+    }
+
+    /**
+     * Number of records in this batch.
+     *
+     * @return Number of records in this batch.
+     */
+    public int size() {
+      return records.size();
+    }
+
+    /**
+     * Send all the records. The returned future completes once all of them are acknowledged, or
+     * completes exceptionally with the first error. Records whose value failed to encode are not
+     * sent, the future completes exceptionally with the encoding error.
+     *
+     * @return Record metadata, in send order.
+     */
+    public @NonNull CompletableFuture<List<RecordMetadata>> flush() {
+      List<CompletableFuture<RecordMetadata>> futures = new ArrayList<>(records.size());
+      for (ProducerRecord<K, V> record : records) {
+        futures.add(KafkaSender.this.send(record));
+      }
+      metrics.batches.increment();
+      metrics.batchRecords.add(records.size());
+      records.clear();
+      if (failure != null) {
+        futures.add(CompletableFuture.failedFuture(failure));
+        failure = null;
+      }
+      return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+          .thenApply(ignored -> {
+            List<RecordMetadata> result = new ArrayList<>(futures.size());
+            for (CompletableFuture<RecordMetadata> future : futures) {
+              result.add(future.join());
+            }
+            return result;
+          });
+    }
+  }
+
+  /**
+   * Send metrics.
+   */
+  public static class Metrics {
+    private final LongAdder sent = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder latency = new LongAdder();
+
+    private final LongAccumulator maxLatency = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder batchRecords = new LongAdder();
+
+    /**
+     * Number of acknowledged records.
+     *
+     * @return Number of acknowledged records.
+     */
+    public long getSent() {
+      return sent.sum();
+    }
+
+    /**
+     * Number of failed records.
+     *
+     * @return Number of failed records.
+     */
+    public long getErrors() {
+      return errors.sum();
+    }
+
+    /**
+     * Average time between send and acknowledgment.
+     *
+     * @return Average time between send and acknowledgment.
+     */
+    public @NonNull Duration getAverageLatency() {
+      long count = sent.sum() + errors.sum();
+      return Duration.ofNanos(count == 0 ? 0 : latency.sum() / count);
+    }
+
+    /**
+     * Max time between send and acknowledgment.
+     *
+     * @return Max time between send and acknowledgment.
+     */
+    public @NonNull Duration getMaxLatency() {
+      return Duration.ofNanos(maxLatency.get());
+    }
+
+    /**
+     * Number of flushed batches.
+     *
+     * @return Number of flushed batches.
+     */
+    public long getBatches() {
+      return batches.sum();
+    }
+
+    /**
+     * Average number of records per batch.
+     *
+     * @return Average number of records per batch.
+     */
+    public double getAverageBatchSize() {
+      long count = batches.sum();
+      return count == 0 ? 0 : (double) batchRecords.sum() / count;
+    }
+
+    @Override public String toString() {
+      return "sent: " + getSent() + ", errors: " + getErrors() + ", avgLatency: "
+          + getAverageLatency() + ", maxLatency: " + getMaxLatency() + ", avgBatchSize: "
+          + getAverageBatchSize();
+    }
+
+    private void record(long start, Exception x) {
+      long elapsed = System.nanoTime() - start;
+      latency.add(elapsed);
+      maxLatency.accumulate(elapsed);
+      if (x == null) {
+        sent.increment();
+      } else {
+        errors.increment();
+      }
+    }
+  }
+
+  private final Producer<K, V> producer;
+
+  private final Metrics metrics = new Metrics();
+
+  /**
+   * Creates a new sender.
+   *
+   * @param producer Kafka producer.
+   */
+  public KafkaSender(@NonNull Producer<K, V> producer) {
+    this.producer = producer;
+  }
+
+  /**
+   * Send a record. It might block up to <code>max.block.ms</code>, see class documentation.
+   *
+   * @param record Record.
+   * @return Record metadata.
+   */
+  public @NonNull CompletableFuture<RecordMetadata> send(@NonNull ProducerRecord<K, V> record) {
+    CompletableFuture<RecordMetadata> future = new CompletableFuture<>();
+    long start = System.nanoTime();
+    try {
+      producer.send(record, (metadata, x) -> {
+        metrics.record(start, x);
+        if (x == null) {
+          future.complete(metadata);
+        } else {
+          future.completeExceptionally(x);
+        }
+      });
+    } catch (RuntimeException x) {
+      // serialization, buffer exhausted, etc.
+      metrics.record(start, x);
+      future.completeExceptionally(x);
+    }
+    return future;
+  }
+
+  /**
+   * Send a record.
+   *
+   * @param topic Topic.
+   * @param key Key or <code>null</code>.
+   * @param value Value.
+   * @return Record metadata.
+   */
+  public @NonNull CompletableFuture<RecordMetadata> send(@NonNull String topic, @Nullable K key,
+      @NonNull V value) {
+    return send(new ProducerRecord<>(topic, key, value));
+  }
+
+  /**
+   * Send a record. The value is encoded using the given encoder, like the JSON encoder of the
+   * application. The route encoder is not used, because it negotiates the format with the client
+   * (<code>Accept</code> header) while records must have a fixed format. The producer must be
+   * created with
+   * <code>value.serializer=org.apache.kafka.common.serialization.ByteArraySerializer</code>.
+   *
+   * @param ctx Web context.
+   * @param encoder Value encoder.
+   * @param topic Topic.
+   * @param key Key or <code>null</code>.
+   * @param value Value.
+   * @return Record metadata. Completes exceptionally when the value can't be encoded.
+   */
+  public @NonNull CompletableFuture<RecordMetadata> send(@NonNull Context ctx,
+      @NonNull MessageEncoder encoder, @NonNull String topic, @Nullable K key,
+      @NonNull Object value) {
+    V bytes;
+    try {
+      bytes = encode(ctx, encoder, value);
+    } catch (Exception x) {
+      return CompletableFuture.failedFuture(x);
+    }
+    return send(topic, key, bytes);
+  }
+
+  /**
+   * Creates a new batch.
+   *
+   * @return New batch.
+   */
+  public @NonNull Batch batch() {
+    return new Batch();
+  }
+
+  /**
+   * Send metrics.
+   *
+   * @return Send metrics.
+   */
+  public @NonNull Metrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Underlying producer.
+   *
+   * @return Underlying producer.
+   */
+  public @NonNull Producer<K, V> getProducer() {
+    return producer;
+  }
+
+  @SuppressWarnings("unchecked")
+  private V encode(Context ctx, MessageEncoder encoder, Object value) throws Exception {
+    byte[] bytes = encoder.encode(ctx, value);
+    if (bytes == null) {
+      throw new IllegalArgumentException("Unsupported value: " + value.getClass().getName());
+    }
+    return (V) bytes;
+  }
+}
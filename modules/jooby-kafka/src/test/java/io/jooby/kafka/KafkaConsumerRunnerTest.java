@@ -0,0 +1,186 @@
+package io.jooby.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+public class KafkaConsumerRunnerTest {
+
+  private static final String TOPIC = "topic";
+
+  private static final TopicPartition P0 = new TopicPartition(TOPIC, 0);
+
+  private static final TopicPartition P1 = new TopicPartition(TOPIC, 1);
+
+  @Test
+  public void partitionOrderAndCommit() throws Exception {
+    MockConsumer<String, String> consumer = consumer(5);
+    Map<Integer, List<String>> received = new ConcurrentHashMap<>();
+    CountDownLatch latch = new CountDownLatch(10);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    KafkaListener<String, String> listener = record -> {
+      received.computeIfAbsent(record.partition(), k -> new CopyOnWriteArrayList<>())
+          .add(record.value());
+      latch.countDown();
+    };
+    KafkaConsumerRunner<String, String> runner = new KafkaConsumerRunner<>(consumer,
+        Collections.singletonList(TOPIC), executor, listener)
+        .setPollTimeout(Duration.ofMillis(10));
+    new Thread(runner).start();
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+      assertEquals(Arrays.asList("0-0", "0-1", "0-2", "0-3", "0-4"), received.get(0));
+      assertEquals(Arrays.asList("1-0", "1-1", "1-2", "1-3", "1-4"), received.get(1));
+      awaitCommit(consumer, P0, 5);
+      awaitCommit(consumer, P1, 5);
+    } finally {
+      runner.close();
+      executor.shutdown();
+    }
+    assertTrue(consumer.closed());
+  }
+
+  @Test
+  public void batchPerPartition() throws Exception {
+    MockConsumer<String, String> consumer = consumer(3);
+    List<List<String>> batches = new CopyOnWriteArrayList<>();
+    CountDownLatch latch = new CountDownLatch(2);
+    KafkaBatchListener<String, String> listener = records -> {
+      List<String> batch = new ArrayList<>();
+      records.forEach(record -> batch.add(record.value()));
+      batches.add(batch);
+      latch.countDown();
+    };
+    KafkaConsumerRunner<String, String> runner = new KafkaConsumerRunner<>(consumer,
+        Collections.singletonList(TOPIC), Runnable::run, listener)
+        .setPollTimeout(Duration.ofMillis(10));
+    new Thread(runner).start();
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+      assertTrue(batches.contains(Arrays.asList("0-0", "0-1", "0-2")));
+      assertTrue(batches.contains(Arrays.asList("1-0", "1-1", "1-2")));
+      awaitCommit(consumer, P0, 3);
+      awaitCommit(consumer, P1, 3);
+    } finally {
+      runner.close();
+    }
+    assertTrue(consumer.closed());
+  }
+
+  @Test
+  public void retryFailedRecord() throws Exception {
+    MockConsumer<String, String> consumer = consumer(5);
+    CountDownLatch latch = new CountDownLatch(1);
+    KafkaListener<String, String> listener = record -> {
+      if (record.value().equals("0-2")) {
+        latch.countDown();
+        throw new IllegalStateException(record.value());
+      }
+    };
+    KafkaConsumerRunner<String, String> runner = new KafkaConsumerRunner<>(consumer,
+        Collections.singletonList(TOPIC), Runnable::run, listener)
+        .setPollTimeout(Duration.ofMillis(10))
+        .setRetryBackoff(Duration.ofMinutes(1));
+    new Thread(runner).start();
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+      // records before the failed one are committed, partition waits to retry from it
+      awaitCommit(consumer, P0, 2);
+      awaitCommit(consumer, P1, 5);
+      assertEquals(2, consumer.position(P0));
+      assertTrue(consumer.paused().contains(P0));
+      assertFalse(consumer.paused().contains(P1));
+    } finally {
+      runner.close();
+    }
+    assertTrue(consumer.closed());
+  }
+
+  @Test
+  public void keepPollingOnCommitFailure() throws Exception {
+    AtomicInteger commits = new AtomicInteger();
+    MockConsumer<String, String> consumer = consumer(
+        new MockConsumer<String, String>(OffsetResetStrategy.EARLIEST) {
+          @Override public synchronized void commitSync(
+              Map<TopicPartition, OffsetAndMetadata> offsets) {
+            if (commits.incrementAndGet() == 1) {
+              throw new CommitFailedException();
+            }
+            super.commitSync(offsets);
+          }
+        }, 3);
+    KafkaListener<String, String> listener = record -> {
+    };
+    KafkaConsumerRunner<String, String> runner = new KafkaConsumerRunner<>(consumer,
+        Collections.singletonList(TOPIC), Runnable::run, listener)
+        .setPollTimeout(Duration.ofMillis(10));
+    new Thread(runner).start();
+    try {
+      // first commit failed, offsets were committed on next poll
+      awaitCommit(consumer, P0, 3);
+      awaitCommit(consumer, P1, 3);
+      assertTrue(commits.get() > 1);
+      assertFalse(consumer.closed());
+    } finally {
+      runner.close();
+    }
+    assertTrue(consumer.closed());
+  }
+
+  private MockConsumer<String, String> consumer(int count) {
+    return consumer(new MockConsumer<>(OffsetResetStrategy.EARLIEST), count);
+  }
+
+  private MockConsumer<String, String> consumer(MockConsumer<String, String> consumer,
+      int count) {
+    Map<TopicPartition, Long> beginning = new HashMap<>();
+    beginning.put(P0, 0L);
+    beginning.put(P1, 0L);
+    consumer.updateBeginningOffsets(beginning);
+    consumer.schedulePollTask(() -> {
+      consumer.rebalance(Arrays.asList(P0, P1));
+      for (int i = 0; i < count; i++) {
+        consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, "k", "0-" + i));
+        consumer.addRecord(new ConsumerRecord<>(TOPIC, 1, i, "k", "1-" + i));
+      }
+    });
+    return consumer;
+  }
+
+  private void awaitCommit(MockConsumer<String, String> consumer, TopicPartition partition,
+      long offset) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (System.currentTimeMillis() < deadline) {
+      OffsetAndMetadata committed = consumer.committed(Collections.singleton(partition))
+          .get(partition);
+      if (committed != null && committed.offset() == offset) {
+        return;
+      }
+      Thread.sleep(10);
+    }
+    throw new AssertionError("offset " + offset + " not committed for " + partition);
+  }
+}
@@ -0,0 +1,113 @@
+package io.jooby.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+import io.jooby.MessageEncoder;
+
+public class KafkaSenderTest {
+
+  @Test
+  public void send() {
+    MockProducer<String, String> producer = new MockProducer<>(false, new StringSerializer(),
+        new StringSerializer());
+    KafkaSender<String, String> sender = new KafkaSender<>(producer);
+
+    CompletableFuture<RecordMetadata> ok = sender.send("topic", "k", "v1");
+    CompletableFuture<RecordMetadata> ko = sender.send("topic", "k", "v2");
+    assertFalse(ok.isDone());
+
+    producer.completeNext();
+    producer.errorNext(new IllegalStateException("intentional error"));
+
+    assertEquals("topic", ok.join().topic());
+    assertTrue(ko.isCompletedExceptionally());
+    assertEquals(1, sender.getMetrics().getSent());
+    assertEquals(1, sender.getMetrics().getErrors());
+  }
+
+  @Test
+  public void batch() {
+    MockProducer<String, String> producer = new MockProducer<>(true, new StringSerializer(),
+        new StringSerializer());
+    KafkaSender<String, String> sender = new KafkaSender<>(producer);
+
+    KafkaSender<String, String>.Batch batch = sender.batch()
+        .send("topic", "k", "v1")
+        .send("topic", "k", "v2")
+        .send("topic", "k", "v3");
+    assertEquals(0, producer.history().size());
+
+    List<RecordMetadata> result = batch.flush().join();
+    assertEquals(3, result.size());
+    assertEquals(3, producer.history().size());
+    assertEquals(0, batch.size());
+    assertEquals(3, sender.getMetrics().getSent());
+    assertEquals(1, sender.getMetrics().getBatches());
+    assertEquals(3.0, sender.getMetrics().getAverageBatchSize());
+  }
+
+  @Test
+  public void encoder() {
+    MockProducer<String, byte[]> producer = new MockProducer<>(true, new StringSerializer(),
+        new ByteArraySerializer());
+    KafkaSender<String, byte[]> sender = new KafkaSender<>(producer);
+    MessageEncoder encoder = (ctx, value) -> value instanceof Integer
+        ? value.toString().getBytes(StandardCharsets.UTF_8)
+        : null;
+
+    sender.send(null, encoder, "topic", "k", 7).join();
+    assertEquals("7", new String(producer.history().get(0).value(), StandardCharsets.UTF_8));
+
+    // encoding errors are reported by the future
+    CompletableFuture<RecordMetadata> unsupported = sender
+        .send(null, encoder, "topic", "k", "unsupported");
+    CompletionException x = assertThrows(CompletionException.class, unsupported::join);
+    assertTrue(x.getCause() instanceof IllegalArgumentException);
+
+    MessageEncoder failing = (ctx, value) -> {
+      throw new IOException("intentional error");
+    };
+    x = assertThrows(CompletionException.class,
+        () -> sender.send(null, failing, "topic", "k", 7).join());
+    assertTrue(x.getCause() instanceof IOException);
+    assertEquals(1, producer.history().size());
+  }
+
+  @Test
+  public void batchEncoderError() {
+    MockProducer<String, byte[]> producer = new MockProducer<>(true, new StringSerializer(),
+        new ByteArraySerializer());
+    KafkaSender<String, byte[]> sender = new KafkaSender<>(producer);
+    MessageEncoder encoder = (ctx, value) -> value instanceof Integer
+        ? value.toString().getBytes(StandardCharsets.UTF_8)
+        : null;
+
+    KafkaSender<String, byte[]>.Batch batch = sender.batch()
+        .send(null, encoder, "topic", "k", 1)
+        .send(null, encoder, "topic", "k", "unsupported");
+    assertEquals(1, batch.size());
+
+    CompletionException x = assertThrows(CompletionException.class, batch.flush()::join);
+    assertTrue(x.getCause() instanceof IllegalArgumentException);
+    assertEquals(1, producer.history().size());
+
+    // next flush starts clean
+    batch.send(null, encoder, "topic", "k", 2);
+    assertEquals(1, batch.flush().join().size());
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Like {@link io.netty.handler.stream.ChunkedNioFile} but chunks are slices of a memory-mapped
+ * region of the file. Used when zero-copy file region isn't available (TLS or compression), saves
+ * the read syscall and copy into a heap/direct buffer per chunk.
+ *
+ * File is mapped in windows of {@link #WINDOW_SIZE} bytes, so large files don't reserve all their
+ * address space at once.
+ */
+class MappedChunkedFile implements ChunkedInput<ByteBuf> {
+
+  static final long WINDOW_SIZE = 4 * 1024 * 1024;
+
+  private final FileChannel file;
+
+  private final long start;
+
+  private final long end;
+
+  private final int chunkSize;
+
+  private long offset;
+
+  private MappedByteBuffer window;
+
+  MappedChunkedFile(FileChannel file, long offset, long length, int chunkSize) {
+    this.file = file;
+    this.start = offset;
+    this.offset = offset;
+    this.end = offset + length;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override public boolean isEndOfInput() {
+    return offset >= end || !file.isOpen();
+  }
+
+  @Override public void close() throws Exception {
+    window = null;
+    file.close();
+  }
+
+  @Deprecated
+  @Override public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+    return readChunk(ctx.alloc());
+  }
+
+  @Override public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+    if (offset >= end) {
+      return null;
+    }
+    if (window == null || !window.hasRemaining()) {
+      window = map();
+    }
+    int len = Math.min(chunkSize, window.remaining());
+    ByteBuf chunk = Unpooled.wrappedBuffer(window.slice().limit(len));
+    window.position(window.position() + len);
+    offset += len;
+    return chunk;
+  }
+
+  @Override public long length() {
+    return end - start;
+  }
+
+  @Override public long progress() {
+    return offset - start;
+  }
+
+  private MappedByteBuffer map() throws IOException {
+    long size = Math.min(WINDOW_SIZE, end - offset);
+    return file.map(FileChannel.MapMode.READ_ONLY, offset, size);
+  }
+}
@@ -0,0 +1,91 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.netty;
+
+import io.jooby.internal.MultipleByteRange;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+
+import java.nio.channels.FileChannel;
+
+/**
+ * <code>multipart/byteranges</code> response of a file. Each part is a header chunk followed by
+ * the content slices of a {@link MappedChunkedFile}, then the closing boundary.
+ */
+class MultipartChunkedFile implements ChunkedInput<ByteBuf> {
+
+  private final FileChannel file;
+
+  private final MultipleByteRange range;
+
+  private final int chunkSize;
+
+  /** Next part. */
+  private int part;
+
+  private MappedChunkedFile content;
+
+  private boolean trailer;
+
+  private long progress;
+
+  MultipartChunkedFile(FileChannel file, MultipleByteRange range, int chunkSize) {
+    this.file = file;
+    this.range = range;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override public boolean isEndOfInput() {
+    return trailer || !file.isOpen();
+  }
+
+  @Override public void close() throws Exception {
+    content = null;
+    file.close();
+  }
+
+  @Deprecated
+  @Override public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+    return readChunk(ctx.alloc());
+  }
+
+  @Override public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+    if (content != null) {
+      if (!content.isEndOfInput()) {
+        ByteBuf chunk = content.readChunk(allocator);
+        progress += chunk.readableBytes();
+        return chunk;
+      }
+      // parts share the file, don't close it
+      content = null;
+    }
+    byte[] bytes;
+    if (part < range.getPartCount()) {
+      bytes = range.getPartHeader(part);
+      content = new MappedChunkedFile(file, range.getPartStart(part), range.getPartLength(part),
+          chunkSize);
+      part += 1;
+    } else if (!trailer) {
+      bytes = range.getTrailer();
+      trailer = true;
+    } else {
+      return null;
+    }
+    progress += bytes.length;
+    return Unpooled.wrappedBuffer(bytes);
+  }
+
+  @Override public long length() {
+    return range.getContentLength();
+  }
+
+  @Override public long progress() {
+    return progress;
+  }
+}
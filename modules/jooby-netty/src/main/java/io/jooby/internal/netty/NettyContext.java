@@ -7,12 +7,14 @@ package io.jooby.internal.netty;
 
 import static io.netty.buffer.Unpooled.copiedBuffer;
 import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONNECTION;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
 import static io.netty.handler.codec.http.HttpHeaderNames.RANGE;
 import static io.netty.handler.codec.http.HttpHeaderNames.SET_COOKIE;
 import static io.netty.handler.codec.http.HttpHeaderNames.TRANSFER_ENCODING;
 import static io.netty.handler.codec.http.HttpHeaderValues.CHUNKED;
+import static io.netty.handler.codec.http.HttpHeaderValues.CLOSE;
 import static io.netty.handler.codec.http.HttpUtil.isKeepAlive;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 import static io.netty.handler.codec.http.LastHttpContent.EMPTY_LAST_CONTENT;
@@ -33,11 +35,10 @@ import java.nio.charset.Charset;
 import java.security.cert.Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
@@ -72,6 +73,10 @@ import io.jooby.StatusCode;
 import io.jooby.Value;
 import io.jooby.ValueNode;
 import io.jooby.WebSocket;
+import io.jooby.internal.CookieParser;
+import io.jooby.internal.HeadersValue;
+import io.jooby.internal.LocaleCache;
+import io.jooby.internal.MultipleByteRange;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
@@ -92,7 +97,6 @@ import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
-import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.multipart.HttpData;
 import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
 import io.netty.handler.codec.http.multipart.InterfaceHttpData;
@@ -101,7 +105,6 @@ import io.netty.handler.codec.http.websocketx.WebSocketDecoderConfig;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
 import io.netty.handler.ssl.SslHandler;
-import io.netty.handler.stream.ChunkedNioFile;
 import io.netty.handler.stream.ChunkedNioStream;
 import io.netty.handler.stream.ChunkedStream;
 import io.netty.handler.stream.ChunkedWriteHandler;
@@ -112,9 +115,10 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
 
   private static final HttpHeaders NO_TRAILING = EmptyHttpHeaders.INSTANCE;
   private static final String STREAM_ID = "x-http2-stream-id";
-  private final String streamId;
-  DefaultHttpHeaders setHeaders = new DefaultHttpHeaders(true);
+  private String streamId;
+  final DefaultHttpHeaders setHeaders = NettyHeaders.newResponseHeaders();
   private final int bufferSize;
+  private final boolean fileRegion;
   InterfaceHttpPostRequestDecoder decoder;
   private Router router;
   private Route route;
@@ -130,11 +134,13 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
   private ValueNode headers;
   private Map<String, String> pathMap = Collections.EMPTY_MAP;
   private MediaType responseType;
-  private Map<String, Object> attributes = new HashMap<>();
+  private Map<String, Object> attributes;
   private long contentLength = -1;
   private boolean needsFlush;
   private Map<String, String> cookies;
   private Map<String, String> responseCookies;
+  private Locale locale;
+  private List<Locale> locales;
   private Boolean resetHeadersOnError;
   NettyWebSocket webSocket;
   private String method;
@@ -143,20 +149,77 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
   private String host;
   private String scheme;
   private int port;
+  private boolean recyclable;
 
   public NettyContext(ChannelHandlerContext ctx, HttpRequest req, Router router, String path,
-      int bufferSize) {
+      int bufferSize, boolean fileRegion) {
+    this.router = router;
+    this.bufferSize = bufferSize;
+    this.fileRegion = fileRegion;
+    init(ctx, req, path);
+  }
+
+  private void init(ChannelHandlerContext ctx, HttpRequest req, String path) {
     this.path = path;
     this.ctx = ctx;
     this.req = req;
-    this.router = router;
-    this.bufferSize = bufferSize;
     this.method = req.method().name().toUpperCase();
     // Safe streamId for HTTP/2
-    this.streamId = header(STREAM_ID).valueOrNull();
+    this.streamId = req.headers().get(STREAM_ID);
     ifStreamId(this.streamId);
   }
 
+  /**
+   * True when the response of the current request has been fully written from the event loop and
+   * nothing else (listeners, uploads, body decoder, etc.) references this context.
+   *
+   * @return True when this context can be reused for the next request of the same connection.
+   */
+  boolean isRecyclable() {
+    return recyclable;
+  }
+
+  /**
+   * Reset this context for the next keep-alive request on the same connection. Only call it when
+   * {@link #isRecyclable()} is true.
+   *
+   * @param ctx Channel context.
+   * @param req New request.
+   * @param path New request path.
+   */
+  void recycle(ChannelHandlerContext ctx, HttpRequest req, String path) {
+    this.recyclable = false;
+    this.setHeaders.clear();
+    this.decoder = null;
+    this.route = null;
+    this.status = HttpResponseStatus.OK;
+    this.responseStarted = false;
+    this.query = null;
+    this.form = null;
+    this.multipart = null;
+    this.files = null;
+    this.headers = null;
+    this.pathMap = Collections.EMPTY_MAP;
+    this.responseType = null;
+    if (this.attributes != null) {
+      this.attributes.clear();
+    }
+    this.contentLength = -1;
+    // needsFlush is left as it is: previous response is flushed on channelReadComplete
+    this.cookies = null;
+    this.responseCookies = null;
+    this.locale = null;
+    this.locales = null;
+    this.resetHeadersOnError = null;
+    this.webSocket = null;
+    this.listeners = null;
+    this.remoteAddress = null;
+    this.host = null;
+    this.scheme = null;
+    this.port = 0;
+    init(ctx, req, path);
+  }
+
   boolean isHttpGet() {
     return this.method.length() == 3 && this.method.charAt(0) == 'G' && this.method.charAt(1) == 'E'
         && this.method.charAt(2) == 'T';
@@ -172,6 +235,9 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
    */
 
   @NonNull @Override public Map<String, Object> getAttributes() {
+    if (attributes == null) {
+      attributes = new HashMap<>();
+    }
     return attributes;
   }
 
@@ -326,13 +392,8 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
 
   @NonNull @Override public ValueNode header() {
     if (headers == null) {
-      Map<String, Collection<String>> headerMap = new LinkedHashMap<>();
-      HttpHeaders headers = req.headers();
-      Set<String> names = headers.names();
-      for (String name : names) {
-        headerMap.put(name, headers.getAll(name));
-      }
-      this.headers = Value.headers(this, headerMap);
+      headers = new HeadersValue(this, name -> req.headers().getAll(name),
+          () -> req.headers().names());
     }
     return headers;
   }
@@ -344,20 +405,24 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
     return Body.empty(this);
   }
 
+
+  @NonNull @Override public Locale locale() {
+    if (locale == null) {
+      locale = LocaleCache.locale(this);
+    }
+    return locale;
+  }
+
+  @NonNull @Override public List<Locale> locales() {
+    if (locales == null) {
+      locales = LocaleCache.locales(this);
+    }
+    return locales;
+  }
+
   @Override public @NonNull Map<String, String> cookieMap() {
     if (this.cookies == null) {
-      this.cookies = Collections.emptyMap();
-      String cookieString = req.headers().get(HttpHeaderNames.COOKIE);
-      if (cookieString != null) {
-        Set<io.netty.handler.codec.http.cookie.Cookie> cookies = ServerCookieDecoder.STRICT
-            .decode(cookieString);
-        if (cookies.size() > 0) {
-          this.cookies = new LinkedHashMap<>(cookies.size());
-          for (io.netty.handler.codec.http.cookie.Cookie it : cookies) {
-            this.cookies.put(it.name(), it.value());
-          }
-        }
-      }
+      this.cookies = CookieParser.parse(req.headers().valueStringIterator(HttpHeaderNames.COOKIE));
     }
     return this.cookies;
   }
@@ -435,6 +500,7 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
   }
 
   @NonNull @Override public Context setResponseHeader(@NonNull String name, @NonNull String value) {
+    NettyHeaders.validate(name, value);
     setHeaders.set(name, value);
     return this;
   }
@@ -463,11 +529,12 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
 
   @Override public final Context setResponseType(MediaType contentType, Charset charset) {
     this.responseType = contentType;
-    setHeaders.set(CONTENT_TYPE, contentType.toContentTypeHeader(charset));
+    setHeaders.set(CONTENT_TYPE, NettyHeaderCache.contentType(contentType, charset));
     return this;
   }
 
   @NonNull @Override public Context setResponseType(@NonNull String contentType) {
+    NettyHeaders.validateValue(CONTENT_TYPE, contentType);
     this.responseType = MediaType.valueOf(contentType);
     setHeaders.set(CONTENT_TYPE, contentType);
     return this;
@@ -495,7 +562,9 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
       responseCookies = new HashMap<>();
     }
     cookie.setPath(cookie.getPath(getContextPath()));
-    responseCookies.put(cookie.getName(), cookie.toCookieString());
+    String cookieString = cookie.toCookieString();
+    NettyHeaders.validateValue(SET_COOKIE, cookieString);
+    responseCookies.put(cookie.getName(), cookieString);
     setHeaders.remove(SET_COOKIE);
     for (String cookieString : responseCookies.values()) {
       setHeaders.add(SET_COOKIE, cookieString);
@@ -553,7 +622,9 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
           data, setHeaders, NO_TRAILING);
       if (ctx.channel().eventLoop().inEventLoop()) {
         needsFlush = true;
-        ctx.write(response, promise(this));
+        ChannelPromise promise = promise(this);
+        ctx.write(response, promise);
+        recyclable = isWritten(promise);
       } else {
         ctx.writeAndFlush(response, promise(this));
       }
@@ -596,23 +667,10 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
       return send(((FileInputStream) in).getChannel());
     }
     try {
-      prepareChunked();
       long len = responseLength();
       ByteRange range = ByteRange.parse(req.headers().get(RANGE), len)
           .apply(this);
-      ChunkedStream chunkedStream = new ChunkedStream(range.apply(in), bufferSize);
-
-      DefaultHttpResponse rsp = new DefaultHttpResponse(HTTP_1_1, status, setHeaders);
-      responseStarted = true;
-      ctx.channel().eventLoop().execute(() -> {
-        // Headers
-        ctx.write(rsp, ctx.voidPromise());
-        // Body
-        ctx.write(chunkedStream, ctx.voidPromise());
-        // Finish
-        ctx.writeAndFlush(EMPTY_LAST_CONTENT, promise(this));
-      });
-      return this;
+      return sendStream(range.apply(in));
     } catch (Exception x) {
       throw SneakyThrows.propagate(x);
     } finally {
@@ -631,11 +689,14 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
       DefaultHttpResponse rsp = new DefaultHttpResponse(HTTP_1_1, status, setHeaders);
       responseStarted = true;
 
-      if (isSecure() || isGzip()) {
+      if (range instanceof MultipleByteRange || isSecure() || isCompressed() || !fileRegion) {
         prepareChunked();
 
-        HttpChunkedInput chunkedInput = new HttpChunkedInput(
-            new ChunkedNioFile(file, range.getStart(), range.getEnd(), bufferSize));
+        // multipart/byteranges reads every part from the mapped file: a file region closes the
+        // file once sent, so it can't be used for more than one part
+        HttpChunkedInput chunkedInput = new HttpChunkedInput(range instanceof MultipleByteRange
+            ? new MultipartChunkedFile(file, (MultipleByteRange) range, bufferSize)
+            : new MappedChunkedFile(file, range.getStart(), range.getEnd(), bufferSize));
 
         ctx.channel().eventLoop().execute(() -> {
           // Headers
@@ -662,6 +723,23 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
     return this;
   }
 
+  private Context sendStream(InputStream in) {
+    prepareChunked();
+    ChunkedStream chunkedStream = new ChunkedStream(in, bufferSize);
+
+    DefaultHttpResponse rsp = new DefaultHttpResponse(HTTP_1_1, status, setHeaders);
+    responseStarted = true;
+    ctx.channel().eventLoop().execute(() -> {
+      // Headers
+      ctx.write(rsp, ctx.voidPromise());
+      // Body
+      ctx.write(chunkedStream, ctx.voidPromise());
+      // Finish
+      ctx.writeAndFlush(EMPTY_LAST_CONTENT, promise(this));
+    });
+    return this;
+  }
+
   @Override public boolean isResponseStarted() {
     return responseStarted;
   }
@@ -694,6 +772,19 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
     }
   }
 
+  /**
+   * Headers of a response written from the event loop are encoded right away, unless the pipeline
+   * has a chunk writer (which queues messages until flush), HTTP/2 is on (concurrent streams
+   * share this handler) or there is something left to do once the write completes.
+   *
+   * @param promise Write promise.
+   * @return True when nothing references this context once the write returns.
+   */
+  private boolean isWritten(ChannelPromise promise) {
+    return promise.isVoid() && streamId == null && ctx.pipeline().get("chunker") == null
+        && ctx.pipeline().get("http2") == null;
+  }
+
   void requestComplete() {
     fireCompleteEvent();
     ifSaveSession();
@@ -703,7 +794,7 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
     try {
       destroy(future.cause());
     } finally {
-      if (!isKeepAlive(req)) {
+      if (!keepAlive()) {
         future.channel().close();
       }
     }
@@ -724,7 +815,7 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
   }
 
   private Session getSession() {
-    return (Session) getAttributes().get(Session.NAME);
+    return attributes == null ? null : (Session) attributes.get(Session.NAME);
   }
 
   private ChannelPromise promise(ChannelFutureListener listener) {
@@ -734,8 +825,17 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
     return ctx.voidPromise();
   }
 
+  /**
+   * Keep connection open after response. Requests and responses (like graceful shutdown does)
+   * might ask to close it.
+   */
+  private boolean keepAlive() {
+    return isKeepAlive(req) && !setHeaders.containsValue(CONNECTION, CLOSE, true);
+  }
+
   private boolean pendingTasks() {
-    return (getSession() != null) ||
+    return !keepAlive() ||
+        (getSession() != null) ||
         (listeners != null) ||
         (files != null && files.size() > 0) ||
         (decoder != null) ||
@@ -863,7 +963,15 @@ public class NettyContext implements DefaultContext, ChannelFutureListener {
     }
   }
 
-  private boolean isGzip() {
-    return getRouter().getServerOptions().getCompressionLevel() != null;
+  /**
+   * True when the response might go through the compressor. Compressor passes through responses
+   * of clients without <code>Accept-Encoding</code>, so they can still use a zero-copy file region.
+   */
+  private boolean isCompressed() {
+    if (getRouter().getServerOptions().getCompressionLevel() == null) {
+      return false;
+    }
+    String encoding = req.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
+    return encoding != null && !encoding.equalsIgnoreCase("identity");
   }
 }
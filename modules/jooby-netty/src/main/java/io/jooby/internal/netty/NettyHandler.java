@@ -8,15 +8,10 @@ package io.jooby.internal.netty;
 import static io.netty.handler.codec.http.HttpResponseStatus.CONTINUE;
 
 import java.nio.charset.StandardCharsets;
-import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 
+import io.jooby.Deadline;
 import io.jooby.MediaType;
 import io.jooby.Router;
 import io.jooby.Server;
@@ -42,23 +37,15 @@ import io.netty.handler.codec.http.multipart.HttpPostStandardRequestDecoder;
 import io.netty.handler.codec.http.multipart.InterfaceHttpPostRequestDecoder;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.netty.handler.timeout.IdleStateEvent;
-import io.netty.util.AsciiString;
 import io.netty.util.ReferenceCounted;
 
 public class NettyHandler extends ChannelInboundHandlerAdapter {
-  private static final AtomicReference<String> cachedDateString = new AtomicReference<>();
-
-  private static final Runnable INVALIDATE_TASK = () -> cachedDateString.set(null);
-
-  private static final AsciiString server = AsciiString.cached("N");
-  private final ScheduledExecutorService scheduler;
-
-  private static final int DATE_INTERVAL = 1000;
-
   private final Router router;
   private final int bufferSize;
   private final boolean defaultHeaders;
   private final boolean is100ContinueExpected;
+  private final boolean contextRecycling;
+  private final boolean fileRegion;
   private NettyContext context;
 
   private final HttpDataFactory factory;
@@ -68,16 +55,17 @@ public class NettyHandler extends ChannelInboundHandlerAdapter {
   private long contentLength;
   private long chunkSize;
 
-  public NettyHandler(ScheduledExecutorService scheduler, Router router, long maxRequestSize,
-      int bufferSize, HttpDataFactory factory, boolean defaultHeaders,
-      boolean is100ContinueExpected) {
-    this.scheduler = scheduler;
+  public NettyHandler(Router router, long maxRequestSize, int bufferSize, HttpDataFactory factory,
+      boolean defaultHeaders, boolean is100ContinueExpected, boolean contextRecycling,
+      boolean fileRegion) {
     this.router = router;
     this.maxRequestSize = maxRequestSize;
     this.factory = factory;
     this.bufferSize = bufferSize;
     this.defaultHeaders = defaultHeaders;
     this.is100ContinueExpected = is100ContinueExpected;
+    this.contextRecycling = contextRecycling;
+    this.fileRegion = fileRegion;
   }
 
   @Override
@@ -86,11 +74,16 @@ public class NettyHandler extends ChannelInboundHandlerAdapter {
       if (msg instanceof HttpRequest) {
         HttpRequest req = (HttpRequest) msg;
 
-        context = new NettyContext(ctx, req, router, pathOnly(req.uri()), bufferSize);
+        if (contextRecycling && context != null && context.isRecyclable()) {
+          context.recycle(ctx, req, pathOnly(req.uri()));
+        } else {
+          context = new NettyContext(ctx, req, router, pathOnly(req.uri()), bufferSize,
+              fileRegion);
+        }
 
         if (defaultHeaders) {
-          context.setHeaders.set(HttpHeaderNames.DATE, date(scheduler));
-          context.setHeaders.set(HttpHeaderNames.SERVER, server);
+          context.setHeaders.set(HttpHeaderNames.DATE, NettyHeaderCache.date());
+          context.setHeaders.set(HttpHeaderNames.SERVER, NettyHeaderCache.SERVER);
         }
         context.setHeaders.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN);
 
@@ -149,6 +142,12 @@ public class NettyHandler extends ChannelInboundHandlerAdapter {
     }
   }
 
+  @Override public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    // client is gone, cancel deadline of running request (if any)
+    Deadline.cancel(context);
+    super.channelInactive(ctx);
+  }
+
   @Override public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
     if (evt instanceof IdleStateEvent) {
       NettyWebSocket ws = ctx.channel().attr(NettyWebSocket.WS).getAndSet(null);
@@ -231,22 +230,5 @@ public class NettyHandler extends ChannelInboundHandlerAdapter {
       return -1;
     }
   }
-
-  private static String date(ScheduledExecutorService scheduler) {
-    String dateString = cachedDateString.get();
-    if (dateString == null) {
-      //set the time and register a timer to invalidate it
-      //note that this is racey, it does not matter if multiple threads do this
-      //the perf cost of synchronizing would be more than the perf cost of multiple threads running it
-      long realTime = System.currentTimeMillis();
-      long mod = realTime % DATE_INTERVAL;
-      long toGo = DATE_INTERVAL - mod;
-      dateString = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC));
-      if (cachedDateString.compareAndSet(null, dateString)) {
-        scheduler.schedule(INVALIDATE_TASK, toGo, TimeUnit.MILLISECONDS);
-      }
-    }
-    return dateString;
-  }
 }
 
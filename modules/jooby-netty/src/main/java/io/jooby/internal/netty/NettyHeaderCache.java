@@ -0,0 +1,104 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.netty;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.charset.Charset;
+import java.time.Instant;
+
+import io.jooby.Context;
+import io.jooby.MediaType;
+import io.netty.util.AsciiString;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * Pre-encoded values for headers set on almost every response. {@link AsciiString} values are
+ * copied as bytes by the HTTP encoder, no char to byte conversion happens per response.
+ *
+ * The <code>Date</code> header is cached per event loop and rebuilt once per second by the thread
+ * that needs it: no shared state, no invalidation task.
+ */
+final class NettyHeaderCache {
+
+  private static final class DateHeader {
+    private long second = Long.MIN_VALUE;
+
+    private AsciiString value;
+
+    AsciiString get() {
+      long now = System.currentTimeMillis();
+      long second = now / 1000;
+      if (second != this.second) {
+        this.value = AsciiString.cached(Context.RFC1123.format(Instant.ofEpochSecond(second)));
+        this.second = second;
+      }
+      return value;
+    }
+  }
+
+  static final AsciiString SERVER = AsciiString.cached("N");
+
+  private static final FastThreadLocal<DateHeader> DATE = new FastThreadLocal<DateHeader>() {
+    @Override protected DateHeader initialValue() {
+      return new DateHeader();
+    }
+  };
+
+  private static final MediaType[] MEDIA_TYPES = {
+      MediaType.json,
+      MediaType.text,
+      MediaType.html,
+      MediaType.xml,
+      MediaType.js,
+      MediaType.css,
+      MediaType.yaml,
+      MediaType.octetStream
+  };
+
+  /** Content type header using the media type default charset. */
+  private static final AsciiString[] CONTENT_TYPE = new AsciiString[MEDIA_TYPES.length];
+
+  /** Content type header using UTF-8. */
+  private static final AsciiString[] UTF8_CONTENT_TYPE = new AsciiString[MEDIA_TYPES.length];
+
+  static {
+    for (int i = 0; i < MEDIA_TYPES.length; i++) {
+      CONTENT_TYPE[i] = AsciiString.cached(MEDIA_TYPES[i].toContentTypeHeader(null));
+      UTF8_CONTENT_TYPE[i] = AsciiString.cached(MEDIA_TYPES[i].toContentTypeHeader(UTF_8));
+    }
+  }
+
+  private NettyHeaderCache() {
+  }
+
+  /**
+   * Value for <code>Date</code> header.
+   *
+   * @return Value for <code>Date</code> header.
+   */
+  static AsciiString date() {
+    return DATE.get().get();
+  }
+
+  /**
+   * Value for <code>Content-Type</code> header.
+   *
+   * @param type Media type.
+   * @param charset Charset or <code>null</code>.
+   * @return Pre-encoded value for common media types or plain string for anything else.
+   */
+  static CharSequence contentType(MediaType type, Charset charset) {
+    if (charset == null || charset == UTF_8) {
+      for (int i = 0; i < MEDIA_TYPES.length; i++) {
+        if (MEDIA_TYPES[i] == type) {
+          return charset == null ? CONTENT_TYPE[i] : UTF8_CONTENT_TYPE[i];
+        }
+      }
+    }
+    return type.toContentTypeHeader(charset);
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.netty;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+
+/**
+ * Response headers are created without validation, so framework generated headers (Date, Server,
+ * Content-Type, Content-Length, etc.) are set as they are. Application provided headers are
+ * checked here using the same rules as Netty's validating {@link DefaultHttpHeaders}.
+ */
+final class NettyHeaders {
+
+  private NettyHeaders() {
+  }
+
+  static DefaultHttpHeaders newResponseHeaders() {
+    return new DefaultHttpHeaders(false);
+  }
+
+  static void validate(CharSequence name, CharSequence value) {
+    validateName(name);
+    validateValue(name, value);
+  }
+
+  static void validateName(CharSequence name) {
+    if (name.length() == 0) {
+      throw new IllegalArgumentException("empty headers are not allowed [" + name + "]");
+    }
+    for (int i = 0; i < name.length(); i++) {
+      char ch = name.charAt(i);
+      if (ch > 127) {
+        throw new IllegalArgumentException(
+            "a header name cannot contain non-ASCII character: " + name);
+      }
+      switch (ch) {
+        case 0x00:
+        case '\t':
+        case '\n':
+        case 0x0b:
+        case '\f':
+        case '\r':
+        case ' ':
+        case ',':
+        case ':':
+        case ';':
+        case '=':
+          throw new IllegalArgumentException(
+              "a header name cannot contain the following prohibited characters: "
+                  + "=,;: \\t\\r\\n\\v\\f: " + name);
+        default:
+          break;
+      }
+    }
+  }
+
+  static void validateValue(CharSequence name, CharSequence value) {
+    // 0: previous character was neither CR nor LF, 1: previous was CR, 2: previous was LF
+    int state = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      switch (state) {
+        case 0:
+          if (ch == 0x00 || ch == 0x0b || ch == '\f') {
+            throw invalidValue(name, value);
+          }
+          if (ch == '\r') {
+            state = 1;
+          } else if (ch == '\n') {
+            state = 2;
+          }
+          break;
+        case 1:
+          if (ch != '\n') {
+            throw invalidValue(name, value);
+          }
+          state = 2;
+          break;
+        default:
+          if (ch != '\t' && ch != ' ') {
+            throw invalidValue(name, value);
+          }
+          state = 0;
+          break;
+      }
+    }
+    if (state != 0) {
+      throw invalidValue(name, value);
+    }
+  }
+
+  private static IllegalArgumentException invalidValue(CharSequence name, CharSequence value) {
+    return new IllegalArgumentException("a header value contains a prohibited character: "
+        + name + ": " + value);
+  }
+}
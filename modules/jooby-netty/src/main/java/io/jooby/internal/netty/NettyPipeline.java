@@ -8,7 +8,6 @@ package io.jooby.internal.netty;
 import static io.jooby.ServerOptions._4KB;
 import static io.jooby.ServerOptions._8KB;
 
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Supplier;
 
 import io.jooby.Http2Configurer;
@@ -22,7 +21,6 @@ import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.HttpServerExpectContinueHandler;
 import io.netty.handler.codec.http.HttpServerUpgradeHandler;
 import io.netty.handler.codec.http.multipart.HttpDataFactory;
-import io.netty.handler.ssl.SslContext;
 
 public class NettyPipeline extends ChannelInitializer<SocketChannel> {
   private static final String H2_HANDSHAKE = "h2-handshake";
@@ -33,16 +31,16 @@ public class NettyPipeline extends ChannelInitializer<SocketChannel> {
   private final int bufferSize;
   private final long maxRequestSize;
   private final boolean defaultHeaders;
-  private final ScheduledExecutorService service;
-  private final SslContext sslContext;
+  private final NettySslContext sslContext;
   private final Http2Configurer<Http2Extension, ChannelInboundHandler> http2;
   private final boolean is100ContinueExpected;
+  private final boolean contextRecycling;
+  private final boolean fileRegion;
 
-  public NettyPipeline(ScheduledExecutorService service, Router router, HttpDataFactory factory,
-      SslContext sslContext, Http2Configurer<Http2Extension, ChannelInboundHandler> http2,
+  public NettyPipeline(Router router, HttpDataFactory factory,
+      NettySslContext sslContext, Http2Configurer<Http2Extension, ChannelInboundHandler> http2,
       boolean defaultHeaders, Integer compressionLevel, int bufferSize, long maxRequestSize,
-      boolean is100ContinueExpected) {
-    this.service = service;
+      boolean is100ContinueExpected, boolean contextRecycling, boolean fileRegion) {
     this.router = router;
     this.factory = factory;
     this.sslContext = sslContext;
@@ -52,6 +50,8 @@ public class NettyPipeline extends ChannelInitializer<SocketChannel> {
     this.bufferSize = bufferSize;
     this.maxRequestSize = maxRequestSize;
     this.is100ContinueExpected = is100ContinueExpected;
+    this.contextRecycling = contextRecycling;
+    this.fileRegion = fileRegion;
   }
 
   @Override
@@ -120,7 +120,7 @@ public class NettyPipeline extends ChannelInitializer<SocketChannel> {
   }
 
   private NettyHandler createHandler() {
-    return new NettyHandler(service, router, maxRequestSize, bufferSize, factory, defaultHeaders,
-        is100ContinueExpected);
+    return new NettyHandler(router, maxRequestSize, bufferSize, factory, defaultHeaders,
+        is100ContinueExpected, contextRecycling, fileRegion);
   }
 }
@@ -10,6 +10,7 @@ import io.jooby.Server;
 import io.jooby.ServerSentEmitter;
 import io.jooby.ServerSentMessage;
 import io.jooby.SneakyThrows;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.EventLoop;
 import io.netty.util.concurrent.Future;
@@ -34,6 +35,14 @@ public class NettyServerSentEmitter implements ServerSentEmitter, GenericFutureL
 
   private SneakyThrows.Runnable closeTask;
 
+  /** Accessed from event loop only. */
+  private boolean flushPending;
+
+  private final Runnable flush = () -> {
+    flushPending = false;
+    netty.ctx.flush();
+  };
+
   public NettyServerSentEmitter(NettyContext netty) {
     this.netty = netty;
     this.id = UUID.randomUUID().toString();
@@ -58,13 +67,31 @@ public class NettyServerSentEmitter implements ServerSentEmitter, GenericFutureL
 
   @NonNull @Override public ServerSentEmitter send(ServerSentMessage data) {
     if (checkOpen()) {
-      netty.ctx.writeAndFlush(Unpooled.wrappedBuffer(data.toByteArray(netty))).addListener(this);
+      ByteBuf buffer = Unpooled.wrappedBuffer(data.toByteArray(netty));
+      EventLoop eventLoop = netty.ctx.channel().eventLoop();
+      if (eventLoop.inEventLoop()) {
+        write(eventLoop, buffer);
+      } else {
+        eventLoop.execute(() -> write(eventLoop, buffer));
+      }
     } else {
       log.warn("server-sent-event closed: {}", id);
     }
     return this;
   }
 
+  /**
+   * Write the message and schedule a flush, unless there is one pending already. A burst of
+   * messages ends up in a single flush.
+   */
+  private void write(EventLoop eventLoop, ByteBuf buffer) {
+    netty.ctx.write(buffer).addListener(this);
+    if (!flushPending) {
+      flushPending = true;
+      eventLoop.execute(flush);
+    }
+  }
+
   @Override public ServerSentEmitter keepAlive(long timeInMillis) {
     if (checkOpen()) {
       EventLoop executor = netty.ctx.channel().eventLoop().next();
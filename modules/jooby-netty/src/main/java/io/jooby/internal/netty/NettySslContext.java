@@ -0,0 +1,271 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.internal.netty;
+
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.slf4j.Logger;
+
+import io.jooby.ServerOptions;
+import io.jooby.SneakyThrows;
+import io.jooby.SslOptions;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.IdentityCipherSuiteFilter;
+import io.netty.handler.ssl.JdkSslContext;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.OpenSslServerSessionContext;
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslProvider;
+
+/**
+ * Creates SSL handlers from the current SSL context. Uses OpenSSL (netty-tcnative) when available,
+ * otherwise the JDK SSL context created by {@link ServerOptions#getSSLContext(ClassLoader)}.
+ *
+ * Optionally:
+ * - Rotates session ticket keys (OpenSSL only)
+ * - Reloads the SSL context when certificate files change. New connections use the new context.
+ */
+public class NettySslContext {
+
+  private static final int TICKET_KEY_SIZE = 16;
+
+  private final ClassLoader loader;
+
+  private final ServerOptions options;
+
+  private final boolean http2;
+
+  private final Logger log;
+
+  private final boolean openSsl;
+
+  private final SecureRandom random = new SecureRandom();
+
+  private volatile SslContext context;
+
+  private long lastModified;
+
+  /** Current (encrypts new tickets) and previous ticket key. */
+  private volatile OpenSslSessionTicketKey[] ticketKeys;
+
+  public NettySslContext(ClassLoader loader, ServerOptions options, boolean http2, Logger log) {
+    this.loader = loader;
+    this.options = options;
+    this.http2 = http2;
+    this.log = log;
+    this.openSsl = OpenSsl.isAvailable();
+    if (openSsl) {
+      // same defaults as ServerOptions.getSSLContext
+      if (options.getSecurePort() == null) {
+        options.setSecurePort(ServerOptions.SEVER_SECURE_PORT);
+      }
+      if (options.getSsl() == null) {
+        options.setSsl(SslOptions.selfSigned());
+      }
+    }
+    try {
+      this.context = build();
+    } catch (Exception x) {
+      throw SneakyThrows.propagate(x);
+    }
+    this.lastModified = options.getSsl().lastModified();
+  }
+
+  public boolean isOpenSsl() {
+    return openSsl;
+  }
+
+  public SslHandler newHandler(ByteBufAllocator alloc) {
+    return context.newHandler(alloc);
+  }
+
+  SslContext getContext() {
+    return context;
+  }
+
+  /**
+   * Schedules ticket key rotation and certificate reload, when enabled.
+   *
+   * @param executor Event loop.
+   */
+  public void schedule(EventLoopGroup executor) {
+    SslOptions ssl = options.getSsl();
+    Duration rotation = ssl.getTicketKeyRotation();
+    if (rotation != null) {
+      if (openSsl) {
+        rotateTicketKeys();
+        executor.scheduleAtFixedRate(this::rotateTicketKeys, rotation.toMillis(),
+            rotation.toMillis(), TimeUnit.MILLISECONDS);
+      } else {
+        log.warn("TLS ticket key rotation requires OpenSSL (netty-tcnative), ignoring it");
+      }
+    }
+    Duration reload = ssl.getReloadInterval();
+    if (reload != null) {
+      executor.scheduleWithFixedDelay(this::reload, reload.toMillis(), reload.toMillis(),
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Creates a new SSL context when certificate files changed.
+   *
+   * @return True when the SSL context was replaced.
+   */
+  boolean reload() {
+    long modified = options.getSsl().lastModified();
+    if (modified > lastModified) {
+      try {
+        SslContext newContext = build();
+        lastModified = modified;
+        context = newContext;
+        log.info("TLS certificate reloaded");
+        return true;
+      } catch (Exception x) {
+        // keep serving with previous certificate, try again on next check
+        log.error("TLS certificate reload failed", x);
+      }
+    }
+    return false;
+  }
+
+  private void rotateTicketKeys() {
+    OpenSslSessionTicketKey key = new OpenSslSessionTicketKey(randomBytes(), randomBytes(),
+        randomBytes());
+    OpenSslSessionTicketKey[] keys = ticketKeys;
+    ticketKeys = keys == null
+        ? new OpenSslSessionTicketKey[]{key}
+        : new OpenSslSessionTicketKey[]{key, keys[0]};
+    setTicketKeys(context);
+  }
+
+  private void setTicketKeys(SslContext context) {
+    OpenSslSessionTicketKey[] keys = ticketKeys;
+    if (keys != null && context.sessionContext() instanceof OpenSslServerSessionContext) {
+      ((OpenSslServerSessionContext) context.sessionContext()).setTicketKeys(keys);
+    }
+  }
+
+  private byte[] randomBytes() {
+    byte[] bytes = new byte[TICKET_KEY_SIZE];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  private SslContext build() throws Exception {
+    SslContext context = openSsl ? openSsl() : jdk();
+    // keep tickets valid across reloads
+    setTicketKeys(context);
+    return context;
+  }
+
+  private SslContext jdk() {
+    SSLContext sslContext = options.getSSLContext(loader);
+    SslOptions ssl = options.getSsl();
+    String[] protocol = ssl.getProtocol().stream().toArray(String[]::new);
+    return new JdkSslContext(sslContext, false, null, IdentityCipherSuiteFilter.INSTANCE,
+        protocolConfig(), toClientAuth(ssl.getClientAuth()), protocol, false);
+  }
+
+  private SslContext openSsl() throws Exception {
+    SslOptions ssl = options.getSsl();
+    SslContextBuilder builder;
+    if (SslOptions.X509.equalsIgnoreCase(ssl.getType())) {
+      try (InputStream cert = ssl.getResource(loader, ssl.getCert());
+          InputStream key = ssl.getResource(loader, ssl.getPrivateKey())) {
+        builder = SslContextBuilder.forServer(cert, key, ssl.getPassword());
+      }
+      if (ssl.getTrustCert() != null) {
+        try (InputStream trustCert = ssl.getResource(loader, ssl.getTrustCert())) {
+          builder.trustManager(trustCert);
+        }
+      }
+    } else {
+      KeyManagerFactory kmf = KeyManagerFactory
+          .getInstance(KeyManagerFactory.getDefaultAlgorithm());
+      kmf.init(keystore(ssl, ssl.getCert(), ssl.getPassword()), toCharArray(ssl.getPassword()));
+      builder = SslContextBuilder.forServer(kmf);
+      if (ssl.getTrustCert() != null) {
+        TrustManagerFactory tmf = TrustManagerFactory
+            .getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(keystore(ssl, ssl.getTrustCert(), ssl.getTrustPassword()));
+        builder.trustManager(tmf);
+      }
+    }
+    builder.sslProvider(SslProvider.OPENSSL)
+        .protocols(openSslProtocols(ssl.getProtocol()))
+        .clientAuth(toClientAuth(ssl.getClientAuth()))
+        .applicationProtocolConfig(protocolConfig());
+    if (ssl.getSessionCacheSize() > 0) {
+      builder.sessionCacheSize(ssl.getSessionCacheSize());
+    }
+    if (ssl.getSessionTimeout() != null) {
+      builder.sessionTimeout(ssl.getSessionTimeout().getSeconds());
+    }
+    return builder.build();
+  }
+
+  private List<String> openSslProtocols(List<String> protocol) {
+    List<String> result = protocol.stream()
+        .filter(it -> !it.equals(SslOptions.TLS_V1_3) || OpenSsl.isTlsv13Supported())
+        .collect(Collectors.toList());
+    if (result.isEmpty()) {
+      throw new IllegalArgumentException("Unsupported protocol: " + protocol);
+    }
+    return result;
+  }
+
+  private KeyStore keystore(SslOptions ssl, String file, String password) throws Exception {
+    try (InputStream crt = ssl.getResource(loader, file)) {
+      KeyStore store = KeyStore.getInstance(ssl.getType());
+      store.load(crt, toCharArray(password));
+      return store;
+    }
+  }
+
+  private char[] toCharArray(String password) {
+    return password == null ? null : password.toCharArray();
+  }
+
+  private ApplicationProtocolConfig protocolConfig() {
+    if (http2) {
+      return new ApplicationProtocolConfig(ApplicationProtocolConfig.Protocol.ALPN,
+          ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+          ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+          Arrays.asList(ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1));
+    }
+    return ApplicationProtocolConfig.DISABLED;
+  }
+
+  private static ClientAuth toClientAuth(SslOptions.ClientAuth clientAuth) {
+    switch (clientAuth) {
+      case REQUIRED:
+        return ClientAuth.REQUIRE;
+      case REQUESTED:
+        return ClientAuth.OPTIONAL;
+      default:
+        return ClientAuth.NONE;
+    }
+  }
+}
@@ -5,6 +5,8 @@
  */
 package io.jooby.internal.netty;
 
+import java.util.concurrent.ThreadFactory;
+
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
@@ -17,9 +19,27 @@ import io.netty.channel.kqueue.KQueueEventLoopGroup;
 import io.netty.channel.kqueue.KQueueServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringChannelOption;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import net.openhft.affinity.AffinityStrategies;
+import net.openhft.affinity.AffinityThreadFactory;
 
 public abstract class NettyTransport {
+  /** Linux io_uring transport, from Netty incubator project. */
+  public static final String IO_URING = "io_uring";
+
+  /** Linux epoll transport. */
+  public static final String EPOLL = "epoll";
+
+  /** BSD/MacOS kqueue transport. */
+  public static final String KQUEUE = "kqueue";
+
+  /** JDK NIO transport. */
+  public static final String NIO = "nio";
+
   private static final int BACKLOG = 8192;
 
   public ServerBootstrap configure(EventLoopGroup acceptor, EventLoopGroup eventloop) {
@@ -29,9 +49,105 @@ public abstract class NettyTransport {
     return bootstrap.group(acceptor, eventloop);
   }
 
-  public abstract EventLoopGroup createEventLoop(int threads, String threadName, int ioRatio);
+  public EventLoopGroup createEventLoop(int threads, String threadName, int ioRatio) {
+    return createEventLoop(threads, new DefaultThreadFactory(threadName(threadName)), ioRatio);
+  }
+
+  public abstract EventLoopGroup createEventLoop(int threads, ThreadFactory threadFactory,
+      int ioRatio);
+
+  /**
+   * Creates an event loop where each thread is pinned to a different CPU core. Requires
+   * <code>net.openhft:affinity</code>.
+   *
+   * @param loader Class loader.
+   * @param threads Number of threads.
+   * @param threadName Thread name.
+   * @param ioRatio IO ratio.
+   * @return Event loop or <code>null</code> when the affinity library is missing.
+   */
+  public EventLoopGroup createPinnedEventLoop(ClassLoader loader, int threads, String threadName,
+      int ioRatio) {
+    try {
+      loader.loadClass("net.openhft.affinity.AffinityThreadFactory");
+      ThreadFactory threadFactory = new AffinityThreadFactory(threadName(threadName), false,
+          AffinityStrategies.DIFFERENT_CORE);
+      return createEventLoop(threads, threadFactory, ioRatio);
+    } catch (ClassNotFoundException x) {
+      return null;
+    }
+  }
+
+  protected String threadName(String name) {
+    return name + "-" + getName();
+  }
+
+  /**
+   * True when the transport is able to bind multiple listening sockets to the same address using
+   * <code>SO_REUSEPORT</code> and let the kernel balance incoming connections between them.
+   *
+   * @return True when <code>SO_REUSEPORT</code> is supported.
+   */
+  public boolean supportsReusePort() {
+    return false;
+  }
+
+  /**
+   * Transport name.
+   *
+   * @return Transport name.
+   */
+  public abstract String getName();
+
+  /**
+   * True when channels of this transport are able to write a {@link io.netty.channel.FileRegion}
+   * (zero-copy file transfer).
+   *
+   * @return True when file regions are supported.
+   */
+  public boolean supportsFileRegion() {
+    return true;
+  }
 
   public static NettyTransport transport(ClassLoader loader) {
+    return transport(loader, null);
+  }
+
+  /**
+   * Find a transport.
+   *
+   * @param loader Class loader.
+   * @param name Preferred transport name or <code>null</code>.
+   * @return Preferred transport when it is available. Otherwise, the first available of io_uring
+   *     (only when present on classpath), epoll, kqueue and nio.
+   */
+  public static NettyTransport transport(ClassLoader loader, String name) {
+    if (name != null) {
+      switch (name) {
+        case IO_URING:
+          if (isIOUring(loader)) {
+            return ioUring();
+          }
+          break;
+        case EPOLL:
+          if (isEpoll(loader)) {
+            return epoll();
+          }
+          break;
+        case KQUEUE:
+          if (isKQueue(loader)) {
+            return kqueue();
+          }
+          break;
+        case NIO:
+          return nio();
+        default:
+          throw new IllegalArgumentException("Unknown transport: " + name);
+      }
+    }
+    if (isIOUring(loader)) {
+      return ioUring();
+    }
     if (isEpoll(loader)) {
       return epoll();
     }
@@ -41,6 +157,10 @@ public abstract class NettyTransport {
     return nio();
   }
 
+  private static NettyTransport ioUring() {
+    return new IOUringTransport();
+  }
+
   private static NettyTransport kqueue() {
     return new KQueueTransport();
   }
@@ -49,6 +169,15 @@ public abstract class NettyTransport {
     return new EpollTransport();
   }
 
+  private static boolean isIOUring(ClassLoader loader) {
+    try {
+      loader.loadClass("io.netty.incubator.channel.uring.IOUring");
+      return IOUring.isAvailable();
+    } catch (ClassNotFoundException x) {
+      return false;
+    }
+  }
+
   private static boolean isEpoll(ClassLoader loader) {
     try {
       loader.loadClass("io.netty.channel.epoll.Epoll");
@@ -72,9 +201,17 @@ public abstract class NettyTransport {
   }
 
   private static class JDKTransport extends NettyTransport {
-    @Override public EventLoopGroup createEventLoop(int threads, String threadName, int ioRatio) {
-      NioEventLoopGroup loopGroup = new NioEventLoopGroup(threads,
-          new DefaultThreadFactory(threadName));
+    @Override public String getName() {
+      return NIO;
+    }
+
+    @Override protected String threadName(String name) {
+      return name;
+    }
+
+    @Override public EventLoopGroup createEventLoop(int threads, ThreadFactory threadFactory,
+        int ioRatio) {
+      NioEventLoopGroup loopGroup = new NioEventLoopGroup(threads, threadFactory);
       loopGroup.setIoRatio(ioRatio);
       return loopGroup;
     }
@@ -85,10 +222,49 @@ public abstract class NettyTransport {
     }
   }
 
+  private static class IOUringTransport extends NettyTransport {
+    @Override public String getName() {
+      return IO_URING;
+    }
+
+    /**
+     * The incubator io_uring channels only write byte buffers.
+     *
+     * @return False.
+     */
+    @Override public boolean supportsFileRegion() {
+      return false;
+    }
+
+    @Override public boolean supportsReusePort() {
+      return true;
+    }
+
+    @Override public EventLoopGroup createEventLoop(int threads, ThreadFactory threadFactory,
+        int ioRatio) {
+      IOUringEventLoopGroup loopGroup = new IOUringEventLoopGroup(threads, threadFactory);
+      return loopGroup;
+    }
+
+    @Override public ServerBootstrap configure(EventLoopGroup acceptor, EventLoopGroup eventloop) {
+      return super.configure(acceptor, eventloop)
+          .channel(IOUringServerSocketChannel.class)
+          .option(IOUringChannelOption.SO_REUSEPORT, true);
+    }
+  }
+
   private static class EpollTransport extends NettyTransport {
-    @Override public EventLoopGroup createEventLoop(int threads, String threadName, int ioRatio) {
-      EpollEventLoopGroup loopGroup = new EpollEventLoopGroup(threads,
-          new DefaultThreadFactory(threadName + "-epoll"));
+    @Override public String getName() {
+      return EPOLL;
+    }
+
+    @Override public boolean supportsReusePort() {
+      return true;
+    }
+
+    @Override public EventLoopGroup createEventLoop(int threads, ThreadFactory threadFactory,
+        int ioRatio) {
+      EpollEventLoopGroup loopGroup = new EpollEventLoopGroup(threads, threadFactory);
       return loopGroup;
     }
 
@@ -100,9 +276,13 @@ public abstract class NettyTransport {
   }
 
   private static class KQueueTransport extends NettyTransport {
-    @Override public EventLoopGroup createEventLoop(int threads, String threadName, int ioRatio) {
-      KQueueEventLoopGroup loopGroup = new KQueueEventLoopGroup(threads,
-          new DefaultThreadFactory(threadName + "-kqueue"));
+    @Override public String getName() {
+      return KQUEUE;
+    }
+
+    @Override public EventLoopGroup createEventLoop(int threads, ThreadFactory threadFactory,
+        int ioRatio) {
+      KQueueEventLoopGroup loopGroup = new KQueueEventLoopGroup(threads, threadFactory);
       loopGroup.setIoRatio(ioRatio);
       return loopGroup;
     }
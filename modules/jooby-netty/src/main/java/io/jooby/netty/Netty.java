@@ -10,7 +10,6 @@ import static java.util.stream.StreamSupport.stream;
 
 import java.net.BindException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.ServiceLoader;
 import java.util.Spliterator;
@@ -19,32 +18,27 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
-import javax.net.ssl.SSLContext;
 
 import io.jooby.Http2Configurer;
 import io.jooby.Jooby;
 import io.jooby.Server;
 import io.jooby.ServerOptions;
 import io.jooby.SneakyThrows;
-import io.jooby.SslOptions;
 import io.jooby.internal.netty.Http2Extension;
 import io.jooby.internal.netty.NettyPipeline;
+import io.jooby.internal.netty.NettySslContext;
 import io.jooby.internal.netty.NettyTransport;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelInboundHandler;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
 import io.netty.handler.codec.http.multipart.DiskAttribute;
 import io.netty.handler.codec.http.multipart.DiskFileUpload;
 import io.netty.handler.codec.http.multipart.HttpDataFactory;
-import io.netty.handler.ssl.ApplicationProtocolConfig;
-import io.netty.handler.ssl.ApplicationProtocolNames;
-import io.netty.handler.ssl.ClientAuth;
-import io.netty.handler.ssl.IdentityCipherSuiteFilter;
-import io.netty.handler.ssl.JdkSslContext;
-import io.netty.handler.ssl.SslContext;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
 
 /**
  * Web server implementation using <a href="https://netty.io/">Netty</a>.
@@ -101,13 +95,35 @@ public class Netty extends Server.Base {
       DiskFileUpload.baseDirectory = tmpdir;
       DiskAttribute.baseDirectory = tmpdir;
 
-      NettyTransport transport = NettyTransport.transport(application.getClassLoader());
-
-      /** Acceptor event-loop */
-      this.acceptorloop = transport.createEventLoop(1, "acceptor", _50);
+      NettyTransport transport = NettyTransport
+          .transport(application.getClassLoader(), options.getTransport());
+      if (options.getTransport() != null && !options.getTransport().equals(transport.getName())) {
+        application.getLog().warn("Netty transport {} is not available, fallback to: {}",
+            options.getTransport(), transport.getName());
+      } else {
+        application.getLog().info("Netty transport: {}", transport.getName());
+      }
 
       /** Event loop: processing connections, parsing messages and doing engine's internal work */
-      this.eventloop = transport.createEventLoop(options.getIoThreads(), "eventloop", _100);
+      if (options.isCpuAffinity()) {
+        this.eventloop = transport.createPinnedEventLoop(application.getClassLoader(),
+            options.getIoThreads(), "eventloop", _100);
+        if (this.eventloop == null) {
+          application.getLog().warn("CPU affinity requires net.openhft:affinity, ignoring it");
+        }
+      }
+      if (this.eventloop == null) {
+        this.eventloop = transport.createEventLoop(options.getIoThreads(), "eventloop", _100);
+      }
+
+      /** Acceptor event-loop, not required when each event loop listens on its own socket */
+      if (options.isReusePort() && !transport.supportsReusePort()) {
+        application.getLog().warn("Netty transport {} doesn't support SO_REUSEPORT, using a "
+            + "single acceptor", transport.getName());
+      }
+      if (!options.isReusePort() || !transport.supportsReusePort()) {
+        this.acceptorloop = transport.createEventLoop(1, "acceptor", _50);
+      }
 
       /** File data factory: */
       HttpDataFactory factory = new DefaultHttpDataFactory(options.getBufferSize());
@@ -128,31 +144,19 @@ public class Netty extends Server.Base {
 
       /** Bootstrap: */
       if (!options.isHttpsOnly()) {
-        ServerBootstrap http = transport.configure(acceptorloop, eventloop)
-            .childHandler(newPipeline(factory, null, http2))
-            .childOption(ChannelOption.SO_REUSEADDR, true)
-            .childOption(ChannelOption.TCP_NODELAY, true);
-        http.bind(options.getHost(), options.getPort()).get();
+        bind(transport, newPipeline(transport, factory, null, http2), options.getPort());
       }
 
       if (options.isSSLEnabled()) {
-        SSLContext javaSslContext = options
-            .getSSLContext(application.getEnvironment().getClassLoader());
-
-        SslOptions sslOptions = options.getSsl();
-        String[] protocol = sslOptions.getProtocol().stream()
-            .toArray(String[]::new);
-
-        SslOptions.ClientAuth clientAuth = sslOptions.getClientAuth();
-        ServerBootstrap https = transport.configure(acceptorloop, eventloop)
-            .childHandler(
-                newPipeline(factory,
-                    wrap(javaSslContext, toClientAuth(clientAuth), protocol, http2 != null),
-                    http2))
-            .childOption(ChannelOption.SO_REUSEADDR, true)
-            .childOption(ChannelOption.TCP_NODELAY, true);
-
-        https.bind(options.getHost(), options.getSecurePort()).get();
+        NettySslContext sslContext = new NettySslContext(
+            application.getEnvironment().getClassLoader(), options, http2 != null,
+            application.getLog());
+        application.getLog().info("Netty TLS engine: {}",
+            sslContext.isOpenSsl() ? "OpenSSL" : "JDK");
+        sslContext.schedule(eventloop);
+
+        bind(transport, newPipeline(transport, factory, sslContext, http2),
+            options.getSecurePort());
       } else if (options.isHttpsOnly()) {
         throw new IllegalArgumentException("Server configured for httpsOnly, but ssl options not set");
       }
@@ -170,21 +174,30 @@ public class Netty extends Server.Base {
     return this;
   }
 
-  private ClientAuth toClientAuth(SslOptions.ClientAuth clientAuth) {
-    switch (clientAuth) {
-      case REQUIRED:
-        return ClientAuth.REQUIRE;
-      case REQUESTED:
-        return ClientAuth.OPTIONAL;
-      default:
-        return ClientAuth.NONE;
+  private void bind(NettyTransport transport, NettyPipeline pipeline, int port)
+      throws InterruptedException, ExecutionException {
+    if (acceptorloop == null) {
+      /** SO_REUSEPORT: one listening socket per event loop, the kernel balances connections */
+      for (EventExecutor executor : eventloop) {
+        EventLoop loop = (EventLoop) executor;
+        ServerBootstrap bootstrap = transport.configure(loop, loop);
+        childOptions(bootstrap, pipeline).bind(options.getHost(), port).get();
+      }
+    } else {
+      ServerBootstrap bootstrap = transport.configure(acceptorloop, eventloop);
+      childOptions(bootstrap, pipeline).bind(options.getHost(), port).get();
     }
   }
 
-  private NettyPipeline newPipeline(HttpDataFactory factory, SslContext sslContext,
-      Http2Configurer http2) {
+  private ServerBootstrap childOptions(ServerBootstrap bootstrap, NettyPipeline pipeline) {
+    return bootstrap.childHandler(pipeline)
+        .childOption(ChannelOption.SO_REUSEADDR, true)
+        .childOption(ChannelOption.TCP_NODELAY, true);
+  }
+
+  private NettyPipeline newPipeline(NettyTransport transport, HttpDataFactory factory,
+      NettySslContext sslContext, Http2Configurer http2) {
     return new NettyPipeline(
-        acceptorloop.next(),
         applications.get(0),
         factory,
         sslContext,
@@ -193,7 +206,9 @@ public class Netty extends Server.Base {
         options.getCompressionLevel(),
         options.getBufferSize(),
         options.getMaxRequestSize(),
-        options.isExpectContinue() ==  Boolean.TRUE
+        options.isExpectContinue() ==  Boolean.TRUE,
+        options.isContextRecycling(),
+        transport.supportsFileRegion()
     );
   }
 
@@ -213,22 +228,4 @@ public class Netty extends Server.Base {
     }
     return this;
   }
-
-  private SslContext wrap(SSLContext sslContext, ClientAuth clientAuth, String[] protocol,
-      boolean http2) {
-    ApplicationProtocolConfig protocolConfig;
-    if (http2) {
-      protocolConfig = new ApplicationProtocolConfig(ApplicationProtocolConfig.Protocol.ALPN,
-          ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
-          ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
-          Arrays.asList(ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1));
-    } else {
-      protocolConfig = ApplicationProtocolConfig.DISABLED;
-    }
-    JdkSslContext jdk = new JdkSslContext(sslContext, false, null,
-        IdentityCipherSuiteFilter.INSTANCE,
-        protocolConfig, clientAuth, protocol, false);
-
-    return jdk;
-  }
 }
@@ -0,0 +1,64 @@
+package io.jooby.internal.netty;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import io.jooby.ServerOptions;
+import io.jooby.SslOptions;
+import io.netty.handler.ssl.SslContext;
+
+public class NettySslContextTest {
+
+  @Test
+  public void reloadCertificate(@TempDir Path dir) throws Exception {
+    Path crt = copy("io/jooby/ssl/localhost.crt", dir.resolve("localhost.crt"));
+    Path key = copy("io/jooby/ssl/localhost.key", dir.resolve("localhost.key"));
+    ServerOptions options = new ServerOptions()
+        .setSsl(SslOptions.x509(crt.toString(), key.toString()));
+    NettySslContext ssl = new NettySslContext(getClass().getClassLoader(), options, false,
+        LoggerFactory.getLogger(getClass()));
+    SslContext initial = ssl.getContext();
+
+    // nothing changed
+    assertFalse(ssl.reload());
+    assertSame(initial, ssl.getContext());
+
+    // broken certificate: keep current context
+    byte[] valid = Files.readAllBytes(crt);
+    Files.write(crt, "broken".getBytes(StandardCharsets.UTF_8));
+    touch(crt, 10_000);
+    assertFalse(ssl.reload());
+    assertSame(initial, ssl.getContext());
+
+    // fixed certificate
+    Files.write(crt, valid);
+    touch(crt, 20_000);
+    assertTrue(ssl.reload());
+    assertNotSame(initial, ssl.getContext());
+    assertFalse(ssl.reload());
+  }
+
+  private Path copy(String resource, Path target) throws Exception {
+    try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+      Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+    return target;
+  }
+
+  private void touch(Path file, long offset) throws Exception {
+    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + offset));
+  }
+}
@@ -21,6 +21,7 @@ public class ActionAdapterImpl implements HttpActionAdapter<Object, Pac4jContext
       // It is unclear when we reach this state:
       throw new TechnicalException("No action provided");
     }
+    SessionStoreImpl.flush(context);
     StatusCode statusCode = StatusCode.valueOf(action.getCode());
     Context rsp = context.getContext();
     if (action instanceof WithLocationAction) {
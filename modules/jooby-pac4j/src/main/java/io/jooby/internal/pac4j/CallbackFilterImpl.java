@@ -26,17 +26,24 @@ public class CallbackFilterImpl implements Route.Handler {
 
   @NonNull @Override public Object apply(@NonNull Context ctx) throws Exception {
     Pac4jContext pac4j = Pac4jContext.create(ctx);
-
-    Object result = config.getCallbackLogic().perform(
-        pac4j,
-        config,
-        config.getHttpActionAdapter(),
-        options.getDefaultUrl(),
-        options.getSaveInSession(),
-        options.getMultiProfile(),
-        options.getRenewSession(),
-        options.getDefaultClient()
-    );
+    SessionStoreImpl.defer(pac4j);
+
+    Object result;
+    try {
+      result = config.getCallbackLogic().perform(
+          pac4j,
+          config,
+          config.getHttpActionAdapter(),
+          options.getDefaultUrl(),
+          options.getSaveInSession(),
+          options.getMultiProfile(),
+          options.getRenewSession(),
+          options.getDefaultClient()
+      );
+    } finally {
+      // custom action adapter might not flush
+      SessionStoreImpl.flush(pac4j);
+    }
 
     return result == null ? ctx : result;
   }
@@ -29,6 +29,7 @@ public class GrantAccessAdapterImpl implements SecurityGrantedAccessAdapter<Obje
     if (iterator.hasNext()) {
       context.getContext().setUser(iterator.next());
     }
+    SessionStoreImpl.flush(context);
     return next.apply(ctx);
   }
 
@@ -30,8 +30,15 @@ public class LogoutImpl implements Route.Handler {
       redirectTo = options.getDefaultUrl();
     }
     redirectTo = ctx.getRequestURL(redirectTo);
-    return config.getLogoutLogic()
-        .perform(Pac4jContext.create(ctx), config, config.getHttpActionAdapter(), redirectTo,
-            null, options.isLocalLogout(), options.isDestroySession(), options.isCentralLogout());
+    Pac4jContext pac4j = Pac4jContext.create(ctx);
+    SessionStoreImpl.defer(pac4j);
+    try {
+      return config.getLogoutLogic()
+          .perform(pac4j, config, config.getHttpActionAdapter(), redirectTo,
+              null, options.isLocalLogout(), options.isDestroySession(), options.isCentralLogout());
+    } finally {
+      // custom action adapter might not flush
+      SessionStoreImpl.flush(pac4j);
+    }
   }
 }
@@ -80,8 +80,14 @@ public class SecurityFilterImpl implements Route.Decorator, Route.Handler {
     String clients = ctx.getContext().query(clientName(securityLogic))
         .value(this.clients.get());
     String authorizers = ofNullable(this.authorizers).orElse(NoopAuthorizer.NAME);
-    return securityLogic.perform(ctx, config, grantAccessAdapter, config.getHttpActionAdapter(),
-        clients, authorizers, null, options.getMultiProfile());
+    SessionStoreImpl.defer(ctx);
+    try {
+      return securityLogic.perform(ctx, config, grantAccessAdapter,
+          config.getHttpActionAdapter(), clients, authorizers, null, options.getMultiProfile());
+    } finally {
+      // custom action adapter might not flush
+      SessionStoreImpl.flush(ctx);
+    }
   }
 
   private String clientName(SecurityLogic securityLogic) {
@@ -9,6 +9,8 @@ import io.jooby.Session;
 import io.jooby.SneakyThrows;
 import io.jooby.Value;
 import io.jooby.pac4j.Pac4jContext;
+import io.jooby.pac4j.Pac4jOptions;
+import io.jooby.pac4j.Pac4jSessionSerializer;
 import org.pac4j.core.context.session.SessionStore;
 import org.pac4j.core.exception.http.BadRequestAction;
 import org.pac4j.core.exception.http.ForbiddenAction;
@@ -24,10 +26,13 @@ import org.pac4j.core.exception.http.WithLocationAction;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import static io.jooby.StatusCode.BAD_REQUEST_CODE;
@@ -39,13 +44,67 @@ import static io.jooby.StatusCode.SEE_OTHER_CODE;
 import static io.jooby.StatusCode.TEMPORARY_REDIRECT_CODE;
 import static io.jooby.StatusCode.UNAUTHORIZED_CODE;
 
+/**
+ * Saves pac4j values in the Jooby {@link Session}. Values that require serialization (profiles)
+ * are decoded once per request. While pac4j logic runs (see {@link #defer(Pac4jContext)}), they
+ * are encoded once by {@link #flush(Pac4jContext)} instead of on every set, because pac4j usually
+ * sets the same value several times while processing a request.
+ */
 public class SessionStoreImpl
     implements org.pac4j.core.context.session.SessionStore<Pac4jContext> {
 
+  /**
+   * Deserialized value of a session attribute, valid while the attribute doesn't change. A
+   * <code>null</code> encoded value means the value was set and is not saved yet.
+   */
+  private static class Entry {
+    private final String encoded;
+
+    private final Object value;
+
+    Entry(String encoded, Object value) {
+      this.encoded = encoded;
+      this.value = value;
+    }
+
+    boolean isDirty() {
+      return encoded == null;
+    }
+  }
+
   private static final String PAC4J = "p4j~";
 
   private static final String BIN = "b64~";
 
+  private static final String SER = "ser~";
+
+  private static final String REQUEST_CACHE = SessionStoreImpl.class.getName() + ".cache";
+
+  private static final String DEFER = SessionStoreImpl.class.getName() + ".defer";
+
+  private final Pac4jSessionSerializer serializer;
+
+  /** Deserialized values by encoded value, shared between requests. */
+  private final Map<String, Object> cache;
+
+  public SessionStoreImpl(Pac4jOptions options) {
+    this.serializer = options.getSessionSerializer();
+    int cacheSize = options.getSessionCacheSize();
+    if (cacheSize > 0) {
+      this.cache = Collections.synchronizedMap(new LinkedHashMap<String, Object>(16, .75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+          return size() > cacheSize;
+        }
+      });
+    } else {
+      this.cache = null;
+    }
+  }
+
+  public SessionStoreImpl() {
+    this(new Pac4jOptions());
+  }
+
   private Session getSession(Pac4jContext context) {
     return context.getContext().session();
   }
@@ -59,25 +118,129 @@ public class SessionStoreImpl
   }
 
   @Override public Optional<Object> get(Pac4jContext context, String key) {
-    Optional sessionValue = getSessionOrEmpty(context)
-        .map(session -> session.get(key))
-        .map(SessionStoreImpl::strToObject)
-        .orElseGet(Optional::empty);
-    return sessionValue;
+    Session session = context.getContext().sessionOrNull();
+    if (session == null) {
+      return Optional.empty();
+    }
+    Entry pending = pending(context, key);
+    if (pending != null) {
+      return Optional.of(pending.value);
+    }
+    Value node = session.get(key);
+    if (node.isMissing()) {
+      return Optional.empty();
+    }
+    String value = node.value();
+    if (!isSerialized(value)) {
+      return Optional.of(strToObject(value));
+    }
+    Map<String, Entry> values = requestCache(context);
+    Entry entry = values.get(key);
+    if (entry == null || !entry.encoded.equals(value)) {
+      Object decoded = cache == null ? null : cache.get(value);
+      if (decoded == null) {
+        decoded = deserialize(value);
+        if (cache != null) {
+          cache.put(value, decoded);
+        }
+      }
+      entry = new Entry(value, decoded);
+      values.put(key, entry);
+    }
+    return Optional.of(entry.value);
   }
 
   @Override public void set(Pac4jContext context, String key, Object value) {
     if (value == null || value.toString().length() == 0) {
-      getSessionOrEmpty(context).ifPresent(session -> session.remove(key));
+      getSessionOrEmpty(context).ifPresent(session -> {
+        evict(context, key);
+        session.remove(key);
+      });
+    } else if (isSimple(value)) {
+      Session session = getSession(context);
+      evict(context, key);
+      put(session, key, objToStr(value));
     } else {
-      String encoded = objToStr(value);
-      getSession(context).put(key, encoded);
+      // make sure session exists
+      getSession(context);
+      requestCache(context).put(key, new Entry(null, value));
+      if (!context.getContext().getAttributes().containsKey(DEFER)) {
+        save(context);
+      }
     }
   }
 
+  /**
+   * Defer serialization of values until {@link #flush(Pac4jContext)}. Called before running
+   * pac4j logic.
+   *
+   * @param context Web context.
+   */
+  public static void defer(Pac4jContext context) {
+    context.getContext().getAttributes().put(DEFER, Boolean.TRUE);
+  }
+
+  /**
+   * Serialize and save values set since {@link #defer(Pac4jContext)}. Values set later are
+   * saved right away. It must be called before the response is sent, so session cookies (if any)
+   * are updated. It does nothing when there is nothing to save.
+   *
+   * @param context Web context.
+   */
+  public static void flush(Pac4jContext context) {
+    if (context.getContext().getAttributes().remove(DEFER) != null) {
+      SessionStore store = context.getSessionStore();
+      if (store instanceof SessionStoreImpl) {
+        ((SessionStoreImpl) store).save(context);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void save(Pac4jContext context) {
+    Map<String, Entry> values = (Map<String, Entry>) context.getContext().getAttributes()
+        .get(REQUEST_CACHE);
+    if (values == null) {
+      return;
+    }
+    Session session = context.getContext().sessionOrNull();
+    for (Map.Entry<String, Entry> it : values.entrySet()) {
+      Entry entry = it.getValue();
+      if (entry.isDirty()) {
+        String encoded = objToStr(entry.value);
+        it.setValue(new Entry(encoded, entry.value));
+        if (session != null) {
+          Value current = put(session, it.getKey(), encoded);
+          if (cache != null) {
+            if (!current.isMissing() && !current.value().equals(encoded)) {
+              // previous value might have been modified in place, don't share it anymore
+              cache.remove(current.value());
+            }
+            cache.put(encoded, entry.value);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Put a value in session. Don't touch the session (and the session store) when nothing
+   * changed.
+   *
+   * @return Previous value.
+   */
+  private static Value put(Session session, String key, String value) {
+    Value current = session.get(key);
+    if (current.isMissing() || !current.value().equals(value)) {
+      session.put(key, value);
+    }
+    return current;
+  }
+
   @Override public boolean destroySession(Pac4jContext context) {
     Optional<Session> session = getSessionOrEmpty(context);
     session.ifPresent(Session::destroy);
+    context.getContext().getAttributes().remove(REQUEST_CACHE);
     return session.isPresent();
   }
 
@@ -88,7 +251,7 @@ public class SessionStoreImpl
   @Override public Optional<SessionStore<Pac4jContext>> buildFromTrackableSession(
       Pac4jContext context, Object trackableSession) {
     if (trackableSession != null) {
-      return Optional.of(new SessionStoreImpl());
+      return Optional.of(this);
     }
     return Optional.empty();
   }
@@ -98,41 +261,94 @@ public class SessionStoreImpl
     return true;
   }
 
-  static Optional<Object> strToObject(final Value node) {
-    if (node.isMissing()) {
-      return Optional.empty();
+  @SuppressWarnings("unchecked")
+  private Map<String, Entry> requestCache(Pac4jContext context) {
+    Map<String, Object> attributes = context.getContext().getAttributes();
+    Map<String, Entry> values = (Map<String, Entry>) attributes.get(REQUEST_CACHE);
+    if (values == null) {
+      values = new HashMap<>();
+      attributes.put(REQUEST_CACHE, values);
     }
-    String value = node.value();
-    if (value.startsWith(BIN)) {
-      try {
+    return values;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Entry pending(Pac4jContext context, String key) {
+    Map<String, Entry> values = (Map<String, Entry>) context.getContext().getAttributes()
+        .get(REQUEST_CACHE);
+    if (values != null) {
+      Entry entry = values.get(key);
+      if (entry != null && entry.isDirty()) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void evict(Pac4jContext context, String key) {
+    Map<String, Entry> values = (Map<String, Entry>) context.getContext().getAttributes()
+        .get(REQUEST_CACHE);
+    if (values != null) {
+      Entry previous = values.remove(key);
+      if (previous != null && !previous.isDirty() && cache != null) {
+        cache.remove(previous.encoded);
+      }
+    }
+  }
+
+  private Object deserialize(String value) {
+    try {
+      if (value.startsWith(BIN)) {
         byte[] bytes = Base64.getDecoder().decode(value.substring(BIN.length()));
-        return Optional.of(new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject());
-      } catch (Exception x) {
-        throw SneakyThrows.propagate(x);
+        return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
       }
-    } else if (value.startsWith(PAC4J)) {
-      return Optional.of(strToAction(value.substring(PAC4J.length())));
+      if (serializer == null) {
+        throw new IllegalStateException("Session value requires a session serializer, see "
+            + Pac4jOptions.class.getSimpleName() + ".setSessionSerializer");
+      }
+      return serializer.deserialize(value.substring(SER.length()));
+    } catch (Exception x) {
+      throw SneakyThrows.propagate(x);
     }
-    return Optional.of(value);
   }
 
-  static String objToStr(final Object value) {
+  private static boolean isSimple(Object value) {
+    return value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+        || value instanceof HttpAction;
+  }
+
+  private String objToStr(final Object value) {
     if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean) {
       return value.toString();
     } else if (value instanceof HttpAction) {
       return actionToStr((HttpAction) value);
     }
     try {
+      if (serializer != null) {
+        return SER + serializer.serialize(value);
+      }
       ByteArrayOutputStream bytes = new ByteArrayOutputStream();
       ObjectOutputStream stream = new ObjectOutputStream(bytes);
       stream.writeObject(value);
       stream.flush();
       return BIN + Base64.getEncoder().encodeToString(bytes.toByteArray());
-    } catch (IOException x) {
+    } catch (Exception x) {
       throw SneakyThrows.propagate(x);
     }
   }
 
+  private static boolean isSerialized(String value) {
+    return value.startsWith(BIN) || value.startsWith(SER);
+  }
+
+  private static Object strToObject(final String value) {
+    if (value.startsWith(PAC4J)) {
+      return strToAction(value.substring(PAC4J.length()));
+    }
+    return value;
+  }
+
   private static String actionToStr(HttpAction action) {
     StringBuilder buffer = new StringBuilder();
     buffer.append(PAC4J).append(action.getCode());
@@ -26,6 +26,8 @@ public class WebContextImpl implements Pac4jContext {
 
   private Context context;
 
+  private SessionStoreImpl sessionStore;
+
   public WebContextImpl(Context context) {
     this.context = context;
   }
@@ -36,7 +38,13 @@ public class WebContextImpl implements Pac4jContext {
   }
 
   @Override public SessionStore getSessionStore() {
-    return new SessionStoreImpl();
+    if (sessionStore == null) {
+      sessionStore = context.getRouter().getServices().getOrNull(SessionStoreImpl.class);
+      if (sessionStore == null) {
+        sessionStore = new SessionStoreImpl();
+      }
+    }
+    return sessionStore;
   }
 
   @Override public Optional<String> getRequestParameter(String name) {
@@ -21,6 +21,7 @@ import io.jooby.internal.pac4j.NoopAuthorizer;
 import io.jooby.internal.pac4j.Pac4jCurrentUser;
 import io.jooby.internal.pac4j.SavedRequestHandlerImpl;
 import io.jooby.internal.pac4j.SecurityFilterImpl;
+import io.jooby.internal.pac4j.SessionStoreImpl;
 import io.jooby.internal.pac4j.UrlResolverImpl;
 import org.pac4j.core.authorization.authorizer.Authorizer;
 import org.pac4j.core.client.Client;
@@ -356,6 +357,7 @@ public class Pac4jModule implements Extension {
 
   @Override public void install(@NonNull Jooby application) throws Exception {
     application.getServices().putIfAbsent(Pac4jOptions.class, options);
+    application.getServices().putIfAbsent(SessionStoreImpl.class, new SessionStoreImpl(options));
 
     Clients clients = ofNullable(pac4j.getClients())
         /** No client? set a default one: */
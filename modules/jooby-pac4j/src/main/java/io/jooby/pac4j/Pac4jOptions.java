@@ -43,6 +43,10 @@ public class Pac4jOptions {
 
   private SameSite cookieSameSite;
 
+  private Pac4jSessionSerializer sessionSerializer;
+
+  private int sessionCacheSize;
+
   /**
    * Default url to redirect to after successful login.
    * Used by {@link org.pac4j.core.engine.CallbackLogic}.
@@ -276,4 +280,50 @@ public class Pac4jOptions {
     cookieSameSite = sameSite;
     return this;
   }
+
+  /**
+   * Serializer for non-simple session values, like user profiles. Default is: <code>null</code>,
+   * which means Java serialization.
+   *
+   * @return Serializer for session values or <code>null</code>.
+   */
+  public @Nullable Pac4jSessionSerializer getSessionSerializer() {
+    return sessionSerializer;
+  }
+
+  /**
+   * Set serializer for non-simple session values, like user profiles.
+   *
+   * @param sessionSerializer Serializer for session values or <code>null</code> for Java
+   *     serialization.
+   * @return This options.
+   */
+  public @NonNull Pac4jOptions setSessionSerializer(
+      @Nullable Pac4jSessionSerializer sessionSerializer) {
+    this.sessionSerializer = sessionSerializer;
+    return this;
+  }
+
+  /**
+   * Max number of deserialized session values (usually user profiles) to keep between requests.
+   * Values are always cached for the duration of a request. Default is: <code>0</code> (no
+   * cache between requests).
+   *
+   * @return Max number of deserialized session values to keep between requests.
+   */
+  public int getSessionCacheSize() {
+    return sessionCacheSize;
+  }
+
+  /**
+   * Set max number of deserialized session values to keep between requests. Cached values are
+   * shared by the requests of the same session, so they must not be modified outside pac4j.
+   *
+   * @param sessionCacheSize Max number of deserialized session values to keep between requests.
+   * @return This options.
+   */
+  public @NonNull Pac4jOptions setSessionCacheSize(int sessionCacheSize) {
+    this.sessionCacheSize = sessionCacheSize;
+    return this;
+  }
 }
@@ -0,0 +1,59 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby.pac4j;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Converts pac4j session values (usually user profiles) to a string, so they can be saved in a
+ * {@link io.jooby.Session}. Simple values (strings, numbers, booleans and HTTP actions) are saved
+ * as they are and never reach the serializer.
+ *
+ * Default serializer uses Java serialization. A more compact format (like JSON) is usually smaller
+ * and faster to read:
+ *
+ * <pre>{@code
+ * {
+ *   ObjectMapper mapper = new ObjectMapper()
+ *       .activateDefaultTyping(validator, ObjectMapper.DefaultTyping.NON_FINAL);
+ *
+ *   install(new Pac4jModule(new Pac4jOptions().setSessionSerializer(new Pac4jSessionSerializer() {
+ *     public String serialize(Object value) throws Exception {
+ *       return mapper.writeValueAsString(value);
+ *     }
+ *
+ *     public Object deserialize(String value) throws Exception {
+ *       return mapper.readValue(value, Object.class);
+ *     }
+ *   })));
+ * }
+ * }</pre>
+ *
+ * Values saved by a different serializer (like the default one) are still readable.
+ *
+ * @author edgar
+ * @since 3.0.0
+ */
+public interface Pac4jSessionSerializer {
+
+  /**
+   * Converts a value to string.
+   *
+   * @param value Value to convert.
+   * @return String representation.
+   * @throws Exception If something goes wrong.
+   */
+  @NonNull String serialize(@NonNull Object value) throws Exception;
+
+  /**
+   * Converts a string back to a value.
+   *
+   * @param value String representation, as created by {@link #serialize(Object)}.
+   * @return Value.
+   * @throws Exception If something goes wrong.
+   */
+  @NonNull Object deserialize(@NonNull String value) throws Exception;
+}
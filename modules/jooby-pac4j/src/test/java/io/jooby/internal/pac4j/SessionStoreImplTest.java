@@ -0,0 +1,139 @@
+package io.jooby.internal.pac4j;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.jooby.Jooby;
+import io.jooby.MockContext;
+import io.jooby.MockSession;
+import io.jooby.pac4j.Pac4jContext;
+import io.jooby.pac4j.Pac4jOptions;
+import io.jooby.pac4j.Pac4jSessionSerializer;
+
+public class SessionStoreImplTest {
+
+  private static class CountingSerializer implements Pac4jSessionSerializer {
+    private final AtomicInteger serialized = new AtomicInteger();
+
+    private final AtomicInteger deserialized = new AtomicInteger();
+
+    @SuppressWarnings("unchecked")
+    @Override public String serialize(Object value) {
+      serialized.incrementAndGet();
+      return String.join(",", (List<String>) value);
+    }
+
+    @Override public Object deserialize(String value) {
+      deserialized.incrementAndGet();
+      return new ArrayList<>(Arrays.asList(value.split(",")));
+    }
+  }
+
+  @Test
+  public void decodeOncePerRequest() {
+    CountingSerializer serializer = new CountingSerializer();
+    SessionStoreImpl store = new SessionStoreImpl(
+        new Pac4jOptions().setSessionSerializer(serializer));
+    MockSession session = new MockSession();
+    session.put("profiles", "ser~a,b");
+    Pac4jContext ctx = context(store, session);
+
+    Object value = store.get(ctx, "profiles").get();
+    assertEquals(Arrays.asList("a", "b"), value);
+    assertSame(value, store.get(ctx, "profiles").get());
+    assertEquals(1, serializer.deserialized.get());
+
+    // value changed by someone else
+    session.put("profiles", "ser~c");
+    assertEquals(Arrays.asList("c"), store.get(ctx, "profiles").get());
+    assertEquals(2, serializer.deserialized.get());
+
+    // next request decodes again (no shared cache)
+    assertEquals(Arrays.asList("c"), store.get(context(store, session), "profiles").get());
+    assertEquals(3, serializer.deserialized.get());
+  }
+
+  @Test
+  public void deferSerialization() {
+    CountingSerializer serializer = new CountingSerializer();
+    SessionStoreImpl store = new SessionStoreImpl(
+        new Pac4jOptions().setSessionSerializer(serializer));
+    MockSession session = new MockSession();
+    Pac4jContext ctx = context(store, session);
+
+    SessionStoreImpl.defer(ctx);
+    List<String> profiles = new ArrayList<>(Arrays.asList("a"));
+    store.set(ctx, "profiles", profiles);
+    profiles.add("b");
+    store.set(ctx, "profiles", profiles);
+    assertEquals(0, serializer.serialized.get());
+    assertFalse(session.toMap().containsKey("profiles"));
+    assertSame(profiles, store.get(ctx, "profiles").get());
+
+    SessionStoreImpl.flush(ctx);
+    assertEquals(1, serializer.serialized.get());
+    assertEquals("ser~a,b", session.get("profiles").value());
+    assertSame(profiles, store.get(ctx, "profiles").get());
+    assertEquals(0, serializer.deserialized.get());
+
+    // not deferred anymore
+    store.set(ctx, "profiles", Arrays.asList("c"));
+    assertEquals(2, serializer.serialized.get());
+    assertEquals("ser~c", session.get("profiles").value());
+
+    // simple values are saved as they are
+    store.set(ctx, "url", "/home");
+    assertEquals("/home", session.get("url").value());
+    assertEquals(2, serializer.serialized.get());
+  }
+
+  @Test
+  public void sharedCache() {
+    CountingSerializer serializer = new CountingSerializer();
+    SessionStoreImpl store = new SessionStoreImpl(new Pac4jOptions()
+        .setSessionSerializer(serializer)
+        .setSessionCacheSize(1));
+    MockSession s1 = new MockSession();
+    s1.put("profiles", "ser~a");
+    MockSession s2 = new MockSession();
+    s2.put("profiles", "ser~b");
+
+    Object a = store.get(context(store, s1), "profiles").get();
+    assertSame(a, store.get(context(store, s1), "profiles").get());
+    assertEquals(1, serializer.deserialized.get());
+
+    // least recently used entry is evicted
+    store.get(context(store, s2), "profiles");
+    assertEquals(2, serializer.deserialized.get());
+    assertEquals(Arrays.asList("a"), store.get(context(store, s1), "profiles").get());
+    assertEquals(3, serializer.deserialized.get());
+  }
+
+  @Test
+  public void javaSerialization() {
+    SessionStoreImpl store = new SessionStoreImpl();
+    MockSession session = new MockSession();
+    ArrayList<String> profiles = new ArrayList<>(Arrays.asList("a", "b"));
+
+    store.set(context(store, session), "profiles", profiles);
+    assertTrue(session.get("profiles").value().startsWith("b64~"));
+    assertEquals(profiles, store.get(context(store, session), "profiles").get());
+  }
+
+  private Pac4jContext context(SessionStoreImpl store, MockSession session) {
+    Jooby app = new Jooby();
+    app.getServices().put(SessionStoreImpl.class, store);
+    MockContext ctx = new MockContext().setRouter(app);
+    ctx.setSession(session);
+    return Pac4jContext.create(ctx);
+  }
+}
@@ -0,0 +1,693 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+
+import io.jooby.internal.CookieParser;
+import io.jooby.internal.HeadersValue;
+
+/**
+ * Context created by {@link LoopbackServer}. Unlike {@link MockContext} requests go through the
+ * same path a web server does: <code>router.match(ctx).execute(ctx)</code>, so route pipeline,
+ * decorators, before/after handlers, encoders and error handler are all executed.
+ *
+ * Response is written into an in-memory byte sink. Contexts are recycled by
+ * {@link LoopbackServer#request(String, String)}, so a benchmark loop doesn't allocate a new
+ * context, header map or response buffer per request.
+ *
+ * Not supported: multipart requests, web sockets and server-sent events.
+ *
+ * @author edgar
+ * @since 3.0.0
+ */
+public class LoopbackContext implements DefaultContext {
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private final Router router;
+
+  private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+  private final Map<String, String> responseHeaders =
+      new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+  private final Map<String, String> responseCookies = new LinkedHashMap<>();
+
+  private final ResponseSink sink = new ResponseSink();
+
+  private String method;
+
+  private String requestPath;
+
+  private String queryString;
+
+  private Route route;
+
+  private Map<String, String> pathMap = Collections.emptyMap();
+
+  private Map<String, Object> attributes;
+
+  private QueryString query;
+
+  private ValueNode headerNode;
+
+  private Map<String, String> cookies;
+
+  private Formdata form;
+
+  private byte[] body = EMPTY;
+
+  private StatusCode responseCode = StatusCode.OK;
+
+  private MediaType responseType;
+
+  private long responseLength = -1;
+
+  private Boolean resetHeadersOnError;
+
+  private CompletionListeners listeners;
+
+  private String remoteAddress = "127.0.0.1";
+
+  private String host;
+
+  private String scheme = "http";
+
+  private int port;
+
+  private boolean responseStarted;
+
+  private volatile boolean completed;
+
+  LoopbackContext(Router router) {
+    this.router = router;
+  }
+
+  /**
+   * Reset context state and prepare it for a new request.
+   *
+   * @param method HTTP method.
+   * @param uri Request path, optionally including a query string.
+   * @return This context.
+   */
+  LoopbackContext recycle(String method, String uri) {
+    this.method = method.toUpperCase();
+    int q = uri.indexOf('?');
+    if (q >= 0) {
+      this.requestPath = uri.substring(0, q);
+      this.queryString = uri.substring(q + 1);
+    } else {
+      this.requestPath = uri;
+      this.queryString = "";
+    }
+    headers.clear();
+    responseHeaders.clear();
+    responseCookies.clear();
+    sink.reset();
+    route = null;
+    pathMap = Collections.emptyMap();
+    if (attributes != null) {
+      attributes.clear();
+    }
+    query = null;
+    headerNode = null;
+    cookies = null;
+    form = null;
+    body = EMPTY;
+    responseCode = StatusCode.OK;
+    responseType = null;
+    responseLength = -1;
+    resetHeadersOnError = null;
+    listeners = null;
+    host = null;
+    port = 0;
+    scheme = "http";
+    responseStarted = false;
+    completed = false;
+    return this;
+  }
+
+  /**
+   * True when context is ready to serve a new request: it was never executed or the previous
+   * response was completed.
+   *
+   * @return True when context is ready to serve a new request.
+   */
+  boolean isRecyclable() {
+    return method == null || completed;
+  }
+
+  /**
+   * Add a request header.
+   *
+   * @param name Header name.
+   * @param value Header value.
+   * @return This context.
+   */
+  public @NonNull LoopbackContext setRequestHeader(@NonNull String name, @NonNull String value) {
+    headers.computeIfAbsent(name, k -> new ArrayList<>(1)).add(value);
+    return this;
+  }
+
+  /**
+   * Set request body.
+   *
+   * @param body Request body.
+   * @return This context.
+   */
+  public @NonNull LoopbackContext setRequestBody(@NonNull byte[] body) {
+    this.body = body;
+    return this;
+  }
+
+  /**
+   * Set request body.
+   *
+   * @param body Request body.
+   * @return This context.
+   */
+  public @NonNull LoopbackContext setRequestBody(@NonNull String body) {
+    return setRequestBody(body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Execute request: <code>router.match(ctx).execute(ctx)</code>.
+   *
+   * @return This context.
+   */
+  public @NonNull LoopbackContext execute() {
+    router.match(this).execute(this);
+    return this;
+  }
+
+  /**
+   * True once response was completed: either sent or closed.
+   *
+   * @return True once response was completed.
+   */
+  public boolean isCompleted() {
+    return completed;
+  }
+
+  /**
+   * Response body. Returns a copy of the response sink.
+   *
+   * @return Response body.
+   */
+  public @NonNull byte[] getResponseBody() {
+    return sink.toByteArray();
+  }
+
+  /**
+   * Response body as UTF-8 string.
+   *
+   * @return Response body as UTF-8 string.
+   */
+  public @NonNull String getResponseBodyAsString() {
+    return new String(sink.buffer(), 0, sink.size(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Number of bytes written into the response sink.
+   *
+   * @return Number of bytes written into the response sink.
+   */
+  public int getResponseBodySize() {
+    return sink.size();
+  }
+
+  /**
+   * Response headers.
+   *
+   * @return Response headers.
+   */
+  public @NonNull Map<String, String> getResponseHeaders() {
+    return Collections.unmodifiableMap(responseHeaders);
+  }
+
+  /**
+   * Response cookies, as <code>Set-Cookie</code> values by cookie name.
+   *
+   * @return Response cookies.
+   */
+  public @NonNull Map<String, String> getResponseCookies() {
+    return Collections.unmodifiableMap(responseCookies);
+  }
+
+  @NonNull @Override public Router getRouter() {
+    return router;
+  }
+
+  @NonNull @Override public String getMethod() {
+    return method;
+  }
+
+  @NonNull @Override public Context setMethod(@NonNull String method) {
+    this.method = method.toUpperCase();
+    return this;
+  }
+
+  @NonNull @Override public Route getRoute() {
+    return route;
+  }
+
+  @NonNull @Override public Context setRoute(@NonNull Route route) {
+    this.route = route;
+    return this;
+  }
+
+  @NonNull @Override public String getRequestPath() {
+    return requestPath;
+  }
+
+  @NonNull @Override public Context setRequestPath(@NonNull String path) {
+    this.requestPath = path;
+    return this;
+  }
+
+  @NonNull @Override public Map<String, String> pathMap() {
+    return pathMap;
+  }
+
+  @NonNull @Override public Context setPathMap(@NonNull Map<String, String> pathMap) {
+    this.pathMap = pathMap;
+    return this;
+  }
+
+  @NonNull @Override public Map<String, Object> getAttributes() {
+    if (attributes == null) {
+      attributes = new HashMap<>();
+    }
+    return attributes;
+  }
+
+  @Override public boolean isInIoThread() {
+    return false;
+  }
+
+  @NonNull @Override public QueryString query() {
+    if (query == null) {
+      query = QueryString.create(this, queryString);
+    }
+    return query;
+  }
+
+  @NonNull @Override public Value header(@NonNull String name) {
+    return Value.create(this, name, headers.get(name));
+  }
+
+  @NonNull @Override public ValueNode header() {
+    if (headerNode == null) {
+      headerNode = new HeadersValue(this, headers::get, headers::keySet);
+    }
+    return headerNode;
+  }
+
+
+  @NonNull @Override public Map<String, String> cookieMap() {
+    if (cookies == null) {
+      List<String> values = headers.get("Cookie");
+      cookies = values == null ? Collections.emptyMap() : CookieParser.parse(values.iterator());
+    }
+    return cookies;
+  }
+
+  @NonNull @Override public Formdata form() {
+    if (form == null) {
+      form = Formdata.create(this);
+      if (header("Content-Type").toOptional().orElse("")
+          .startsWith(MediaType.FORM_URLENCODED)) {
+        String content = new String(body, StandardCharsets.UTF_8);
+        for (String pair : content.split("&")) {
+          if (pair.length() > 0) {
+            int eq = pair.indexOf('=');
+            String name = eq > 0 ? pair.substring(0, eq) : pair;
+            String value = eq > 0 ? pair.substring(eq + 1) : "";
+            form.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                URLDecoder.decode(value, StandardCharsets.UTF_8));
+          }
+        }
+      }
+    }
+    return form;
+  }
+
+  @NonNull @Override public Multipart multipart() {
+    throw new UnsupportedOperationException("Multipart requests are not supported");
+  }
+
+  @NonNull @Override public Body body() {
+    return body.length == 0 ? Body.empty(this) : Body.of(this, body);
+  }
+
+  @NonNull @Override public String getHost() {
+    return host == null ? DefaultContext.super.getHost() : host;
+  }
+
+  @NonNull @Override public Context setHost(@NonNull String host) {
+    this.host = host;
+    return this;
+  }
+
+  @Override public int getPort() {
+    return port > 0 ? port : DefaultContext.super.getPort();
+  }
+
+  @NonNull @Override public Context setPort(int port) {
+    this.port = port;
+    return this;
+  }
+
+  @NonNull @Override public String getRemoteAddress() {
+    return remoteAddress;
+  }
+
+  @NonNull @Override public Context setRemoteAddress(@NonNull String remoteAddress) {
+    this.remoteAddress = remoteAddress;
+    return this;
+  }
+
+  @NonNull @Override public String getProtocol() {
+    return "HTTP/1.1";
+  }
+
+  @NonNull @Override public List<Certificate> getClientCertificates() {
+    return new ArrayList<>();
+  }
+
+  @NonNull @Override public String getScheme() {
+    return scheme;
+  }
+
+  @NonNull @Override public Context setScheme(@NonNull String scheme) {
+    this.scheme = scheme;
+    return this;
+  }
+
+  @NonNull @Override public Context dispatch(@NonNull Runnable action) {
+    return dispatch(router.getWorker(), action);
+  }
+
+  @NonNull @Override public Context dispatch(@NonNull Executor executor,
+      @NonNull Runnable action) {
+    executor.execute(action);
+    return this;
+  }
+
+  @NonNull @Override public Context detach(@NonNull Route.Handler next) throws Exception {
+    next.apply(this);
+    return this;
+  }
+
+  @NonNull @Override public Context upgrade(@NonNull WebSocket.Initializer handler) {
+    throw new UnsupportedOperationException("Web sockets are not supported");
+  }
+
+  @NonNull @Override public Context upgrade(@NonNull ServerSentEmitter.Handler handler) {
+    throw new UnsupportedOperationException("Server-sent events are not supported");
+  }
+
+  @NonNull @Override public StatusCode getResponseCode() {
+    return responseCode;
+  }
+
+  @NonNull @Override public Context setResponseCode(int statusCode) {
+    this.responseCode = StatusCode.valueOf(statusCode);
+    return this;
+  }
+
+  @NonNull @Override public Context setResponseHeader(@NonNull String name, @NonNull String value) {
+    responseHeaders.put(name, value);
+    return this;
+  }
+
+  @NonNull @Override public Context removeResponseHeader(@NonNull String name) {
+    responseHeaders.remove(name);
+    return this;
+  }
+
+  @NonNull @Override public Context removeResponseHeaders() {
+    responseHeaders.clear();
+    responseCookies.clear();
+    return this;
+  }
+
+  @Nullable @Override public String getResponseHeader(@NonNull String name) {
+    return responseHeaders.get(name);
+  }
+
+  @NonNull @Override public Context setResponseCookie(@NonNull Cookie cookie) {
+    cookie.setPath(cookie.getPath(getContextPath()));
+    responseCookies.put(cookie.getName(), cookie.toCookieString());
+    return this;
+  }
+
+  @NonNull @Override public MediaType getResponseType() {
+    return responseType == null ? MediaType.text : responseType;
+  }
+
+  @NonNull @Override public Context setDefaultResponseType(@NonNull MediaType contentType) {
+    if (responseType == null) {
+      setResponseType(contentType, contentType.getCharset());
+    }
+    return this;
+  }
+
+  @NonNull @Override
+  public Context setResponseType(@NonNull MediaType contentType, @Nullable Charset charset) {
+    this.responseType = contentType;
+    responseHeaders.put("Content-Type", contentType.toContentTypeHeader(charset));
+    return this;
+  }
+
+  @NonNull @Override public Context setResponseType(@NonNull String contentType) {
+    this.responseType = MediaType.valueOf(contentType);
+    responseHeaders.put("Content-Type", contentType);
+    return this;
+  }
+
+  @NonNull @Override public Context setResponseLength(long length) {
+    this.responseLength = length;
+    responseHeaders.put("Content-Length", Long.toString(length));
+    return this;
+  }
+
+  @Override public long getResponseLength() {
+    return responseLength;
+  }
+
+  @Override public boolean isResponseStarted() {
+    return responseStarted;
+  }
+
+  @Override public boolean getResetHeadersOnError() {
+    return resetHeadersOnError == null
+        ? router.getRouterOptions().contains(RouterOption.RESET_HEADERS_ON_ERROR)
+        : resetHeadersOnError.booleanValue();
+  }
+
+  @NonNull @Override public Context setResetHeadersOnError(boolean value) {
+    this.resetHeadersOnError = value;
+    return this;
+  }
+
+  @NonNull @Override public OutputStream responseStream() {
+    responseStarted = true;
+    return sink;
+  }
+
+  @NonNull @Override public Sender responseSender() {
+    responseStarted = true;
+    return new Sender() {
+      @NonNull @Override public Sender write(@NonNull byte[] data, @NonNull Callback callback) {
+        sink.write(data, 0, data.length);
+        callback.onComplete(LoopbackContext.this, null);
+        return this;
+      }
+
+      @Override public void close() {
+        complete();
+      }
+    };
+  }
+
+  @NonNull @Override public PrintWriter responseWriter(@NonNull MediaType type,
+      @Nullable Charset charset) {
+    setResponseType(type, charset);
+    responseStarted = true;
+    return new PrintWriter(
+        new OutputStreamWriter(sink, charset == null ? StandardCharsets.UTF_8 : charset));
+  }
+
+  @NonNull @Override public Context send(@NonNull String data, @NonNull Charset charset) {
+    return send(data.getBytes(charset));
+  }
+
+  @NonNull @Override public Context send(@NonNull byte[] data) {
+    sink.write(data, 0, data.length);
+    return sendSink();
+  }
+
+  @NonNull @Override public Context send(@NonNull ByteBuffer data) {
+    sink.write(data);
+    return sendSink();
+  }
+
+  @NonNull @Override public Context send(@NonNull ByteBuffer[] data) {
+    for (ByteBuffer buffer : data) {
+      sink.write(buffer);
+    }
+    return sendSink();
+  }
+
+  @NonNull @Override public Context send(@NonNull ReadableByteChannel channel) {
+    return send(Channels.newInputStream(channel));
+  }
+
+  @NonNull @Override public Context send(@NonNull InputStream input) {
+    try (InputStream in = input) {
+      in.transferTo(sink);
+    } catch (IOException x) {
+      throw SneakyThrows.propagate(x);
+    }
+    return sendSink();
+  }
+
+  @NonNull @Override public Context send(@NonNull FileChannel file) {
+    try (FileChannel channel = file) {
+      long len = channel.size();
+      ByteRange range = ByteRange.parse(header("Range").valueOrNull(), len).apply(this);
+      range.apply(Channels.newInputStream(channel)).transferTo(sink);
+    } catch (IOException x) {
+      throw SneakyThrows.propagate(x);
+    }
+    return sendSink();
+  }
+
+  @NonNull @Override public Context send(@NonNull StatusCode statusCode) {
+    this.responseCode = statusCode;
+    return sendSink();
+  }
+
+  @NonNull @Override public Context onComplete(@NonNull Route.Complete task) {
+    if (listeners == null) {
+      listeners = new CompletionListeners();
+    }
+    listeners.addListener(task);
+    return this;
+  }
+
+  @Override public String toString() {
+    return getMethod() + " " + getRequestPath();
+  }
+
+  private Context sendSink() {
+    if (responseLength == -1) {
+      responseLength = sink.size();
+      responseHeaders.put("Content-Length", Long.toString(responseLength));
+    }
+    complete();
+    return this;
+  }
+
+  private void complete() {
+    if (!completed) {
+      responseStarted = true;
+      ifSaveSession();
+      if (listeners != null) {
+        listeners.run(this);
+      }
+      completed = true;
+    }
+  }
+
+  private void ifSaveSession() {
+    if (attributes != null) {
+      Session session = (Session) attributes.get(Session.NAME);
+      if (session != null && (session.isNew() || session.isModify())) {
+        SessionStore store = router.getSessionStore();
+        store.saveSession(this, session);
+      }
+    }
+  }
+
+  /**
+   * Growable byte buffer, reused between requests. Closing it completes the response.
+   */
+  private class ResponseSink extends OutputStream {
+    private byte[] buffer = new byte[1024];
+
+    private int size;
+
+    @Override public void write(int b) {
+      ensureCapacity(1);
+      buffer[size++] = (byte) b;
+    }
+
+    @Override public void write(byte[] b, int off, int len) {
+      ensureCapacity(len);
+      System.arraycopy(b, off, buffer, size, len);
+      size += len;
+    }
+
+    void write(ByteBuffer data) {
+      int len = data.remaining();
+      ensureCapacity(len);
+      data.duplicate().get(buffer, size, len);
+      size += len;
+    }
+
+    @Override public void close() {
+      complete();
+    }
+
+    void reset() {
+      size = 0;
+    }
+
+    int size() {
+      return size;
+    }
+
+    byte[] buffer() {
+      return buffer;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, size);
+    }
+
+    private void ensureCapacity(int len) {
+      if (size + len > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + len));
+      }
+    }
+  }
+}
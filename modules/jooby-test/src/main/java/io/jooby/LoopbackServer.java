@@ -0,0 +1,97 @@
+/**
+ * Jooby https://jooby.io
+ * Apache License Version 2.0 https://jooby.io/LICENSE.txt
+ * Copyright 2014 Edgar Espina
+ */
+package io.jooby;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * In-process server without sockets. Requests are executed on the caller thread through the same
+ * path web servers use: <code>router.match(ctx).execute(ctx)</code>. Useful for measuring framework
+ * overhead (JMH benchmarks, allocation profiling) without network noise.
+ *
+ * <pre>{@code
+ *   LoopbackServer server = new LoopbackServer();
+ *   server.start(new App());
+ *
+ *   LoopbackContext ctx = server.request("GET", "/hello?name=jooby")
+ *       .setRequestHeader("Accept", "application/json")
+ *       .execute();
+ *
+ *   ctx.getResponseCode();
+ *   ctx.getResponseBodyAsString();
+ *
+ *   server.stop();
+ * }</pre>
+ *
+ * Each thread recycles its context, so the returned context is valid until the next call to
+ * {@link #request(String, String)} from the same thread.
+ *
+ * Application is started as it was deployed on a real web server: extensions, start and ready
+ * callbacks are executed. Default worker runs tasks on the caller thread.
+ *
+ * @author edgar
+ * @since 3.0.0
+ */
+public class LoopbackServer extends Server.Base {
+
+  private static final Executor SAME_THREAD = Runnable::run;
+
+  private ServerOptions options = new ServerOptions().setServer("loopback");
+
+  private final List<Jooby> applications = new ArrayList<>();
+
+  private final ThreadLocal<LoopbackContext> contexts = new ThreadLocal<>();
+
+  private Router router;
+
+  @NonNull @Override public LoopbackServer setOptions(@NonNull ServerOptions options) {
+    this.options = options.setServer("loopback");
+    return this;
+  }
+
+  @NonNull @Override public ServerOptions getOptions() {
+    return options;
+  }
+
+  @NonNull @Override public LoopbackServer start(@NonNull Jooby application) {
+    applications.add(application);
+    this.router = application;
+
+    fireStart(applications, SAME_THREAD);
+
+    fireReady(Collections.singletonList(application));
+    return this;
+  }
+
+  /**
+   * Creates a new request. Call {@link LoopbackContext#execute()} to run it.
+   *
+   * @param method HTTP method.
+   * @param uri Request path, optionally including a query string.
+   * @return Request context.
+   */
+  public @NonNull LoopbackContext request(@NonNull String method, @NonNull String uri) {
+    if (router == null) {
+      throw new IllegalStateException("Server not started");
+    }
+    LoopbackContext ctx = contexts.get();
+    if (ctx == null || !ctx.isRecyclable()) {
+      // first request or previous response still in progress (dispatched to another thread)
+      ctx = new LoopbackContext(router);
+      contexts.set(ctx);
+    }
+    return ctx.recycle(method, uri);
+  }
+
+  @NonNull @Override public LoopbackServer stop() {
+    fireStop(applications);
+    return this;
+  }
+}
@@ -145,6 +145,11 @@ public class MockContext implements DefaultContext {
     return cookies;
   }
 
+  @NonNull @Override public Value cookie(@NonNull String name) {
+    String value = cookies.get(name);
+    return value == null ? Value.missing(name) : Value.value(this, name, value);
+  }
+
   @NonNull @Override public Context forward(@NonNull String path) {
     setRequestPath(path);
     if (mockRouter != null) {
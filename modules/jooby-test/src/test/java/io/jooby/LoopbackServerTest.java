@@ -0,0 +1,48 @@
+package io.jooby;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoopbackServerTest {
+
+  @Test
+  public void executePipeline() {
+    Jooby app = new Jooby();
+
+    app.decorator(next -> ctx -> "<" + next.apply(ctx) + ">");
+
+    app.after((ctx, result, failure) -> ctx.setResponseHeader("After", "true"));
+
+    app.get("/hello", ctx -> "Hello " + ctx.query("name").value("world"));
+
+    app.post("/echo", ctx -> ctx.header("X-Prefix").value() + ctx.body().value());
+
+    LoopbackServer server = new LoopbackServer();
+    server.start(app);
+    try {
+      LoopbackContext ctx = server.request("GET", "/hello?name=jooby").execute();
+      assertTrue(ctx.isCompleted());
+      assertEquals(StatusCode.OK, ctx.getResponseCode());
+      assertEquals("<Hello jooby>", ctx.getResponseBodyAsString());
+      assertEquals("13", ctx.getResponseHeader("Content-Length"));
+      assertEquals("true", ctx.getResponseHeader("After"));
+
+      LoopbackContext echo = server.request("POST", "/echo")
+          .setRequestHeader("x-prefix", ">")
+          .setRequestBody("body")
+          .execute();
+      // recycled
+      assertSame(ctx, echo);
+      assertEquals("<>body>", echo.getResponseBodyAsString());
+      assertEquals("true", echo.getResponseHeader("After"));
+
+      LoopbackContext missing = server.request("GET", "/missing").execute();
+      assertEquals(StatusCode.NOT_FOUND, missing.getResponseCode());
+    } finally {
+      server.stop();
+    }
+  }
+}
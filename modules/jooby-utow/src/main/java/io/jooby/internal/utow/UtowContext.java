@@ -30,8 +30,8 @@ import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Executor;
@@ -63,6 +63,10 @@ import io.jooby.StatusCode;
 import io.jooby.Value;
 import io.jooby.ValueNode;
 import io.jooby.WebSocket;
+import io.jooby.internal.CookieParser;
+import io.jooby.internal.HeadersValue;
+import io.jooby.internal.LocaleCache;
+import io.jooby.internal.MultipleByteRange;
 import io.undertow.Handlers;
 import io.undertow.io.IoCallback;
 import io.undertow.io.Sender;
@@ -92,6 +96,8 @@ public class UtowContext implements DefaultContext, IoCallback {
   private MediaType responseType;
   private Map<String, String> cookies;
   private HashMap<String, String> responseCookies;
+  private Locale locale;
+  private List<Locale> locales;
   private long responseLength = -1;
   private Boolean resetHeadersOnError;
   private String method;
@@ -121,18 +127,27 @@ public class UtowContext implements DefaultContext, IoCallback {
     return body == null ? Body.empty(this) : body;
   }
 
+
+  @NonNull @Override public Locale locale() {
+    if (locale == null) {
+      locale = LocaleCache.locale(this);
+    }
+    return locale;
+  }
+
+  @NonNull @Override public List<Locale> locales() {
+    if (locales == null) {
+      locales = LocaleCache.locales(this);
+    }
+    return locales;
+  }
+
   @Override public @NonNull Map<String, String> cookieMap() {
     if (this.cookies == null) {
-      Collection<io.undertow.server.handlers.Cookie> cookies = exchange.getRequestCookies()
-          .values();
-      if (cookies.size() > 0) {
-        this.cookies = new LinkedHashMap<>(cookies.size());
-        for (io.undertow.server.handlers.Cookie it : cookies) {
-          this.cookies.put(it.getName(), it.getValue());
-        }
-      } else {
-        this.cookies = Collections.emptyMap();
-      }
+      HeaderValues header = exchange.getRequestHeaders().get(Headers.COOKIE);
+      this.cookies = header == null
+          ? Collections.emptyMap()
+          : CookieParser.parse(header.iterator());
     }
     return cookies;
   }
@@ -249,15 +264,16 @@ public class UtowContext implements DefaultContext, IoCallback {
   }
 
   @NonNull @Override public ValueNode header() {
-    HeaderMap map = exchange.getRequestHeaders();
     if (headers == null) {
-      Map<String, Collection<String>> headerMap = new LinkedHashMap<>();
-      Collection<HttpString> names = map.getHeaderNames();
-      for (HttpString name : names) {
-        HeaderValues values = map.get(name);
-        headerMap.put(name.toString(), values);
-      }
-      headers = Value.headers(this, headerMap);
+      HeaderMap map = exchange.getRequestHeaders();
+      headers = new HeadersValue(this, map::get, () -> {
+        Collection<HttpString> names = map.getHeaderNames();
+        List<String> result = new ArrayList<>(names.size());
+        for (HttpString name : names) {
+          result.add(name.toString());
+        }
+        return result;
+      });
     }
     return headers;
   }
@@ -476,7 +492,8 @@ public class UtowContext implements DefaultContext, IoCallback {
       ByteRange range = ByteRange
           .parse(exchange.getRequestHeaders().getFirst(RANGE), len)
           .apply(this);
-      new UtowChunkedStream(len).send(Channels.newChannel(range.apply(in)), exchange, this);
+      new UtowChunkedStream(exchange.getResponseContentLength())
+          .send(Channels.newChannel(range.apply(in)), exchange, this);
       return this;
     } catch (IOException x) {
       throw SneakyThrows.propagate(x);
@@ -490,6 +507,12 @@ public class UtowContext implements DefaultContext, IoCallback {
       ByteRange range = ByteRange
           .parse(exchange.getRequestHeaders().getFirst(RANGE), len)
           .apply(this);
+      if (range instanceof MultipleByteRange) {
+        // multipart/byteranges, parts are read from file using positional reads
+        new UtowChunkedStream(range.getContentLength())
+            .send(((MultipleByteRange) range).apply(file), exchange, this);
+        return this;
+      }
       file.position(range.getStart());
       new UtowChunkedStream(range.getEnd()).send(file, exchange, this);
       return this;
@@ -6,22 +6,31 @@
 package io.jooby.internal.utow;
 
 import io.jooby.Context;
+import io.jooby.Deadline;
 import io.jooby.Router;
 import io.jooby.StatusCode;
 import io.jooby.exception.StatusCodeException;
 import io.undertow.io.Receiver;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.server.ServerConnection;
 import io.undertow.server.handlers.form.FormDataParser;
 import io.undertow.server.handlers.form.FormEncodedDataDefinition;
 import io.undertow.server.handlers.form.FormParserFactory;
 import io.undertow.server.handlers.form.MultiPartParserDefinition;
+import io.undertow.util.AttachmentKey;
 import io.undertow.util.HeaderMap;
 import io.undertow.util.Headers;
 
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class UtowHandler implements HttpHandler {
+  /** Context of the request running on a connection. Used for cancelling its deadline. */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static final AttachmentKey<AtomicReference<Context>> CONTEXT = (AttachmentKey)
+      AttachmentKey.create(AtomicReference.class);
+
   protected final Router router;
   private final long maxRequestSize;
   private final int bufferSize;
@@ -36,6 +45,7 @@ public class UtowHandler implements HttpHandler {
 
   @Override public void handleRequest(HttpServerExchange exchange) throws Exception {
     UtowContext context = new UtowContext(exchange, router);
+    connectionContext(exchange.getConnection()).set(context);
 
     /** default headers: */
     HeaderMap responseHeaders = exchange.getResponseHeaders();
@@ -89,6 +99,18 @@ public class UtowHandler implements HttpHandler {
     }
   }
 
+  private static AtomicReference<Context> connectionContext(ServerConnection connection) {
+    AtomicReference<Context> context = connection.getAttachment(CONTEXT);
+    if (context == null) {
+      AtomicReference<Context> ref = new AtomicReference<>();
+      // client is gone, cancel deadline of running request (if any)
+      connection.addCloseListener(closed -> Deadline.cancel(ref.get()));
+      connection.putAttachment(CONTEXT, ref);
+      context = ref;
+    }
+    return context;
+  }
+
   private static long parseLen(String value) {
     try {
       return value == null ? -1 : Long.parseLong(value);
@@ -20,6 +20,8 @@ import org.xnio.XnioIoThread;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -35,6 +37,14 @@ public class UtowSeverSentEmitter implements ServerSentEmitter, IoCallback {
 
   private SneakyThrows.Runnable closeTask;
 
+  /**
+   * Sender doesn't allow a new send while one is in progress: messages are queued and sent
+   * together once the current send completes. Guarded by this.
+   */
+  private List<ByteBuffer> pending = new ArrayList<>();
+
+  private boolean sending;
+
   public UtowSeverSentEmitter(UtowContext utow) {
     this.utow = utow;
     this.id = UUID.randomUUID().toString();
@@ -46,8 +56,16 @@ public class UtowSeverSentEmitter implements ServerSentEmitter, IoCallback {
 
   @NonNull @Override public ServerSentEmitter send(ServerSentMessage data) {
     if (checkOpen()) {
+      ByteBuffer buffer = ByteBuffer.wrap(data.toByteArray(utow));
+      synchronized (this) {
+        if (sending) {
+          pending.add(buffer);
+          return this;
+        }
+        sending = true;
+      }
       Sender sender = utow.exchange.getResponseSender();
-      sender.send(ByteBuffer.wrap(data.toByteArray(utow)), this);
+      sender.send(buffer, this);
     } else {
       log.warn("server-sent-event closed: {}", id);
     }
@@ -92,10 +110,24 @@ public class UtowSeverSentEmitter implements ServerSentEmitter, IoCallback {
   }
 
   @Override public void onComplete(HttpServerExchange exchange, Sender sender) {
+    ByteBuffer[] buffers;
+    synchronized (this) {
+      if (pending.isEmpty()) {
+        sending = false;
+        return;
+      }
+      buffers = pending.toArray(new ByteBuffer[pending.size()]);
+      pending.clear();
+    }
+    sender.send(buffers, this);
   }
 
   @Override
   public void onException(HttpServerExchange exchange, Sender sender, IOException exception) {
+    synchronized (this) {
+      pending.clear();
+      sending = false;
+    }
     if (Server.connectionLost(exception)) {
       close();
     } else {